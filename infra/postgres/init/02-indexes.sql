@@ -15,21 +15,15 @@ BEGIN
     END IF;
 END$$;
 
-DO $$
-BEGIN
-    IF to_regclass('app.outbox_event') IS NOT NULL THEN
-        -- Efficient querying by processed_at and id (useful for housekeeping
-        -- or alternate poll strategies)
-        CREATE INDEX IF NOT EXISTS idx_outbox_event_unprocessed
-            ON app.outbox_event (processed_at, id);
-    END IF;
-END$$;
+-- app.outbox_event needs no extra index: the application partitions it by
+-- created_at and retires whole partitions behind the stream checkpoints, so
+-- processed_at is never written or queried.
 
 DO $$
 BEGIN
-    IF to_regclass('analytics.appointment_funnel_fact') IS NOT NULL THEN
-        -- Funnel reads by org+clinic
-        CREATE INDEX IF NOT EXISTS idx_appointment_funnel_org_clinic
-            ON analytics.appointment_funnel_fact (organization_id, clinic_id);
+    IF to_regclass('analytics.appointment_funnel_fact_v2') IS NOT NULL THEN
+        -- Funnel reads by org+clinic (bigint ids)
+        CREATE INDEX IF NOT EXISTS idx_funnel_fact_v2_org_clinic
+            ON analytics.appointment_funnel_fact_v2 (organization_id, clinic_id);
     END IF;
 END$$;
@@ -75,7 +75,12 @@ export const options = {
   thresholds: {
     http_req_failed: ["rate<0.05"], // <5% errors
     http_req_duration: ["p(95)<2000"], // 95% under 2s (tuned for small container)
+    // Per-request-name sub-metrics, so the summary export carries schedule
+    // throughput and latency without the long-lived SSE requests mixed in.
+    "http_reqs{name:schedule_appointment}": ["count>0"],
+    "http_req_duration{name:schedule_appointment}": ["p(99)<5000"],
   },
+  summaryTrendStats: ["avg", "min", "med", "max", "p(90)", "p(95)", "p(99)"],
 };
 
 export function scheduleFlow() {
@@ -108,7 +113,14 @@ export function scheduleFlow() {
     "schedule accepted (200/202)": (r) => ok,
   });
 
-  if (!ok && !backpressure) {
+  if (backpressure) {
+    // Admission control says how long to back off; honour it instead of retrying at once.
+    const retryAfter = Number(scheduleRes.headers["Retry-After"]);
+    sleep(retryAfter > 0 ? retryAfter : 1);
+    return;
+  }
+
+  if (!ok) {
     // unexpected failure; pause briefly
     // brief pause before next iteration
     sleep(1);
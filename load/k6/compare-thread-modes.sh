@@ -0,0 +1,46 @@
+#!/usr/bin/env sh
+# Runs the k6 appointment scenario against the app container (0.5 CPU, see
+# docker-compose.yml) once on platform threads and once on virtual threads,
+# then prints schedule throughput and latency percentiles for both modes.
+#
+# Usage (from the repository root):
+#   load/k6/compare-thread-modes.sh
+# Any k6 env var of appointment-loadtest.js can be overridden, e.g.
+#   RAMP_TARGET_VUS=200 RAMP_HOLD_MINUTES=5 load/k6/compare-thread-modes.sh
+# Requires docker compose, curl and jq.
+set -eu
+
+RESULTS_DIR="$(pwd)/load/k6/results"
+RAMP_TARGET_VUS="${RAMP_TARGET_VUS:-200}"
+RAMP_HOLD_MINUTES="${RAMP_HOLD_MINUTES:-3}"
+SSE_CLIENTS="${SSE_CLIENTS:-200}"
+mkdir -p "$RESULTS_DIR"
+
+docker compose up -d postgres
+
+for mode in platform virtual; do
+  if [ "$mode" = virtual ]; then enabled=true; else enabled=false; fi
+  echo "== $mode threads =="
+  SPRING_THREADS_VIRTUAL_ENABLED=$enabled docker compose up -d --build --force-recreate app
+  until curl -fs http://localhost:8080/actuator/health > /dev/null; do sleep 2; done
+
+  # Thresholds may fail under overload; the comparison still wants the numbers.
+  docker compose run --rm \
+    -v "$RESULTS_DIR:/results" \
+    -e RAMP_TARGET_VUS="$RAMP_TARGET_VUS" \
+    -e RAMP_HOLD_MINUTES="$RAMP_HOLD_MINUTES" \
+    -e SSE_CLIENTS="$SSE_CLIENTS" \
+    -e WAIT_COMPLETE_START="${WAIT_COMPLETE_START:-10m}" \
+    k6 run --summary-export="/results/summary-$mode.json" appointment-loadtest.js || true
+done
+
+printf '\n%-10s %14s %10s %10s %10s\n' mode "schedule req/s" "p50 ms" "p95 ms" "p99 ms"
+for mode in platform virtual; do
+  jq -r --arg mode "$mode" '
+    .metrics["http_reqs{name:schedule_appointment}"] as $reqs
+    | .metrics["http_req_duration{name:schedule_appointment}"] as $latency
+    | [$mode, ($reqs.rate * 10 | round / 10), ($latency.med | round),
+       ($latency["p(95)"] | round), ($latency["p(99)"] | round)]
+    | @tsv' "$RESULTS_DIR/summary-$mode.json" \
+    | awk -F '\t' '{ printf "%-10s %14s %10s %10s %10s\n", $1, $2, $3, $4, $5 }'
+done
@@ -16,6 +16,14 @@ public class StreamCheckpoint {
     @Column(name = "last_processed_event_id", nullable = false)
     private long lastProcessedEventId;
 
+    // Compact encoding of outbox ids below the high-water mark that were not yet visible.
+    @Column(name = "pending_gaps", columnDefinition = "text")
+    private String pendingGaps;
+
+    // Commit end LSN of the last projected transaction, for checkpoints of a logical replication slot.
+    @Column(name = "confirmed_lsn")
+    private Long confirmedLsn;
+
     public StreamCheckpoint() {
     }
 
@@ -39,4 +47,20 @@ public class StreamCheckpoint {
     public void setLastProcessedEventId(long lastProcessedEventId) {
         this.lastProcessedEventId = lastProcessedEventId;
     }
+
+    public String getPendingGaps() {
+        return pendingGaps;
+    }
+
+    public void setPendingGaps(String pendingGaps) {
+        this.pendingGaps = pendingGaps;
+    }
+
+    public long getConfirmedLsn() {
+        return confirmedLsn != null ? confirmedLsn : 0L;
+    }
+
+    public void setConfirmedLsn(long confirmedLsn) {
+        this.confirmedLsn = confirmedLsn;
+    }
 }
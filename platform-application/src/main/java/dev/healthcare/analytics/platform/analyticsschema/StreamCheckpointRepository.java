@@ -2,5 +2,9 @@ package dev.healthcare.analytics.platform.analyticsschema;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface StreamCheckpointRepository extends JpaRepository<StreamCheckpoint, String> {
+
+    List<StreamCheckpoint> findByStreamNameStartingWith(String streamNamePrefix);
 }
@@ -0,0 +1,147 @@
+package dev.healthcare.analytics.platform.analyticsschema.aggregate;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.sketch.LatencySketch;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+
+import java.time.Instant;
+
+/**
+ * AppointmentFunnelAggregate holds the running funnel counters for a single
+ * (organization, clinic) tenant. It is updated incrementally by the stream
+ * processor and read by the dashboard, so every access is synchronized.
+ * Latency percentiles come from two LatencySketch instances that are
+ * adjusted by the same signed deltas as the sums.
+ */
+public class AppointmentFunnelAggregate {
+
+    private long scheduledCount;
+    private long completedCount;
+
+    private long virtualCount;
+    private long inPersonCount;
+
+    private long totalScheduledToStartSeconds;
+    private long countScheduledToStart;
+    private long totalStartToCompleteSeconds;
+    private long countStartToComplete;
+
+    private final LatencySketch scheduledToStartSketch = new LatencySketch();
+    private final LatencySketch startToCompleteSketch = new LatencySketch();
+
+    private Instant maxCompletedAt;
+
+    /**
+     * Swaps a fact's previous contribution for its new one in one step, so a
+     * concurrent snapshot sees either both changes or neither. Either side may
+     * be null.
+     */
+    synchronized void replace(AppointmentFunnelContribution before, AppointmentFunnelContribution after) {
+        if (before != null) {
+            apply(before, -1);
+        }
+        if (after != null) {
+            apply(after, 1);
+        }
+    }
+
+    private void apply(AppointmentFunnelContribution contribution, int sign) {
+        if (contribution.status() == AppointmentFunnelCodes.STATUS_SCHEDULED) {
+            scheduledCount += sign;
+        } else if (contribution.status() == AppointmentFunnelCodes.STATUS_COMPLETED) {
+            completedCount += sign;
+        }
+
+        if (contribution.modality() == AppointmentFunnelCodes.MODALITY_VIRTUAL) {
+            virtualCount += sign;
+        } else if (contribution.modality() == AppointmentFunnelCodes.MODALITY_IN_PERSON) {
+            inPersonCount += sign;
+        }
+
+        if (contribution.scheduledToStartSeconds() != null) {
+            totalScheduledToStartSeconds += sign * contribution.scheduledToStartSeconds();
+            countScheduledToStart += sign;
+            scheduledToStartSketch.add(contribution.scheduledToStartSeconds(), sign);
+        }
+
+        if (contribution.startToCompleteSeconds() != null) {
+            totalStartToCompleteSeconds += sign * contribution.startToCompleteSeconds();
+            countStartToComplete += sign;
+            startToCompleteSketch.add(contribution.startToCompleteSeconds(), sign);
+        }
+
+        // The high-water mark only moves forward; completion times are never retracted.
+        if (sign > 0) {
+            observeCompletedAt(contribution.completedAt());
+        }
+    }
+
+    synchronized void merge(short status,
+                            short modality,
+                            long factCount,
+                            long sumScheduledToStartSeconds,
+                            long countScheduledToStartSeconds,
+                            long sumStartToCompleteSeconds,
+                            long countStartToCompleteSeconds,
+                            Instant latestCompletedAt) {
+        if (status == AppointmentFunnelCodes.STATUS_SCHEDULED) {
+            scheduledCount += factCount;
+        } else if (status == AppointmentFunnelCodes.STATUS_COMPLETED) {
+            completedCount += factCount;
+        }
+
+        if (modality == AppointmentFunnelCodes.MODALITY_VIRTUAL) {
+            virtualCount += factCount;
+        } else if (modality == AppointmentFunnelCodes.MODALITY_IN_PERSON) {
+            inPersonCount += factCount;
+        }
+
+        totalScheduledToStartSeconds += sumScheduledToStartSeconds;
+        countScheduledToStart += countScheduledToStartSeconds;
+        totalStartToCompleteSeconds += sumStartToCompleteSeconds;
+        countStartToComplete += countStartToCompleteSeconds;
+
+        observeCompletedAt(latestCompletedAt);
+    }
+
+    synchronized void mergeSketches(LatencySketch scheduledToStart, LatencySketch startToComplete) {
+        scheduledToStartSketch.merge(scheduledToStart);
+        startToCompleteSketch.merge(startToComplete);
+    }
+
+    private void observeCompletedAt(Instant completedAt) {
+        if (completedAt != null && (maxCompletedAt == null || completedAt.isAfter(maxCompletedAt))) {
+            maxCompletedAt = completedAt;
+        }
+    }
+
+    synchronized AppointmentFunnelSnapshot toSnapshot(String organizationId, String clinicId) {
+        AppointmentFunnelSnapshot snapshot = new AppointmentFunnelSnapshot();
+        snapshot.setOrganizationId(organizationId);
+        snapshot.setClinicId(clinicId);
+
+        snapshot.setScheduledCount(scheduledCount);
+        snapshot.setCompletedCount(completedCount);
+        snapshot.setVirtualCount(virtualCount);
+        snapshot.setInPersonCount(inPersonCount);
+
+        if (countScheduledToStart > 0) {
+            snapshot.setAverageScheduledToStartSeconds(totalScheduledToStartSeconds / (double) countScheduledToStart);
+        }
+
+        if (countStartToComplete > 0) {
+            snapshot.setAverageStartToCompleteSeconds(totalStartToCompleteSeconds / (double) countStartToComplete);
+        }
+
+        snapshot.setScheduledToStartSecondsP50(scheduledToStartSketch.quantile(0.50));
+        snapshot.setScheduledToStartSecondsP90(scheduledToStartSketch.quantile(0.90));
+        snapshot.setScheduledToStartSecondsP99(scheduledToStartSketch.quantile(0.99));
+        snapshot.setStartToCompleteSecondsP50(startToCompleteSketch.quantile(0.50));
+        snapshot.setStartToCompleteSecondsP90(startToCompleteSketch.quantile(0.90));
+        snapshot.setStartToCompleteSecondsP99(startToCompleteSketch.quantile(0.99));
+
+        snapshot.setLastUpdatedAt(maxCompletedAt != null ? maxCompletedAt : Instant.now());
+
+        return snapshot;
+    }
+}
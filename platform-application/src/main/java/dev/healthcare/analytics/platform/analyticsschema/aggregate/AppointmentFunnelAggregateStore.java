@@ -0,0 +1,152 @@
+package dev.healthcare.analytics.platform.analyticsschema.aggregate;
+
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactRepository;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.RollupGranularity;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AppointmentFunnelAggregateStore keeps one running AppointmentFunnelAggregate
+ * per (organization, clinic). The stream processor feeds it fact deltas as it
+ * projects events, so reading a snapshot no longer scans the fact table.
+ *
+ * Every delta is also applied to an organization-wide rollup, stored under
+ * the {@link #ALL_CLINICS} clinic id, so organization dashboards are served
+ * the same way without summing clinics on read.
+ */
+@Component
+// Latency sketches are rebuilt from day rollups, which must be backfilled first.
+@DependsOn("appointmentFunnelRollupMaintenance")
+public class AppointmentFunnelAggregateStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentFunnelAggregateStore.class);
+
+    public static final String ALL_CLINICS = "*";
+
+    private final AppointmentFunnelFactRepository factRepository;
+    private final AppointmentFunnelRollupRepository rollupRepository;
+
+    private final Map<TenantKey, AppointmentFunnelAggregate> aggregates = new ConcurrentHashMap<>();
+
+    public AppointmentFunnelAggregateStore(AppointmentFunnelFactRepository factRepository,
+                                           AppointmentFunnelRollupRepository rollupRepository) {
+        this.factRepository = factRepository;
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Rebuilds the aggregates from the fact table and the day rollups. Runs
+     * before the scheduled stream processor starts, and again after a
+     * reprojection swapped in new tables while projection is paused, so no
+     * projected delta can be lost or doubled.
+     */
+    @PostConstruct
+    public void rebuildFromFacts() {
+        List<AppointmentFunnelFactRepository.TenantFunnelTotals> totals = factRepository.summarizeByTenant();
+
+        aggregates.clear();
+        for (AppointmentFunnelFactRepository.TenantFunnelTotals row : totals) {
+            String organizationId = Long.toString(row.getOrganizationId());
+            Instant latestCompletedAt = row.getLatestCompletedAt() != null
+                    ? Instant.ofEpochSecond(row.getLatestCompletedAt())
+                    : null;
+            for (String clinicId : new String[] {Long.toString(row.getClinicId()), ALL_CLINICS}) {
+                aggregateFor(organizationId, clinicId).merge(
+                        row.getStatus(),
+                        row.getModality(),
+                        row.getFactCount(),
+                        row.getSumScheduledToStartSeconds(),
+                        row.getCountScheduledToStartSeconds(),
+                        row.getSumStartToCompleteSeconds(),
+                        row.getCountStartToCompleteSeconds(),
+                        latestCompletedAt);
+            }
+        }
+        // All-time latency distributions are the merge of every day bucket's sketch.
+        rollupRepository.forEachBucketSketch(RollupGranularity.DAY, (organizationId, clinicId, scheduledToStart, startToComplete) -> {
+            aggregateFor(organizationId, clinicId).mergeSketches(scheduledToStart, startToComplete);
+            aggregateFor(organizationId, ALL_CLINICS).mergeSketches(scheduledToStart, startToComplete);
+        });
+        LOGGER.info("Rebuilt appointment funnel aggregates for {} tenant(s) including organization rollups",
+                aggregates.size());
+    }
+
+    /**
+     * Replaces a fact's previous contribution with its new one. Either side may
+     * be null for a newly created fact or a fact without tenant identifiers.
+     * Each affected aggregate takes the whole change under its lock, so
+     * readers never see the old contribution removed but the new one missing.
+     */
+    public void replace(AppointmentFunnelContribution before, AppointmentFunnelContribution after) {
+        replaceIn(before != null ? new TenantKey(before.organizationId(), before.clinicId()) : null,
+                after != null ? new TenantKey(after.organizationId(), after.clinicId()) : null,
+                before, after);
+        replaceIn(before != null ? new TenantKey(before.organizationId(), ALL_CLINICS) : null,
+                after != null ? new TenantKey(after.organizationId(), ALL_CLINICS) : null,
+                before, after);
+    }
+
+    private void replaceIn(TenantKey beforeKey, TenantKey afterKey,
+                           AppointmentFunnelContribution before, AppointmentFunnelContribution after) {
+        if (Objects.equals(beforeKey, afterKey)) {
+            if (beforeKey != null) {
+                aggregateFor(beforeKey).replace(before, after);
+            }
+            return;
+        }
+        // The fact moved to another tenant: each side changes on its own.
+        if (beforeKey != null) {
+            aggregateFor(beforeKey).replace(before, null);
+        }
+        if (afterKey != null) {
+            aggregateFor(afterKey).replace(null, after);
+        }
+    }
+
+    /**
+     * Returns the snapshot of one clinic, or of the whole organization when
+     * clinicId is {@link #ALL_CLINICS}.
+     */
+    public AppointmentFunnelSnapshot snapshot(String organizationId, String clinicId) {
+        AppointmentFunnelAggregate aggregate = aggregates.get(new TenantKey(organizationId, clinicId));
+        if (aggregate == null) {
+            return new AppointmentFunnelAggregate().toSnapshot(organizationId, clinicId);
+        }
+        return aggregate.toSnapshot(organizationId, clinicId);
+    }
+
+    /**
+     * Every tenant that currently has an aggregate, organization rollups included.
+     */
+    public Set<AppointmentFunnelTenant> tenants() {
+        Set<AppointmentFunnelTenant> tenants = new HashSet<>();
+        for (TenantKey key : aggregates.keySet()) {
+            tenants.add(new AppointmentFunnelTenant(key.organizationId(), key.clinicId()));
+        }
+        return tenants;
+    }
+
+    private AppointmentFunnelAggregate aggregateFor(String organizationId, String clinicId) {
+        return aggregateFor(new TenantKey(organizationId, clinicId));
+    }
+
+    private AppointmentFunnelAggregate aggregateFor(TenantKey key) {
+        return aggregates.computeIfAbsent(key, ignored -> new AppointmentFunnelAggregate());
+    }
+
+    private record TenantKey(String organizationId, String clinicId) {
+    }
+}
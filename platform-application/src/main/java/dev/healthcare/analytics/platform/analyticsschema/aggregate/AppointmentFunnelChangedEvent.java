@@ -0,0 +1,11 @@
+package dev.healthcare.analytics.platform.analyticsschema.aggregate;
+
+import java.util.Set;
+
+/**
+ * AppointmentFunnelChangedEvent is published once per projected batch, after
+ * its deltas were applied to the aggregate store, with every tenant whose
+ * funnel aggregate changed.
+ */
+public record AppointmentFunnelChangedEvent(Set<AppointmentFunnelTenant> tenants) {
+}
@@ -0,0 +1,42 @@
+package dev.healthcare.analytics.platform.analyticsschema.aggregate;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+
+import java.time.Instant;
+
+/**
+ * AppointmentFunnelContribution is an immutable copy of the fact columns that
+ * feed the running funnel aggregate, the time-bucketed rollups and the hot
+ * window. The stream processor captures one before and one after mutating a
+ * fact so the aggregate can be adjusted by the delta. Status and modality are
+ * the codes from {@link AppointmentFunnelCodes}; tenant ids are rendered as
+ * strings because aggregates and rollups are keyed the way the dashboard
+ * addresses tenants.
+ */
+public record AppointmentFunnelContribution(String organizationId,
+                                            String clinicId,
+                                            long patientId,
+                                            short status,
+                                            short modality,
+                                            Instant scheduledAt,
+                                            Long scheduledToStartSeconds,
+                                            Long startToCompleteSeconds,
+                                            Instant completedAt) {
+
+    public static AppointmentFunnelContribution of(AppointmentFunnelFact fact) {
+        if (fact == null || fact.getOrganizationId() == 0 || fact.getClinicId() == 0) {
+            return null;
+        }
+        return new AppointmentFunnelContribution(
+                Long.toString(fact.getOrganizationId()),
+                Long.toString(fact.getClinicId()),
+                fact.getPatientId(),
+                fact.getStatus(),
+                fact.getModality(),
+                fact.getScheduledAtEpochSecond() != 0 ? Instant.ofEpochSecond(fact.getScheduledAtEpochSecond()) : null,
+                fact.getScheduledToStartSeconds(),
+                fact.getStartToCompleteSeconds(),
+                fact.getCompletedAtEpochSecond() != null ? Instant.ofEpochSecond(fact.getCompletedAtEpochSecond()) : null);
+    }
+}
@@ -0,0 +1,7 @@
+package dev.healthcare.analytics.platform.analyticsschema.aggregate;
+
+/**
+ * AppointmentFunnelTenant identifies one (organization, clinic) funnel.
+ */
+public record AppointmentFunnelTenant(String organizationId, String clinicId) {
+}
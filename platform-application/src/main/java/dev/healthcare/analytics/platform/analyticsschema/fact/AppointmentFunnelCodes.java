@@ -0,0 +1,67 @@
+package dev.healthcare.analytics.platform.analyticsschema.fact;
+
+/**
+ * AppointmentFunnelCodes maps the appointment status and modality names
+ * carried in outbox payloads to the smallint codes stored in the compact fact
+ * table. Names are translated once, when an event is projected; everything
+ * downstream compares codes.
+ *
+ * Codes are persisted, so existing values must never be renumbered.
+ */
+public final class AppointmentFunnelCodes {
+
+    public static final short UNKNOWN = 0;
+
+    public static final short STATUS_SCHEDULED = 1;
+    public static final short STATUS_COMPLETED = 2;
+    public static final short STATUS_CANCELLED = 3;
+
+    public static final short MODALITY_VIRTUAL = 1;
+    public static final short MODALITY_IN_PERSON = 2;
+
+    private AppointmentFunnelCodes() {
+    }
+
+    public static short statusCode(String status) {
+        if (status == null) {
+            return UNKNOWN;
+        }
+        return switch (status) {
+            case "SCHEDULED" -> STATUS_SCHEDULED;
+            case "COMPLETED" -> STATUS_COMPLETED;
+            case "CANCELLED" -> STATUS_CANCELLED;
+            default -> UNKNOWN;
+        };
+    }
+
+    // Modality was historically matched case-insensitively, so keep accepting any case.
+    public static short modalityCode(String modality) {
+        if (modality == null) {
+            return UNKNOWN;
+        }
+        if ("VIRTUAL".equalsIgnoreCase(modality)) {
+            return MODALITY_VIRTUAL;
+        }
+        if ("IN_PERSON".equalsIgnoreCase(modality)) {
+            return MODALITY_IN_PERSON;
+        }
+        return UNKNOWN;
+    }
+
+    public static String statusName(short code) {
+        return switch (code) {
+            case STATUS_SCHEDULED -> "SCHEDULED";
+            case STATUS_COMPLETED -> "COMPLETED";
+            case STATUS_CANCELLED -> "CANCELLED";
+            default -> "UNKNOWN";
+        };
+    }
+
+    public static String modalityName(short code) {
+        return switch (code) {
+            case MODALITY_VIRTUAL -> "VIRTUAL";
+            case MODALITY_IN_PERSON -> "IN_PERSON";
+            default -> "UNKNOWN";
+        };
+    }
+}
@@ -2,39 +2,50 @@ package dev.healthcare.analytics.platform.analyticsschema.fact;
 
 import jakarta.persistence.*;
 
-import java.time.Instant;
-
+/**
+ * AppointmentFunnelFact is the compact, fixed-width funnel fact: OLTP ids are
+ * kept as bigint, status and modality as smallint codes from
+ * {@link AppointmentFunnelCodes}, and timestamps as epoch seconds, so rows
+ * stay small and every filter or grouping is a primitive comparison.
+ *
+ * Required columns use primitives where 0 means "not seen yet" while an
+ * appointment is being folded from its events; optional ones are nullable.
+ * It replaces the string-typed {@code analytics.appointment_funnel_fact},
+ * which {@link AppointmentFunnelFactMigration} copies over once.
+ */
 @Entity
-@Table(name = "appointment_funnel_fact", schema = "analytics")
+@Table(name = "appointment_funnel_fact_v2", schema = "analytics", indexes = {
+        @Index(name = "idx_funnel_fact_v2_org_clinic", columnList = "organization_id, clinic_id")
+})
 public class AppointmentFunnelFact {
 
     @Id
-    @Column(name = "appointment_id", nullable = false, length = 64)
-    private String appointmentId;
+    @Column(name = "appointment_id", nullable = false)
+    private long appointmentId;
+
+    @Column(name = "organization_id", nullable = false)
+    private long organizationId;
 
-    @Column(name = "organization_id", nullable = false, length = 64)
-    private String organizationId;
+    @Column(name = "clinic_id", nullable = false)
+    private long clinicId;
 
-    @Column(name = "clinic_id", nullable = false, length = 64)
-    private String clinicId;
+    @Column(name = "patient_id", nullable = false)
+    private long patientId;
 
-    @Column(name = "patient_id", nullable = false, length = 64)
-    private String patientId;
+    @Column(name = "modality", nullable = false)
+    private short modality;
 
-    @Column(name = "modality", nullable = false, length = 32)
-    private String modality;
+    @Column(name = "status", nullable = false)
+    private short status;
 
     @Column(name = "scheduled_at", nullable = false)
-    private Instant scheduledAt;
+    private long scheduledAtEpochSecond;
 
     @Column(name = "started_at")
-    private Instant startedAt;
+    private Long startedAtEpochSecond;
 
     @Column(name = "completed_at")
-    private Instant completedAt;
-
-    @Column(name = "status", nullable = false, length = 32)
-    private String status;
+    private Long completedAtEpochSecond;
 
     // Derived latency metrics (optional but explicit naming)
     @Column(name = "scheduled_to_start_seconds")
@@ -46,76 +57,76 @@ public class AppointmentFunnelFact {
     public AppointmentFunnelFact() {
     }
 
-    public String getAppointmentId() {
+    public long getAppointmentId() {
         return appointmentId;
     }
 
-    public void setAppointmentId(String appointmentId) {
+    public void setAppointmentId(long appointmentId) {
         this.appointmentId = appointmentId;
     }
 
-    public String getOrganizationId() {
+    public long getOrganizationId() {
         return organizationId;
     }
 
-    public void setOrganizationId(String organizationId) {
+    public void setOrganizationId(long organizationId) {
         this.organizationId = organizationId;
     }
 
-    public String getClinicId() {
+    public long getClinicId() {
         return clinicId;
     }
 
-    public void setClinicId(String clinicId) {
+    public void setClinicId(long clinicId) {
         this.clinicId = clinicId;
     }
 
-    public String getPatientId() {
+    public long getPatientId() {
         return patientId;
     }
 
-    public void setPatientId(String patientId) {
+    public void setPatientId(long patientId) {
         this.patientId = patientId;
     }
 
-    public String getModality() {
+    public short getModality() {
         return modality;
     }
 
-    public void setModality(String modality) {
+    public void setModality(short modality) {
         this.modality = modality;
     }
 
-    public Instant getScheduledAt() {
-        return scheduledAt;
+    public short getStatus() {
+        return status;
     }
 
-    public void setScheduledAt(Instant scheduledAt) {
-        this.scheduledAt = scheduledAt;
+    public void setStatus(short status) {
+        this.status = status;
     }
 
-    public Instant getStartedAt() {
-        return startedAt;
+    public long getScheduledAtEpochSecond() {
+        return scheduledAtEpochSecond;
     }
 
-    public void setStartedAt(Instant startedAt) {
-        this.startedAt = startedAt;
+    public void setScheduledAtEpochSecond(long scheduledAtEpochSecond) {
+        this.scheduledAtEpochSecond = scheduledAtEpochSecond;
     }
 
-    public Instant getCompletedAt() {
-        return completedAt;
+    public Long getStartedAtEpochSecond() {
+        return startedAtEpochSecond;
     }
 
-    public void setCompletedAt(Instant completedAt) {
-        this.completedAt = completedAt;
+    public void setStartedAtEpochSecond(Long startedAtEpochSecond) {
+        this.startedAtEpochSecond = startedAtEpochSecond;
     }
 
-    public String getStatus() {
-        return status;
+    public Long getCompletedAtEpochSecond() {
+        return completedAtEpochSecond;
     }
 
-    public void setStatus(String status) {
-        this.status = status;
+    public void setCompletedAtEpochSecond(Long completedAtEpochSecond) {
+        this.completedAtEpochSecond = completedAtEpochSecond;
     }
 
     public Long getScheduledToStartSeconds() {
@@ -0,0 +1,83 @@
+package dev.healthcare.analytics.platform.analyticsschema.fact;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * AppointmentFunnelFactMigration copies the string-typed
+ * {@code analytics.appointment_funnel_fact} table into the compact
+ * {@code analytics.appointment_funnel_fact_v2} layout on startup.
+ *
+ * The copy is a single INSERT ... SELECT that only runs while the compact
+ * table is still empty, so it happens once and is all-or-nothing. Rows whose
+ * ids are not numeric cannot be represented and are left behind (and
+ * logged). The legacy table is not dropped; remove it once the migrated
+ * facts have been checked. The rollup backfill and the aggregate rebuild
+ * read facts, so they depend on this bean.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class AppointmentFunnelFactMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentFunnelFactMigration.class);
+
+    private static final String NUMERIC = "'^[0-9]+$'";
+
+    private static final String MIGRATE_SQL = """
+            INSERT INTO analytics.appointment_funnel_fact_v2 (
+                appointment_id, organization_id, clinic_id, patient_id, modality, status,
+                scheduled_at, started_at, completed_at,
+                scheduled_to_start_seconds, start_to_complete_seconds)
+            SELECT l.appointment_id::bigint, l.organization_id::bigint, l.clinic_id::bigint, l.patient_id::bigint,
+                   CASE upper(l.modality) WHEN 'VIRTUAL' THEN %d WHEN 'IN_PERSON' THEN %d ELSE %d END,
+                   CASE l.status WHEN 'SCHEDULED' THEN %d WHEN 'COMPLETED' THEN %d WHEN 'CANCELLED' THEN %d ELSE %d END,
+                   floor(extract(epoch FROM l.scheduled_at))::bigint,
+                   floor(extract(epoch FROM l.started_at))::bigint,
+                   floor(extract(epoch FROM l.completed_at))::bigint,
+                   l.scheduled_to_start_seconds, l.start_to_complete_seconds
+            FROM analytics.appointment_funnel_fact l
+            WHERE %s
+              AND NOT EXISTS (SELECT 1 FROM analytics.appointment_funnel_fact_v2)
+            """.formatted(
+            AppointmentFunnelCodes.MODALITY_VIRTUAL, AppointmentFunnelCodes.MODALITY_IN_PERSON, AppointmentFunnelCodes.UNKNOWN,
+            AppointmentFunnelCodes.STATUS_SCHEDULED, AppointmentFunnelCodes.STATUS_COMPLETED,
+            AppointmentFunnelCodes.STATUS_CANCELLED, AppointmentFunnelCodes.UNKNOWN,
+            numericIds("l"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentFunnelFactMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void migrateLegacyFacts() {
+        Boolean legacyExists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass('analytics.appointment_funnel_fact') IS NOT NULL", Boolean.class);
+        if (!Boolean.TRUE.equals(legacyExists)) {
+            return;
+        }
+        int migrated = jdbcTemplate.update(MIGRATE_SQL);
+        if (migrated == 0) {
+            return;
+        }
+        Long skipped = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM analytics.appointment_funnel_fact l WHERE NOT (" + numericIds("l") + ")",
+                Long.class);
+        LOGGER.info("Migrated {} appointment funnel fact(s) to the compact layout", migrated);
+        if (skipped != null && skipped > 0) {
+            LOGGER.warn("Left {} legacy appointment funnel fact(s) with non-numeric ids unmigrated", skipped);
+        }
+    }
+
+    private static String numericIds(String alias) {
+        return alias + ".appointment_id ~ " + NUMERIC
+                + " AND " + alias + ".organization_id ~ " + NUMERIC
+                + " AND " + alias + ".clinic_id ~ " + NUMERIC
+                + " AND " + alias + ".patient_id ~ " + NUMERIC;
+    }
+}
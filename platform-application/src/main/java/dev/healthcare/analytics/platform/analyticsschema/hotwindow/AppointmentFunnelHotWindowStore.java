@@ -0,0 +1,322 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactBatchRepository;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelBreakdown;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelBreakdownRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AppointmentFunnelHotWindowStore keeps the facts of appointments scheduled in
+ * the last few days in process, as off-heap columns partitioned by
+ * organization and day, so drill-downs by clinic, status, modality, hour of
+ * day or patient cohort are answered by scanning memory instead of querying
+ * Postgres.
+ *
+ * It is warmed from the fact table on startup (before the stream processor
+ * runs) and then appended to by the stream processor after each committed
+ * batch, as signed rows: a fact's previous version is retracted and its new
+ * version added, exactly like the running aggregates.
+ *
+ * Column data lives in direct buffers, so the heap only carries partition
+ * metadata. Whole days are evicted once they leave the window, and oldest
+ * days first when the memory budget is reached. If the current day alone
+ * exceeds the budget, further rows are dropped and counted; breakdowns of
+ * that day are then incomplete until the budget is raised.
+ */
+@Component
+@DependsOn("appointmentFunnelFactMigration")
+public class AppointmentFunnelHotWindowStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentFunnelHotWindowStore.class);
+
+    private static final int INITIAL_BLOCK_ROWS = 256;
+    private static final int MAX_BLOCK_ROWS = 16_384;
+
+    // Eviction starts at this share of the budget so appends rarely hit the hard limit.
+    private static final double EVICTION_THRESHOLD = 0.9;
+
+    private final Map<String, OrganizationHotWindow> organizations = new ConcurrentHashMap<>();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+    private volatile long oldestRetainedDay = Long.MIN_VALUE;
+
+    private final OrganizationHotWindow.HotWindowRetention retention = new OrganizationHotWindow.HotWindowRetention() {
+        @Override
+        public long oldestRetainedDay() {
+            return oldestRetainedDay;
+        }
+
+        @Override
+        public boolean reserve(long bytes) {
+            return AppointmentFunnelHotWindowStore.this.reserve(bytes);
+        }
+    };
+
+    private final AppointmentFunnelFactBatchRepository factBatchRepository;
+    private final boolean enabled;
+    private final int windowDays;
+    private final long maxBytes;
+
+    private final Counter droppedRowsCounter;
+    private final Timer scanTimer;
+
+    public AppointmentFunnelHotWindowStore(AppointmentFunnelFactBatchRepository factBatchRepository,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${platform.analytics.hot-window.enabled:true}") boolean enabled,
+                                           @Value("${platform.analytics.hot-window.window-days:3}") int windowDays,
+                                           @Value("${platform.analytics.hot-window.max-bytes:67108864}") long maxBytes) {
+        if (windowDays < 1) {
+            throw new IllegalArgumentException("platform.analytics.hot-window.window-days must be at least 1");
+        }
+        this.factBatchRepository = factBatchRepository;
+        this.enabled = enabled;
+        this.windowDays = windowDays;
+        this.maxBytes = maxBytes;
+
+        this.droppedRowsCounter = meterRegistry.counter("platform.analytics.hotwindow.rows.dropped");
+        this.scanTimer = Timer.builder("platform.analytics.hotwindow.scan")
+                .description("Time to answer a hot-window breakdown from memory")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("platform.analytics.hotwindow.bytes", allocatedBytes, AtomicLong::get)
+                .description("Off-heap bytes allocated for hot-window columns")
+                .register(meterRegistry);
+        Gauge.builder("platform.analytics.hotwindow.rows", this, AppointmentFunnelHotWindowStore::rowCount)
+                .description("Signed fact rows held in the hot window")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void warmUpFromFacts() {
+        if (!enabled) {
+            LOGGER.info("Appointment funnel hot window is disabled");
+            return;
+        }
+        oldestRetainedDay = windowStartDay(Instant.now());
+        long[] loaded = new long[1];
+        factBatchRepository.forEachContributionScheduledSince(oldestRetainedDay * OrganizationHotWindow.SECONDS_PER_DAY,
+                contribution -> {
+                    replace(null, contribution);
+                    loaded[0]++;
+                });
+        LOGGER.info("Warmed appointment funnel hot window with {} fact(s) over {} day(s) ({} bytes off-heap)",
+                loaded[0], windowDays, allocatedBytes.get());
+    }
+
+    /**
+     * Drops everything held and warms the window again from the fact table,
+     * after a reprojection swapped it. Projection must be paused meanwhile;
+     * breakdowns answered during the reload are incomplete.
+     */
+    public void reloadFromFacts() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (evictionLock) {
+            evictBefore(Long.MAX_VALUE / OrganizationHotWindow.SECONDS_PER_DAY);
+        }
+        warmUpFromFacts();
+    }
+
+    /**
+     * Replaces a fact's previous contribution with its new one. Must be called
+     * only after the projecting transaction committed.
+     */
+    public void replace(AppointmentFunnelContribution before, AppointmentFunnelContribution after) {
+        if (!enabled) {
+            return;
+        }
+        if (allocatedBytes.get() > maxBytes * EVICTION_THRESHOLD) {
+            evictOldestDaysOverBudget();
+        }
+        append(before, -1);
+        append(after, 1);
+    }
+
+    private void append(AppointmentFunnelContribution contribution, int sign) {
+        if (contribution == null || contribution.scheduledAt() == null) {
+            return;
+        }
+        OrganizationHotWindow organization = organizations.computeIfAbsent(contribution.organizationId(),
+                id -> new OrganizationHotWindow(INITIAL_BLOCK_ROWS, MAX_BLOCK_ROWS));
+        boolean appended = organization.append(
+                contribution.clinicId(),
+                contribution.patientId(),
+                contribution.status(),
+                contribution.modality(),
+                contribution.scheduledAt().getEpochSecond(),
+                latencyColumn(contribution.scheduledToStartSeconds()),
+                latencyColumn(contribution.startToCompleteSeconds()),
+                sign,
+                retention);
+        if (!appended && contribution.scheduledAt().getEpochSecond() >= oldestRetainedDay * OrganizationHotWindow.SECONDS_PER_DAY) {
+            droppedRowsCounter.increment();
+        }
+    }
+
+    private static int latencyColumn(Long seconds) {
+        if (seconds == null) {
+            return FactColumnBlock.NO_LATENCY;
+        }
+        return (int) Math.max(FactColumnBlock.NO_LATENCY + 1L, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    public AppointmentFunnelBreakdown breakdown(FunnelBreakdownQuery query) {
+        if (!query.from().isBefore(query.to())) {
+            throw new IllegalArgumentException("Window start must be before its end");
+        }
+        long startNanos = System.nanoTime();
+        long retainedFrom = oldestRetainedDay == Long.MIN_VALUE
+                ? Long.MIN_VALUE
+                : oldestRetainedDay * OrganizationHotWindow.SECONDS_PER_DAY;
+        long fromEpochSecond = Math.max(query.from().getEpochSecond(), retainedFrom);
+        long toEpochSecond = query.to().getEpochSecond();
+
+        AppointmentFunnelBreakdown breakdown = new AppointmentFunnelBreakdown();
+        breakdown.setOrganizationId(query.organizationId());
+        breakdown.setClinicId(query.clinicId());
+        breakdown.setGroupBy(query.groupBy().name());
+        breakdown.setWindowStart(Instant.ofEpochSecond(fromEpochSecond));
+        breakdown.setWindowEnd(query.to());
+
+        OrganizationHotWindow organization = organizations.get(query.organizationId());
+        if (organization == null) {
+            breakdown.setRows(List.of());
+            return breakdown;
+        }
+        OrganizationHotWindow.ScanResult result = organization.scan(query, fromEpochSecond, toEpochSecond);
+        breakdown.setScannedRows(result.scannedRows());
+        breakdown.setRows(toRows(query.groupBy(), result));
+        scanTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        return breakdown;
+    }
+
+    private static List<AppointmentFunnelBreakdownRow> toRows(FunnelBreakdownDimension groupBy,
+                                                              OrganizationHotWindow.ScanResult result) {
+        FunnelBreakdownAccumulator totals = result.accumulator();
+        List<AppointmentFunnelBreakdownRow> rows = new ArrayList<>();
+        for (int group = 0; group < totals.groups(); group++) {
+            if (groupBy != FunnelBreakdownDimension.NONE && totals.factCount[group] == 0) {
+                continue;
+            }
+            AppointmentFunnelBreakdownRow row = new AppointmentFunnelBreakdownRow();
+            row.setKey(groupKey(groupBy, group, result.clinicIds()));
+            row.setFactCount(totals.factCount[group]);
+            row.setScheduledCount(totals.scheduledCount[group]);
+            row.setCompletedCount(totals.completedCount[group]);
+            row.setVirtualCount(totals.virtualCount[group]);
+            row.setInPersonCount(totals.inPersonCount[group]);
+            if (totals.countScheduledToStart[group] > 0) {
+                row.setAverageScheduledToStartSeconds(
+                        totals.sumScheduledToStartSeconds[group] / (double) totals.countScheduledToStart[group]);
+            }
+            if (totals.countStartToComplete[group] > 0) {
+                row.setAverageStartToCompleteSeconds(
+                        totals.sumStartToCompleteSeconds[group] / (double) totals.countStartToComplete[group]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String groupKey(FunnelBreakdownDimension groupBy, int group, List<String> clinicIds) {
+        return switch (groupBy) {
+            case NONE -> "all";
+            case CLINIC -> group < clinicIds.size() ? clinicIds.get(group) : Integer.toString(group);
+            case STATUS -> AppointmentFunnelCodes.statusName((short) group);
+            case MODALITY -> AppointmentFunnelCodes.modalityName((short) group);
+            case HOUR_OF_DAY -> String.format("%02d", group);
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${platform.analytics.hot-window.evict-interval-ms:60000}")
+    public void evictExpiredDays() {
+        if (!enabled) {
+            return;
+        }
+        long cutoffDay = windowStartDay(Instant.now());
+        synchronized (evictionLock) {
+            if (cutoffDay > oldestRetainedDay) {
+                evictBefore(cutoffDay);
+            }
+        }
+    }
+
+    private void evictOldestDaysOverBudget() {
+        long today = Math.floorDiv(Instant.now().getEpochSecond(), OrganizationHotWindow.SECONDS_PER_DAY);
+        synchronized (evictionLock) {
+            while (allocatedBytes.get() > maxBytes * EVICTION_THRESHOLD) {
+                Long oldest = oldestDay();
+                if (oldest == null || oldest >= today) {
+                    return;
+                }
+                LOGGER.info("Hot window over its {} byte budget; evicting day {} early", maxBytes, oldest);
+                evictBefore(oldest + 1);
+            }
+        }
+    }
+
+    private void evictBefore(long day) {
+        // Raised first: appends re-check it under each organization's lock.
+        oldestRetainedDay = day;
+        long released = 0L;
+        for (OrganizationHotWindow organization : organizations.values()) {
+            released += organization.evictDaysBefore(day);
+        }
+        allocatedBytes.addAndGet(-released);
+    }
+
+    private Long oldestDay() {
+        Long oldest = null;
+        for (OrganizationHotWindow organization : organizations.values()) {
+            Long day = organization.oldestDay();
+            if (day != null && (oldest == null || day < oldest)) {
+                oldest = day;
+            }
+        }
+        return oldest;
+    }
+
+    private long windowStartDay(Instant now) {
+        return Math.floorDiv(now.getEpochSecond(), OrganizationHotWindow.SECONDS_PER_DAY) - (windowDays - 1);
+    }
+
+    private double rowCount() {
+        long rows = 0L;
+        for (OrganizationHotWindow organization : organizations.values()) {
+            rows += organization.rowCount();
+        }
+        return rows;
+    }
+
+    private boolean reserve(long bytes) {
+        long current;
+        do {
+            current = allocatedBytes.get();
+            if (current + bytes > maxBytes) {
+                return false;
+            }
+        } while (!allocatedBytes.compareAndSet(current, current + bytes));
+        return true;
+    }
+}
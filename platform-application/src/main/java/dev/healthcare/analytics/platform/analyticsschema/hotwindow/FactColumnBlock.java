@@ -0,0 +1,196 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * FactColumnBlock is a fixed-capacity, append-only run of fact rows stored
+ * column by column in one direct (off-heap) buffer. Each row is a signed
+ * contribution: +1 when a fact version enters the window, -1 when it is
+ * replaced, so counts and sums over a block are exact without updating rows
+ * in place.
+ *
+ * Scans work a block at a time: {@link #selectScheduledBetween} builds a
+ * selection vector of matching row positions in a branch-free loop, the
+ * {@code retain*} filters narrow it column by column, and
+ * {@link FunnelBreakdownAccumulator} folds the survivors. The tight loops over
+ * primitive columns are what the JIT auto-vectorizes.
+ *
+ * Not thread-safe; the owning {@link OrganizationHotWindow} guards access.
+ */
+final class FactColumnBlock {
+
+    static final int NO_LATENCY = Integer.MIN_VALUE;
+
+    static final int BYTES_PER_ROW = Long.BYTES * 2 + Integer.BYTES * 3 + 3;
+
+    private final int capacity;
+    private final ByteBuffer memory;
+
+    private final LongBuffer scheduledAt;
+    private final LongBuffer patientId;
+    private final IntBuffer clinicCode;
+    private final IntBuffer scheduledToStartSeconds;
+    private final IntBuffer startToCompleteSeconds;
+    private final ByteBuffer status;
+    private final ByteBuffer modality;
+    private final ByteBuffer sign;
+
+    private int size;
+
+    FactColumnBlock(int capacity) {
+        this.capacity = capacity;
+        this.memory = ByteBuffer.allocateDirect(capacity * BYTES_PER_ROW).order(ByteOrder.nativeOrder());
+        // 8-byte columns first, then 4-byte, then 1-byte, so every view stays aligned.
+        int offset = 0;
+        this.scheduledAt = column(offset, capacity * Long.BYTES).asLongBuffer();
+        offset += capacity * Long.BYTES;
+        this.patientId = column(offset, capacity * Long.BYTES).asLongBuffer();
+        offset += capacity * Long.BYTES;
+        this.clinicCode = column(offset, capacity * Integer.BYTES).asIntBuffer();
+        offset += capacity * Integer.BYTES;
+        this.scheduledToStartSeconds = column(offset, capacity * Integer.BYTES).asIntBuffer();
+        offset += capacity * Integer.BYTES;
+        this.startToCompleteSeconds = column(offset, capacity * Integer.BYTES).asIntBuffer();
+        offset += capacity * Integer.BYTES;
+        this.status = column(offset, capacity);
+        offset += capacity;
+        this.modality = column(offset, capacity);
+        offset += capacity;
+        this.sign = column(offset, capacity);
+    }
+
+    private ByteBuffer column(int offset, int length) {
+        return memory.slice(offset, length).order(ByteOrder.nativeOrder());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    long allocatedBytes() {
+        return (long) capacity * BYTES_PER_ROW;
+    }
+
+    void append(long scheduledAtEpochSecond,
+                long patient,
+                int clinic,
+                short statusCode,
+                short modalityCode,
+                int scheduledToStart,
+                int startToComplete,
+                int rowSign) {
+        int row = size++;
+        scheduledAt.put(row, scheduledAtEpochSecond);
+        patientId.put(row, patient);
+        clinicCode.put(row, clinic);
+        status.put(row, (byte) statusCode);
+        modality.put(row, (byte) modalityCode);
+        scheduledToStartSeconds.put(row, scheduledToStart);
+        startToCompleteSeconds.put(row, startToComplete);
+        sign.put(row, (byte) rowSign);
+    }
+
+    /**
+     * Writes the positions of rows scheduled in [from, to) into selection and
+     * returns how many there are.
+     */
+    int selectScheduledBetween(long fromEpochSecond, long toEpochSecond, int[] selection) {
+        int selected = 0;
+        for (int row = 0; row < size; row++) {
+            long at = scheduledAt.get(row);
+            selection[selected] = row;
+            selected += (at >= fromEpochSecond & at < toEpochSecond) ? 1 : 0;
+        }
+        return selected;
+    }
+
+    int selectAll(int[] selection) {
+        for (int row = 0; row < size; row++) {
+            selection[row] = row;
+        }
+        return size;
+    }
+
+    int retainClinic(int clinic, int[] selection, int selected) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += clinicCode.get(row) == clinic ? 1 : 0;
+        }
+        return kept;
+    }
+
+    int retainStatus(short code, int[] selection, int selected) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += status.get(row) == code ? 1 : 0;
+        }
+        return kept;
+    }
+
+    int retainModality(short code, int[] selection, int selected) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += modality.get(row) == code ? 1 : 0;
+        }
+        return kept;
+    }
+
+    /**
+     * Keeps rows whose patient is in the sorted cohort.
+     */
+    int retainPatients(long[] sortedPatientIds, int[] selection, int selected) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += Arrays.binarySearch(sortedPatientIds, patientId.get(row)) >= 0 ? 1 : 0;
+        }
+        return kept;
+    }
+
+    long scheduledAt(int row) {
+        return scheduledAt.get(row);
+    }
+
+    int clinicCode(int row) {
+        return clinicCode.get(row);
+    }
+
+    byte status(int row) {
+        return status.get(row);
+    }
+
+    byte modality(int row) {
+        return modality.get(row);
+    }
+
+    int scheduledToStartSeconds(int row) {
+        return scheduledToStartSeconds.get(row);
+    }
+
+    int startToCompleteSeconds(int row) {
+        return startToCompleteSeconds.get(row);
+    }
+
+    int sign(int row) {
+        return sign.get(row);
+    }
+}
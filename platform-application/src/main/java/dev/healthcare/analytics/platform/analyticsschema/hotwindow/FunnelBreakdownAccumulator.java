@@ -0,0 +1,88 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+
+/**
+ * FunnelBreakdownAccumulator folds selected hot-window rows into per-group
+ * funnel counters held in primitive arrays indexed by the group key (clinic
+ * dictionary code, status or modality code, or UTC hour of day). Every row
+ * contributes its sign, so replaced fact versions cancel out.
+ */
+final class FunnelBreakdownAccumulator {
+
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final long SECONDS_PER_HOUR = 3_600L;
+
+    private final FunnelBreakdownDimension dimension;
+
+    final long[] factCount;
+    final long[] scheduledCount;
+    final long[] completedCount;
+    final long[] virtualCount;
+    final long[] inPersonCount;
+    final long[] sumScheduledToStartSeconds;
+    final long[] countScheduledToStart;
+    final long[] sumStartToCompleteSeconds;
+    final long[] countStartToComplete;
+
+    FunnelBreakdownAccumulator(FunnelBreakdownDimension dimension, int clinicCardinality) {
+        this.dimension = dimension;
+        int groups = switch (dimension) {
+            case NONE -> 1;
+            case CLINIC -> Math.max(clinicCardinality, 1);
+            // Codes are stored as bytes; 8 slots leave room for new codes without resizing.
+            case STATUS, MODALITY -> 8;
+            case HOUR_OF_DAY -> 24;
+        };
+        this.factCount = new long[groups];
+        this.scheduledCount = new long[groups];
+        this.completedCount = new long[groups];
+        this.virtualCount = new long[groups];
+        this.inPersonCount = new long[groups];
+        this.sumScheduledToStartSeconds = new long[groups];
+        this.countScheduledToStart = new long[groups];
+        this.sumStartToCompleteSeconds = new long[groups];
+        this.countStartToComplete = new long[groups];
+    }
+
+    int groups() {
+        return factCount.length;
+    }
+
+    void fold(FactColumnBlock block, int[] selection, int selected) {
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            int group = groupOf(block, row);
+            int sign = block.sign(row);
+            byte status = block.status(row);
+            byte modality = block.modality(row);
+
+            factCount[group] += sign;
+            scheduledCount[group] += status == AppointmentFunnelCodes.STATUS_SCHEDULED ? sign : 0;
+            completedCount[group] += status == AppointmentFunnelCodes.STATUS_COMPLETED ? sign : 0;
+            virtualCount[group] += modality == AppointmentFunnelCodes.MODALITY_VIRTUAL ? sign : 0;
+            inPersonCount[group] += modality == AppointmentFunnelCodes.MODALITY_IN_PERSON ? sign : 0;
+
+            int scheduledToStart = block.scheduledToStartSeconds(row);
+            if (scheduledToStart != FactColumnBlock.NO_LATENCY) {
+                sumScheduledToStartSeconds[group] += (long) sign * scheduledToStart;
+                countScheduledToStart[group] += sign;
+            }
+            int startToComplete = block.startToCompleteSeconds(row);
+            if (startToComplete != FactColumnBlock.NO_LATENCY) {
+                sumStartToCompleteSeconds[group] += (long) sign * startToComplete;
+                countStartToComplete[group] += sign;
+            }
+        }
+    }
+
+    private int groupOf(FactColumnBlock block, int row) {
+        return switch (dimension) {
+            case NONE -> 0;
+            case CLINIC -> block.clinicCode(row);
+            case STATUS -> block.status(row);
+            case MODALITY -> block.modality(row);
+            case HOUR_OF_DAY -> (int) (Math.floorMod(block.scheduledAt(row), SECONDS_PER_DAY) / SECONDS_PER_HOUR);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+/**
+ * FunnelBreakdownDimension is the column a hot-window breakdown groups by.
+ * Hours of day are in UTC, like the calendar windows of the window endpoint.
+ */
+public enum FunnelBreakdownDimension {
+    NONE,
+    CLINIC,
+    STATUS,
+    MODALITY,
+    HOUR_OF_DAY;
+
+    public static FunnelBreakdownDimension fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        return switch (value) {
+            case "none" -> NONE;
+            case "clinic" -> CLINIC;
+            case "status" -> STATUS;
+            case "modality" -> MODALITY;
+            case "hour-of-day" -> HOUR_OF_DAY;
+            default -> throw new IllegalArgumentException("Unsupported groupBy '" + value
+                    + "'; expected none, clinic, status, modality or hour-of-day");
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+import java.time.Instant;
+
+/**
+ * FunnelBreakdownQuery is an ad-hoc drill-down over the hot window: the
+ * appointments of one organization scheduled in [from, to), optionally
+ * narrowed to a clinic, a status or modality code and a patient cohort, and
+ * grouped by one dimension. Null filters match everything; patientIds must
+ * be sorted.
+ */
+public record FunnelBreakdownQuery(String organizationId,
+                                   String clinicId,
+                                   Instant from,
+                                   Instant to,
+                                   FunnelBreakdownDimension groupBy,
+                                   Short status,
+                                   Short modality,
+                                   long[] patientIds) {
+}
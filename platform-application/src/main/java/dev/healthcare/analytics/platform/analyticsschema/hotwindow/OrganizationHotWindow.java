@@ -0,0 +1,206 @@
+package dev.healthcare.analytics.platform.analyticsschema.hotwindow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * OrganizationHotWindow holds one organization's hot-window rows, partitioned
+ * by the UTC day the appointment is scheduled on. A fact's retracting and
+ * replacing rows always land in the same day partition (scheduling time does
+ * not change), so whole days can be evicted without leaving unmatched rows.
+ *
+ * Clinic ids are dictionary-encoded to int codes per organization. Appends
+ * and evictions take the write lock; scans share the read lock.
+ */
+final class OrganizationHotWindow {
+
+    static final long SECONDS_PER_DAY = 86_400L;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<Long, List<FactColumnBlock>> blocksByDay = new TreeMap<>();
+    private final Map<String, Integer> clinicCodes = new HashMap<>();
+    private final List<String> clinicIds = new ArrayList<>();
+
+    private final int initialBlockRows;
+    private final int maxBlockRows;
+
+    private long rowCount;
+
+    OrganizationHotWindow(int initialBlockRows, int maxBlockRows) {
+        this.initialBlockRows = initialBlockRows;
+        this.maxBlockRows = maxBlockRows;
+    }
+
+    /**
+     * Appends one signed row unless its day is before the retained range or
+     * the memory budget refuses a new block. Returns false when the row was
+     * dropped.
+     */
+    boolean append(String clinicId,
+                   long patientId,
+                   short status,
+                   short modality,
+                   long scheduledAtEpochSecond,
+                   int scheduledToStartSeconds,
+                   int startToCompleteSeconds,
+                   int sign,
+                   HotWindowRetention retention) {
+        long day = Math.floorDiv(scheduledAtEpochSecond, SECONDS_PER_DAY);
+        lock.writeLock().lock();
+        try {
+            // Checked under the lock so an eviction running concurrently cannot miss this row.
+            if (day < retention.oldestRetainedDay()) {
+                return false;
+            }
+            List<FactColumnBlock> blocks = blocksByDay.computeIfAbsent(day, d -> new ArrayList<>());
+            FactColumnBlock tail = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+            if (tail == null || tail.isFull()) {
+                int rows = tail == null ? initialBlockRows : Math.min(tail.capacity() * 2, maxBlockRows);
+                if (!retention.reserve((long) rows * FactColumnBlock.BYTES_PER_ROW)) {
+                    if (blocks.isEmpty()) {
+                        blocksByDay.remove(day);
+                    }
+                    return false;
+                }
+                tail = new FactColumnBlock(rows);
+                blocks.add(tail);
+            }
+            tail.append(scheduledAtEpochSecond, patientId, clinicCode(clinicId), status, modality,
+                    scheduledToStartSeconds, startToCompleteSeconds, sign);
+            rowCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int clinicCode(String clinicId) {
+        Integer code = clinicCodes.get(clinicId);
+        if (code == null) {
+            code = clinicIds.size();
+            clinicCodes.put(clinicId, code);
+            clinicIds.add(clinicId);
+        }
+        return code;
+    }
+
+    /**
+     * Drops every day partition before the given day and returns the bytes released.
+     */
+    long evictDaysBefore(long day) {
+        lock.writeLock().lock();
+        try {
+            long released = 0L;
+            Iterator<List<FactColumnBlock>> expired = blocksByDay.headMap(day, false).values().iterator();
+            while (expired.hasNext()) {
+                for (FactColumnBlock block : expired.next()) {
+                    released += block.allocatedBytes();
+                    rowCount -= block.size();
+                }
+                expired.remove();
+            }
+            return released;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    Long oldestDay() {
+        lock.readLock().lock();
+        try {
+            return blocksByDay.isEmpty() ? null : blocksByDay.firstKey();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long rowCount() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Scans the rows matching the query. Day partitions outside the window are
+     * skipped without being read, and days lying entirely inside it skip the
+     * per-row time filter.
+     */
+    ScanResult scan(FunnelBreakdownQuery query, long fromEpochSecond, long toEpochSecond) {
+        lock.readLock().lock();
+        try {
+            FunnelBreakdownAccumulator accumulator = new FunnelBreakdownAccumulator(query.groupBy(), clinicIds.size());
+            List<String> clinicLabels = List.copyOf(clinicIds);
+            int clinicFilter = -1;
+            if (query.clinicId() != null) {
+                Integer code = clinicCodes.get(query.clinicId());
+                if (code == null) {
+                    return new ScanResult(accumulator, clinicLabels, 0L);
+                }
+                clinicFilter = code;
+            }
+            if (fromEpochSecond >= toEpochSecond) {
+                return new ScanResult(accumulator, clinicLabels, 0L);
+            }
+
+            long fromDay = Math.floorDiv(fromEpochSecond, SECONDS_PER_DAY);
+            long lastDay = Math.floorDiv(toEpochSecond - 1, SECONDS_PER_DAY);
+            NavigableMap<Long, List<FactColumnBlock>> days = blocksByDay.subMap(fromDay, true, lastDay, true);
+
+            int[] selection = new int[maxBlockRows];
+            long scanned = 0L;
+            for (Map.Entry<Long, List<FactColumnBlock>> entry : days.entrySet()) {
+                long dayStart = entry.getKey() * SECONDS_PER_DAY;
+                boolean wholeDay = dayStart >= fromEpochSecond && dayStart + SECONDS_PER_DAY <= toEpochSecond;
+                for (FactColumnBlock block : entry.getValue()) {
+                    scanned += block.size();
+                    int selected = wholeDay
+                            ? block.selectAll(selection)
+                            : block.selectScheduledBetween(fromEpochSecond, toEpochSecond, selection);
+                    if (clinicFilter >= 0) {
+                        selected = block.retainClinic(clinicFilter, selection, selected);
+                    }
+                    if (query.status() != null) {
+                        selected = block.retainStatus(query.status(), selection, selected);
+                    }
+                    if (query.modality() != null) {
+                        selected = block.retainModality(query.modality(), selection, selected);
+                    }
+                    if (query.patientIds() != null) {
+                        selected = block.retainPatients(query.patientIds(), selection, selected);
+                    }
+                    accumulator.fold(block, selection, selected);
+                }
+            }
+            return new ScanResult(accumulator, clinicLabels, scanned);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    record ScanResult(FunnelBreakdownAccumulator accumulator, List<String> clinicIds, long scannedRows) {
+    }
+
+    /**
+     * The store-wide retention state an append has to respect.
+     */
+    interface HotWindowRetention {
+
+        long oldestRetainedDay();
+
+        /**
+         * Accounts for a new block; false when it would exceed the memory
+         * budget. Never evicts, since the caller holds an organization lock.
+         */
+        boolean reserve(long bytes);
+    }
+}
@@ -0,0 +1,138 @@
+package dev.healthcare.analytics.platform.analyticsschema.repository;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * AppointmentFunnelFactBatchRepository is the set-based JDBC access path used by
+ * the stream processor: one prefetch query per batch and one batched upsert,
+ * instead of a findById/save round trip per outbox event.
+ *
+ * All columns are bound and read as primitives (bigint ids, smallint codes,
+ * epoch seconds); no string or timestamp conversion happens per row.
+ *
+ * Facts returned here are plain objects, not JPA-managed entities, so mutating
+ * them never triggers an implicit Hibernate flush.
+ */
+@Repository
+public class AppointmentFunnelFactBatchRepository {
+
+    private static final String SELECT_COLUMNS = """
+            SELECT appointment_id, organization_id, clinic_id, patient_id, modality,
+                   scheduled_at, started_at, completed_at, status,
+                   scheduled_to_start_seconds, start_to_complete_seconds
+            FROM {facts}
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO {facts} (
+                appointment_id, organization_id, clinic_id, patient_id, modality,
+                scheduled_at, started_at, completed_at, status,
+                scheduled_to_start_seconds, start_to_complete_seconds)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (appointment_id) DO UPDATE SET
+                organization_id = EXCLUDED.organization_id,
+                clinic_id = EXCLUDED.clinic_id,
+                patient_id = EXCLUDED.patient_id,
+                modality = EXCLUDED.modality,
+                scheduled_at = EXCLUDED.scheduled_at,
+                started_at = EXCLUDED.started_at,
+                completed_at = EXCLUDED.completed_at,
+                status = EXCLUDED.status,
+                scheduled_to_start_seconds = EXCLUDED.scheduled_to_start_seconds,
+                start_to_complete_seconds = EXCLUDED.start_to_complete_seconds
+            """;
+
+    private static final RowMapper<AppointmentFunnelFact> FACT_ROW_MAPPER = (rs, rowNum) -> {
+        AppointmentFunnelFact fact = new AppointmentFunnelFact();
+        fact.setAppointmentId(rs.getLong("appointment_id"));
+        fact.setOrganizationId(rs.getLong("organization_id"));
+        fact.setClinicId(rs.getLong("clinic_id"));
+        fact.setPatientId(rs.getLong("patient_id"));
+        fact.setModality(rs.getShort("modality"));
+        fact.setScheduledAtEpochSecond(rs.getLong("scheduled_at"));
+        fact.setStartedAtEpochSecond(rs.getObject("started_at", Long.class));
+        fact.setCompletedAtEpochSecond(rs.getObject("completed_at", Long.class));
+        fact.setStatus(rs.getShort("status"));
+        fact.setScheduledToStartSeconds(rs.getObject("scheduled_to_start_seconds", Long.class));
+        fact.setStartToCompleteSeconds(rs.getObject("start_to_complete_seconds", Long.class));
+        return fact;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String selectColumnsSql;
+    private final String upsertSql;
+
+    @Autowired
+    public AppointmentFunnelFactBatchRepository(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, "analytics.appointment_funnel_fact_v2");
+    }
+
+    private AppointmentFunnelFactBatchRepository(JdbcTemplate jdbcTemplate, String factTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.selectColumnsSql = SELECT_COLUMNS.replace("{facts}", factTable);
+        this.upsertSql = UPSERT_SQL.replace("{facts}", factTable);
+    }
+
+    /**
+     * Returns a repository over another fact table with the same layout, used
+     * to fill a shadow table during a reprojection.
+     */
+    public AppointmentFunnelFactBatchRepository withTable(String factTable) {
+        return new AppointmentFunnelFactBatchRepository(jdbcTemplate, factTable);
+    }
+
+    public List<AppointmentFunnelFact> findAllByAppointmentIds(Collection<Long> appointmentIds) {
+        if (appointmentIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(appointmentIds.size(), "?"));
+        return jdbcTemplate.query(selectColumnsSql + " WHERE appointment_id IN (" + placeholders + ")",
+                FACT_ROW_MAPPER, appointmentIds.toArray());
+    }
+
+    public void upsertAll(Collection<AppointmentFunnelFact> facts) {
+        if (facts.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(upsertSql, facts, facts.size(), AppointmentFunnelFactBatchRepository::bindFact);
+    }
+
+    /**
+     * Streams the contribution of every fact scheduled at or after the given
+     * epoch second, used to warm the hot window on startup.
+     */
+    public void forEachContributionScheduledSince(long fromEpochSecond, Consumer<AppointmentFunnelContribution> consumer) {
+        jdbcTemplate.query(selectColumnsSql + " WHERE scheduled_at >= ?",
+                rs -> {
+                    consumer.accept(AppointmentFunnelContribution.of(FACT_ROW_MAPPER.mapRow(rs, 0)));
+                },
+                fromEpochSecond);
+    }
+
+    private static void bindFact(PreparedStatement ps, AppointmentFunnelFact fact) throws SQLException {
+        ps.setLong(1, fact.getAppointmentId());
+        ps.setLong(2, fact.getOrganizationId());
+        ps.setLong(3, fact.getClinicId());
+        ps.setLong(4, fact.getPatientId());
+        ps.setShort(5, fact.getModality());
+        ps.setLong(6, fact.getScheduledAtEpochSecond());
+        ps.setObject(7, fact.getStartedAtEpochSecond(), Types.BIGINT);
+        ps.setObject(8, fact.getCompletedAtEpochSecond(), Types.BIGINT);
+        ps.setShort(9, fact.getStatus());
+        ps.setObject(10, fact.getScheduledToStartSeconds(), Types.BIGINT);
+        ps.setObject(11, fact.getStartToCompleteSeconds(), Types.BIGINT);
+    }
+}
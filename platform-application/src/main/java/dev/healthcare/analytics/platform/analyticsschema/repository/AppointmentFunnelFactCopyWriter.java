@@ -0,0 +1,78 @@
+package dev.healthcare.analytics.platform.analyticsschema.repository;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * AppointmentFunnelFactCopyWriter bulk-loads facts into a fact table with
+ * COPY ... FROM STDIN in CSV format, one COPY per chunk of rows, on the
+ * caller's connection. It is meant for filling an index-less shadow table:
+ * there is no conflict handling, so every appointment must be written once.
+ *
+ * All columns are numbers, so rows need no quoting; NULL is an empty field.
+ */
+public class AppointmentFunnelFactCopyWriter implements AutoCloseable {
+
+    private static final int CHUNK_ROWS = 10_000;
+
+    private static final String COLUMNS = """
+            appointment_id, organization_id, clinic_id, patient_id, modality,
+            scheduled_at, started_at, completed_at, status,
+            scheduled_to_start_seconds, start_to_complete_seconds""";
+
+    private final CopyManager copyManager;
+    private final String copySql;
+    private final StringBuilder chunk = new StringBuilder(CHUNK_ROWS * 64);
+    private int chunkRows;
+    private long writtenRows;
+
+    public AppointmentFunnelFactCopyWriter(Connection connection, String factTable) throws SQLException {
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.copySql = "COPY " + factTable + " (" + COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    public void write(AppointmentFunnelFact fact) throws SQLException, IOException {
+        chunk.append(fact.getAppointmentId()).append(',')
+                .append(fact.getOrganizationId()).append(',')
+                .append(fact.getClinicId()).append(',')
+                .append(fact.getPatientId()).append(',')
+                .append(fact.getModality()).append(',')
+                .append(fact.getScheduledAtEpochSecond()).append(',');
+        appendNullable(fact.getStartedAtEpochSecond()).append(',');
+        appendNullable(fact.getCompletedAtEpochSecond()).append(',');
+        chunk.append(fact.getStatus()).append(',');
+        appendNullable(fact.getScheduledToStartSeconds()).append(',');
+        appendNullable(fact.getStartToCompleteSeconds()).append('\n');
+        if (++chunkRows >= CHUNK_ROWS) {
+            flush();
+        }
+    }
+
+    public void flush() throws SQLException, IOException {
+        if (chunkRows == 0) {
+            return;
+        }
+        writtenRows += copyManager.copyIn(copySql, new StringReader(chunk.toString()));
+        chunk.setLength(0);
+        chunkRows = 0;
+    }
+
+    public long writtenRows() {
+        return writtenRows;
+    }
+
+    @Override
+    public void close() throws SQLException, IOException {
+        flush();
+    }
+
+    private StringBuilder appendNullable(Long value) {
+        return value != null ? chunk.append(value.longValue()) : chunk;
+    }
+}
@@ -2,10 +2,57 @@ package dev.healthcare.analytics.platform.analyticsschema.repository;
 
 import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
-public interface AppointmentFunnelFactRepository extends JpaRepository<AppointmentFunnelFact, String> {
+public interface AppointmentFunnelFactRepository extends JpaRepository<AppointmentFunnelFact, Long> {
 
-    List<AppointmentFunnelFact> findByOrganizationIdAndClinicId(String organizationId, String clinicId);
+    List<AppointmentFunnelFact> findByOrganizationIdAndClinicId(long organizationId, long clinicId);
+
+    /**
+     * Collapses the fact table into one row per tenant, status and modality so
+     * the in-memory aggregates can be rebuilt without loading individual facts.
+     * Grouping is on bigint ids and smallint codes only.
+     */
+    @Query("""
+            SELECT f.organizationId AS organizationId,
+                   f.clinicId AS clinicId,
+                   f.status AS status,
+                   f.modality AS modality,
+                   COUNT(f) AS factCount,
+                   COALESCE(SUM(f.scheduledToStartSeconds), 0) AS sumScheduledToStartSeconds,
+                   COUNT(f.scheduledToStartSeconds) AS countScheduledToStartSeconds,
+                   COALESCE(SUM(f.startToCompleteSeconds), 0) AS sumStartToCompleteSeconds,
+                   COUNT(f.startToCompleteSeconds) AS countStartToCompleteSeconds,
+                   MAX(f.completedAtEpochSecond) AS latestCompletedAt
+            FROM AppointmentFunnelFact f
+            GROUP BY f.organizationId, f.clinicId, f.status, f.modality
+            """)
+    List<TenantFunnelTotals> summarizeByTenant();
+
+    interface TenantFunnelTotals {
+        long getOrganizationId();
+
+        long getClinicId();
+
+        short getStatus();
+
+        short getModality();
+
+        long getFactCount();
+
+        long getSumScheduledToStartSeconds();
+
+        long getCountScheduledToStartSeconds();
+
+        long getSumStartToCompleteSeconds();
+
+        long getCountStartToCompleteSeconds();
+
+        /**
+         * Epoch second of the latest completion, or null when none completed.
+         */
+        Long getLatestCompletedAt();
+    }
 }
@@ -0,0 +1,413 @@
+package dev.healthcare.analytics.platform.analyticsschema.repository;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.AppointmentFunnelRollupDelta;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.RollupBucketRange;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.RollupGranularity;
+import dev.healthcare.analytics.platform.analyticsschema.sketch.LatencySketch;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * AppointmentFunnelRollupRepository maintains analytics.appointment_funnel_rollup
+ * with additive JDBC upserts and answers windowed queries by summing buckets.
+ *
+ * Latency sketches cannot be added in SQL, so they are merged in Java: the
+ * additive upsert has already locked every touched bucket row in the current
+ * transaction, which makes the following read-merge-write of the sketches
+ * safe against concurrent partition workers.
+ */
+@Repository
+public class AppointmentFunnelRollupRepository {
+
+    private static final String UPSERT_DELTA_SQL = """
+            INSERT INTO {rollup} AS r (
+                granularity, organization_id, clinic_id, bucket_start,
+                scheduled_count, completed_count, virtual_count, in_person_count,
+                sum_scheduled_to_start_seconds, count_scheduled_to_start,
+                sum_start_to_complete_seconds, count_start_to_complete)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, organization_id, clinic_id, bucket_start) DO UPDATE SET
+                scheduled_count = r.scheduled_count + EXCLUDED.scheduled_count,
+                completed_count = r.completed_count + EXCLUDED.completed_count,
+                virtual_count = r.virtual_count + EXCLUDED.virtual_count,
+                in_person_count = r.in_person_count + EXCLUDED.in_person_count,
+                sum_scheduled_to_start_seconds = r.sum_scheduled_to_start_seconds + EXCLUDED.sum_scheduled_to_start_seconds,
+                count_scheduled_to_start = r.count_scheduled_to_start + EXCLUDED.count_scheduled_to_start,
+                sum_start_to_complete_seconds = r.sum_start_to_complete_seconds + EXCLUDED.sum_start_to_complete_seconds,
+                count_start_to_complete = r.count_start_to_complete + EXCLUDED.count_start_to_complete
+            """;
+
+    private static final String SUM_COLUMNS_SQL = """
+            SELECT COALESCE(SUM(scheduled_count), 0) AS scheduled_count,
+                   COALESCE(SUM(completed_count), 0) AS completed_count,
+                   COALESCE(SUM(virtual_count), 0) AS virtual_count,
+                   COALESCE(SUM(in_person_count), 0) AS in_person_count,
+                   COALESCE(SUM(sum_scheduled_to_start_seconds), 0) AS sum_scheduled_to_start_seconds,
+                   COALESCE(SUM(count_scheduled_to_start), 0) AS count_scheduled_to_start,
+                   COALESCE(SUM(sum_start_to_complete_seconds), 0) AS sum_start_to_complete_seconds,
+                   COALESCE(SUM(count_start_to_complete), 0) AS count_start_to_complete
+            FROM {rollup}
+            """;
+
+    // Seeds every granularity from the fact table in one statement, but only into an empty rollup table.
+    private static final String BACKFILL_SQL = """
+            INSERT INTO {rollup} (
+                granularity, organization_id, clinic_id, bucket_start,
+                scheduled_count, completed_count, virtual_count, in_person_count,
+                sum_scheduled_to_start_seconds, count_scheduled_to_start,
+                sum_start_to_complete_seconds, count_start_to_complete)
+            SELECT g.granularity, f.organization_id::text, f.clinic_id::text,
+                   date_trunc(g.unit, to_timestamp(f.scheduled_at), 'UTC'),
+                   COUNT(*) FILTER (WHERE f.status = %d),
+                   COUNT(*) FILTER (WHERE f.status = %d),
+                   COUNT(*) FILTER (WHERE f.modality = %d),
+                   COUNT(*) FILTER (WHERE f.modality = %d),
+                   COALESCE(SUM(f.scheduled_to_start_seconds), 0),
+                   COUNT(f.scheduled_to_start_seconds),
+                   COALESCE(SUM(f.start_to_complete_seconds), 0),
+                   COUNT(f.start_to_complete_seconds)
+            FROM {facts} f
+            CROSS JOIN (VALUES ('MINUTE', 'minute'), ('HOUR', 'hour'), ('DAY', 'day')) AS g (granularity, unit)
+            WHERE (g.granularity <> 'MINUTE' OR f.scheduled_at >= ?)
+              AND NOT EXISTS (SELECT 1 FROM {rollup})
+            GROUP BY 1, 2, 3, 4
+            """.formatted(
+            AppointmentFunnelCodes.STATUS_SCHEDULED, AppointmentFunnelCodes.STATUS_COMPLETED,
+            AppointmentFunnelCodes.MODALITY_VIRTUAL, AppointmentFunnelCodes.MODALITY_IN_PERSON);
+
+    private static final String SELECT_SKETCHES_SQL = """
+            SELECT granularity, organization_id, clinic_id, bucket_start,
+                   scheduled_to_start_sketch, start_to_complete_sketch
+            FROM {rollup}
+            """;
+
+    private static final String HAS_SKETCH =
+            "(scheduled_to_start_sketch IS NOT NULL OR start_to_complete_sketch IS NOT NULL)";
+
+    private static final String UPDATE_SKETCHES_SQL = """
+            UPDATE {rollup}
+            SET scheduled_to_start_sketch = ?, start_to_complete_sketch = ?
+            WHERE granularity = ? AND organization_id = ? AND clinic_id = ? AND bucket_start = ?
+            """;
+
+    private static final int SKETCH_LOOKUP_CHUNK = 1000;
+
+    private static final Comparator<AppointmentFunnelRollupDelta> DELTA_ORDER = Comparator
+            .comparing(AppointmentFunnelRollupDelta::getGranularity)
+            .thenComparing(AppointmentFunnelRollupDelta::getOrganizationId)
+            .thenComparing(AppointmentFunnelRollupDelta::getClinicId)
+            .thenComparing(AppointmentFunnelRollupDelta::getBucketStart);
+
+    private static final String HAS_ANY_SKETCH_SQL = """
+            SELECT EXISTS (SELECT 1 FROM {rollup}
+                           WHERE scheduled_to_start_sketch IS NOT NULL OR start_to_complete_sketch IS NOT NULL)
+            """;
+
+    private static final String LATENCY_FACTS_SQL = """
+            SELECT organization_id, clinic_id, patient_id, status, modality, scheduled_at, completed_at,
+                   scheduled_to_start_seconds, start_to_complete_seconds
+            FROM {facts}
+            WHERE scheduled_to_start_seconds IS NOT NULL OR start_to_complete_seconds IS NOT NULL
+            """;
+
+    private static final String DELETE_BUCKETS_SQL =
+            "DELETE FROM {rollup} WHERE granularity = ? AND bucket_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertDeltaSql;
+    private final String sumColumnsSql;
+    private final String backfillSql;
+    private final String selectSketchesSql;
+    private final String updateSketchesSql;
+    private final String hasAnySketchSql;
+    private final String latencyFactsSql;
+    private final String deleteBucketsSql;
+
+    @Autowired
+    public AppointmentFunnelRollupRepository(JdbcTemplate jdbcTemplate) {
+        this(jdbcTemplate, "analytics.appointment_funnel_rollup", "analytics.appointment_funnel_fact_v2");
+    }
+
+    private AppointmentFunnelRollupRepository(JdbcTemplate jdbcTemplate, String rollupTable, String factTable) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertDeltaSql = forTables(UPSERT_DELTA_SQL, rollupTable, factTable);
+        this.sumColumnsSql = forTables(SUM_COLUMNS_SQL, rollupTable, factTable);
+        this.backfillSql = forTables(BACKFILL_SQL, rollupTable, factTable);
+        this.selectSketchesSql = forTables(SELECT_SKETCHES_SQL, rollupTable, factTable);
+        this.updateSketchesSql = forTables(UPDATE_SKETCHES_SQL, rollupTable, factTable);
+        this.hasAnySketchSql = forTables(HAS_ANY_SKETCH_SQL, rollupTable, factTable);
+        this.latencyFactsSql = forTables(LATENCY_FACTS_SQL, rollupTable, factTable);
+        this.deleteBucketsSql = forTables(DELETE_BUCKETS_SQL, rollupTable, factTable);
+    }
+
+    /**
+     * Returns a repository over other rollup and fact tables with the same
+     * layout, used to build shadow tables during a reprojection.
+     */
+    public AppointmentFunnelRollupRepository withTables(String rollupTable, String factTable) {
+        return new AppointmentFunnelRollupRepository(jdbcTemplate, rollupTable, factTable);
+    }
+
+    private static String forTables(String sql, String rollupTable, String factTable) {
+        return sql.replace("{rollup}", rollupTable).replace("{facts}", factTable);
+    }
+
+    public void applyDeltas(Collection<AppointmentFunnelRollupDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // Partition workers update shared tenant buckets concurrently; a fixed row order prevents deadlocks.
+        List<AppointmentFunnelRollupDelta> ordered = new ArrayList<>(deltas);
+        ordered.sort(DELTA_ORDER);
+        jdbcTemplate.batchUpdate(upsertDeltaSql, ordered, ordered.size(), AppointmentFunnelRollupRepository::bindDelta);
+        mergeSketches(ordered);
+    }
+
+    private void mergeSketches(List<AppointmentFunnelRollupDelta> ordered) {
+        List<AppointmentFunnelRollupDelta> withSketches = new ArrayList<>();
+        for (AppointmentFunnelRollupDelta delta : ordered) {
+            if (delta.hasSketchChanges()) {
+                withSketches.add(delta);
+            }
+        }
+        if (withSketches.isEmpty()) {
+            return;
+        }
+
+        Map<BucketKey, StoredSketches> stored = new HashMap<>();
+        for (int start = 0; start < withSketches.size(); start += SKETCH_LOOKUP_CHUNK) {
+            List<AppointmentFunnelRollupDelta> chunk =
+                    withSketches.subList(start, Math.min(start + SKETCH_LOOKUP_CHUNK, withSketches.size()));
+            String tuples = String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?)"));
+            List<Object> args = new ArrayList<>(chunk.size() * 4);
+            for (AppointmentFunnelRollupDelta delta : chunk) {
+                args.add(delta.getGranularity().name());
+                args.add(delta.getOrganizationId());
+                args.add(delta.getClinicId());
+                args.add(toOffsetDateTime(delta.getBucketStart()));
+            }
+            jdbcTemplate.query(selectSketchesSql + " WHERE (granularity, organization_id, clinic_id, bucket_start) IN (" + tuples + ")",
+                    rs -> {
+                        BucketKey key = new BucketKey(
+                                rs.getString("granularity"),
+                                rs.getString("organization_id"),
+                                rs.getString("clinic_id"),
+                                rs.getObject("bucket_start", OffsetDateTime.class).toInstant());
+                        stored.put(key, new StoredSketches(
+                                rs.getBytes("scheduled_to_start_sketch"),
+                                rs.getBytes("start_to_complete_sketch")));
+                    }, args.toArray());
+        }
+
+        List<Object[]> updates = new ArrayList<>(withSketches.size());
+        for (AppointmentFunnelRollupDelta delta : withSketches) {
+            StoredSketches current = stored.get(new BucketKey(delta.getGranularity().name(),
+                    delta.getOrganizationId(), delta.getClinicId(), delta.getBucketStart()));
+            LatencySketch scheduledToStart = LatencySketch.fromBytes(current != null ? current.scheduledToStart() : null);
+            scheduledToStart.merge(delta.getScheduledToStartSketch());
+            LatencySketch startToComplete = LatencySketch.fromBytes(current != null ? current.startToComplete() : null);
+            startToComplete.merge(delta.getStartToCompleteSketch());
+            updates.add(sketchUpdateArgs(delta, scheduledToStart, startToComplete));
+        }
+        jdbcTemplate.batchUpdate(updateSketchesSql, updates);
+    }
+
+    /**
+     * Replaces the stored sketches of existing buckets with the deltas' sketches.
+     * Used to seed sketches for buckets that were created without them.
+     */
+    public void overwriteSketches(Collection<AppointmentFunnelRollupDelta> deltas) {
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        for (AppointmentFunnelRollupDelta delta : deltas) {
+            updates.add(sketchUpdateArgs(delta, delta.getScheduledToStartSketch(), delta.getStartToCompleteSketch()));
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(updateSketchesSql, updates);
+        }
+    }
+
+    public boolean hasAnySketch() {
+        Boolean exists = jdbcTemplate.queryForObject(hasAnySketchSql, Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Streams the bucket sketches of one granularity, one row at a time.
+     */
+    public void forEachBucketSketch(RollupGranularity granularity, BucketSketchConsumer consumer) {
+        jdbcTemplate.query(selectSketchesSql + " WHERE granularity = ? AND " + HAS_SKETCH,
+                rs -> {
+                    consumer.accept(
+                            rs.getString("organization_id"),
+                            rs.getString("clinic_id"),
+                            LatencySketch.fromBytes(rs.getBytes("scheduled_to_start_sketch")),
+                            LatencySketch.fromBytes(rs.getBytes("start_to_complete_sketch")));
+                },
+                granularity.name());
+    }
+
+    private static Object[] sketchUpdateArgs(AppointmentFunnelRollupDelta delta,
+                                             LatencySketch scheduledToStart,
+                                             LatencySketch startToComplete) {
+        return new Object[] {
+                scheduledToStart.isEmpty() ? null : scheduledToStart.toBytes(),
+                startToComplete.isEmpty() ? null : startToComplete.toBytes(),
+                delta.getGranularity().name(),
+                delta.getOrganizationId(),
+                delta.getClinicId(),
+                toOffsetDateTime(delta.getBucketStart())
+        };
+    }
+
+    /**
+     * Sums the selected buckets of one clinic, or of every clinic of the
+     * organization when clinicId is null, and merges their latency sketches.
+     */
+    public RollupTotals sumBuckets(String organizationId, String clinicId, List<RollupBucketRange> ranges) {
+        if (ranges.isEmpty()) {
+            return new RollupTotals(0, 0, 0, 0, 0, 0, 0, 0, new LatencySketch(), new LatencySketch());
+        }
+        List<Object> args = new ArrayList<>();
+        String where = bucketFilter(organizationId, clinicId, ranges, args);
+
+        LatencySketch scheduledToStart = new LatencySketch();
+        LatencySketch startToComplete = new LatencySketch();
+        jdbcTemplate.query(selectSketchesSql + where + " AND " + HAS_SKETCH,
+                rs -> {
+                    scheduledToStart.merge(LatencySketch.fromBytes(rs.getBytes("scheduled_to_start_sketch")));
+                    startToComplete.merge(LatencySketch.fromBytes(rs.getBytes("start_to_complete_sketch")));
+                }, args.toArray());
+
+        return jdbcTemplate.queryForObject(sumColumnsSql + where, (rs, rowNum) -> new RollupTotals(
+                rs.getLong("scheduled_count"),
+                rs.getLong("completed_count"),
+                rs.getLong("virtual_count"),
+                rs.getLong("in_person_count"),
+                rs.getLong("sum_scheduled_to_start_seconds"),
+                rs.getLong("count_scheduled_to_start"),
+                rs.getLong("sum_start_to_complete_seconds"),
+                rs.getLong("count_start_to_complete"),
+                scheduledToStart,
+                startToComplete), args.toArray());
+    }
+
+    private static String bucketFilter(String organizationId,
+                                       String clinicId,
+                                       List<RollupBucketRange> ranges,
+                                       List<Object> args) {
+        StringBuilder where = new StringBuilder(" WHERE organization_id = ?");
+        args.add(organizationId);
+        if (clinicId != null) {
+            where.append(" AND clinic_id = ?");
+            args.add(clinicId);
+        }
+        where.append(" AND (");
+        for (int i = 0; i < ranges.size(); i++) {
+            RollupBucketRange range = ranges.get(i);
+            if (i > 0) {
+                where.append(" OR ");
+            }
+            where.append("(granularity = ? AND bucket_start >= ? AND bucket_start < ?)");
+            args.add(range.granularity().name());
+            args.add(toOffsetDateTime(range.from()));
+            args.add(toOffsetDateTime(range.to()));
+        }
+        where.append(')');
+        return where.toString();
+    }
+
+    /**
+     * Populates an empty rollup table from the existing facts and returns the
+     * number of buckets written (0 when the table already had rows).
+     */
+    public int backfillFromFacts(Instant minuteBucketsFrom) {
+        return jdbcTemplate.update(backfillSql, minuteBucketsFrom.getEpochSecond());
+    }
+
+    /**
+     * Streams the contribution of every fact that carries a latency, used to
+     * seed bucket sketches.
+     */
+    public void forEachLatencyFact(Consumer<AppointmentFunnelContribution> consumer) {
+        jdbcTemplate.query(latencyFactsSql,
+                rs -> {
+                    Long completedAt = rs.getObject("completed_at", Long.class);
+                    consumer.accept(new AppointmentFunnelContribution(
+                            Long.toString(rs.getLong("organization_id")),
+                            Long.toString(rs.getLong("clinic_id")),
+                            rs.getLong("patient_id"),
+                            rs.getShort("status"),
+                            rs.getShort("modality"),
+                            Instant.ofEpochSecond(rs.getLong("scheduled_at")),
+                            rs.getObject("scheduled_to_start_seconds", Long.class),
+                            rs.getObject("start_to_complete_seconds", Long.class),
+                            completedAt != null ? Instant.ofEpochSecond(completedAt) : null));
+                });
+    }
+
+    public int deleteBucketsBefore(RollupGranularity granularity, Instant cutoff) {
+        return jdbcTemplate.update(
+                deleteBucketsSql,
+                granularity.name(), toOffsetDateTime(cutoff));
+    }
+
+    private static void bindDelta(PreparedStatement ps, AppointmentFunnelRollupDelta delta) throws SQLException {
+        ps.setString(1, delta.getGranularity().name());
+        ps.setString(2, delta.getOrganizationId());
+        ps.setString(3, delta.getClinicId());
+        ps.setObject(4, toOffsetDateTime(delta.getBucketStart()), Types.TIMESTAMP_WITH_TIMEZONE);
+        ps.setLong(5, delta.getScheduledCount());
+        ps.setLong(6, delta.getCompletedCount());
+        ps.setLong(7, delta.getVirtualCount());
+        ps.setLong(8, delta.getInPersonCount());
+        ps.setLong(9, delta.getSumScheduledToStartSeconds());
+        ps.setLong(10, delta.getCountScheduledToStart());
+        ps.setLong(11, delta.getSumStartToCompleteSeconds());
+        ps.setLong(12, delta.getCountStartToComplete());
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant != null ? instant.atOffset(ZoneOffset.UTC) : null;
+    }
+
+    public record RollupTotals(long scheduledCount,
+                               long completedCount,
+                               long virtualCount,
+                               long inPersonCount,
+                               long sumScheduledToStartSeconds,
+                               long countScheduledToStart,
+                               long sumStartToCompleteSeconds,
+                               long countStartToComplete,
+                               LatencySketch scheduledToStartSketch,
+                               LatencySketch startToCompleteSketch) {
+    }
+
+    @FunctionalInterface
+    public interface BucketSketchConsumer {
+        void accept(String organizationId, String clinicId, LatencySketch scheduledToStart, LatencySketch startToComplete);
+    }
+
+    private record BucketKey(String granularity, String organizationId, String clinicId, Instant bucketStart) {
+    }
+
+    private record StoredSketches(byte[] scheduledToStart, byte[] startToComplete) {
+    }
+}
@@ -0,0 +1,128 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * AppointmentFunnelRollup is one time bucket of a tenant's funnel: the facts
+ * whose appointment is scheduled within the bucket, counted by status and
+ * modality, plus latency sums and mergeable latency sketches. Rows are maintained additively by the stream
+ * processor through {@code AppointmentFunnelRollupRepository}; the entity
+ * exists so the table and its indexes are created with the rest of the
+ * analytics schema.
+ */
+@Entity
+@IdClass(AppointmentFunnelRollupId.class)
+@Table(name = "appointment_funnel_rollup", schema = "analytics", indexes = {
+        @Index(name = "idx_funnel_rollup_clinic_bucket", columnList = "organization_id, clinic_id, granularity, bucket_start"),
+        @Index(name = "idx_funnel_rollup_org_bucket", columnList = "organization_id, granularity, bucket_start")
+})
+public class AppointmentFunnelRollup {
+
+    @Id
+    @Column(name = "granularity", nullable = false, length = 8)
+    private String granularity;
+
+    @Id
+    @Column(name = "organization_id", nullable = false, length = 64)
+    private String organizationId;
+
+    @Id
+    @Column(name = "clinic_id", nullable = false, length = 64)
+    private String clinicId;
+
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(name = "scheduled_count", nullable = false)
+    private long scheduledCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "virtual_count", nullable = false)
+    private long virtualCount;
+
+    @Column(name = "in_person_count", nullable = false)
+    private long inPersonCount;
+
+    @Column(name = "sum_scheduled_to_start_seconds", nullable = false)
+    private long sumScheduledToStartSeconds;
+
+    @Column(name = "count_scheduled_to_start", nullable = false)
+    private long countScheduledToStart;
+
+    @Column(name = "sum_start_to_complete_seconds", nullable = false)
+    private long sumStartToCompleteSeconds;
+
+    @Column(name = "count_start_to_complete", nullable = false)
+    private long countStartToComplete;
+
+    // Encoded LatencySketch of the bucket's latencies; null until the first latency is seen.
+    @Column(name = "scheduled_to_start_sketch", columnDefinition = "bytea")
+    private byte[] scheduledToStartSketch;
+
+    @Column(name = "start_to_complete_sketch", columnDefinition = "bytea")
+    private byte[] startToCompleteSketch;
+
+    public AppointmentFunnelRollup() {
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getVirtualCount() {
+        return virtualCount;
+    }
+
+    public long getInPersonCount() {
+        return inPersonCount;
+    }
+
+    public long getSumScheduledToStartSeconds() {
+        return sumScheduledToStartSeconds;
+    }
+
+    public long getCountScheduledToStart() {
+        return countScheduledToStart;
+    }
+
+    public long getSumStartToCompleteSeconds() {
+        return sumStartToCompleteSeconds;
+    }
+
+    public long getCountStartToComplete() {
+        return countStartToComplete;
+    }
+
+    public byte[] getScheduledToStartSketch() {
+        return scheduledToStartSketch;
+    }
+
+    public byte[] getStartToCompleteSketch() {
+        return startToCompleteSketch;
+    }
+}
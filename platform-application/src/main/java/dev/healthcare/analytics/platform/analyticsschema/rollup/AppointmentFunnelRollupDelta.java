@@ -0,0 +1,138 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.sketch.LatencySketch;
+
+import java.time.Instant;
+
+/**
+ * AppointmentFunnelRollupDelta accumulates the signed change of one rollup
+ * bucket while a batch is projected. The stream processor adds a fact's
+ * previous contribution with sign -1 and its new one with sign +1, then
+ * writes all non-zero deltas additively. Latencies go into signed delta
+ * sketches that are merged into the stored bucket sketches.
+ */
+public final class AppointmentFunnelRollupDelta {
+
+    private final RollupGranularity granularity;
+    private final String organizationId;
+    private final String clinicId;
+    private final Instant bucketStart;
+
+    private long scheduledCount;
+    private long completedCount;
+    private long virtualCount;
+    private long inPersonCount;
+    private long sumScheduledToStartSeconds;
+    private long countScheduledToStart;
+    private long sumStartToCompleteSeconds;
+    private long countStartToComplete;
+
+    private final LatencySketch scheduledToStartSketch = new LatencySketch();
+    private final LatencySketch startToCompleteSketch = new LatencySketch();
+
+    public AppointmentFunnelRollupDelta(RollupGranularity granularity,
+                                        String organizationId,
+                                        String clinicId,
+                                        Instant bucketStart) {
+        this.granularity = granularity;
+        this.organizationId = organizationId;
+        this.clinicId = clinicId;
+        this.bucketStart = bucketStart;
+    }
+
+    public void add(AppointmentFunnelContribution contribution, int sign) {
+        if (contribution.status() == AppointmentFunnelCodes.STATUS_SCHEDULED) {
+            scheduledCount += sign;
+        } else if (contribution.status() == AppointmentFunnelCodes.STATUS_COMPLETED) {
+            completedCount += sign;
+        }
+
+        if (contribution.modality() == AppointmentFunnelCodes.MODALITY_VIRTUAL) {
+            virtualCount += sign;
+        } else if (contribution.modality() == AppointmentFunnelCodes.MODALITY_IN_PERSON) {
+            inPersonCount += sign;
+        }
+
+        if (contribution.scheduledToStartSeconds() != null) {
+            sumScheduledToStartSeconds += sign * contribution.scheduledToStartSeconds();
+            countScheduledToStart += sign;
+            scheduledToStartSketch.add(contribution.scheduledToStartSeconds(), sign);
+        }
+
+        if (contribution.startToCompleteSeconds() != null) {
+            sumStartToCompleteSeconds += sign * contribution.startToCompleteSeconds();
+            countStartToComplete += sign;
+            startToCompleteSketch.add(contribution.startToCompleteSeconds(), sign);
+        }
+    }
+
+    public boolean isZero() {
+        return scheduledCount == 0 && completedCount == 0
+                && virtualCount == 0 && inPersonCount == 0
+                && sumScheduledToStartSeconds == 0 && countScheduledToStart == 0
+                && sumStartToCompleteSeconds == 0 && countStartToComplete == 0
+                && !hasSketchChanges();
+    }
+
+    public boolean hasSketchChanges() {
+        return !scheduledToStartSketch.isEmpty() || !startToCompleteSketch.isEmpty();
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public long getVirtualCount() {
+        return virtualCount;
+    }
+
+    public long getInPersonCount() {
+        return inPersonCount;
+    }
+
+    public long getSumScheduledToStartSeconds() {
+        return sumScheduledToStartSeconds;
+    }
+
+    public long getCountScheduledToStart() {
+        return countScheduledToStart;
+    }
+
+    public long getSumStartToCompleteSeconds() {
+        return sumStartToCompleteSeconds;
+    }
+
+    public long getCountStartToComplete() {
+        return countStartToComplete;
+    }
+
+    public LatencySketch getScheduledToStartSketch() {
+        return scheduledToStartSketch;
+    }
+
+    public LatencySketch getStartToCompleteSketch() {
+        return startToCompleteSketch;
+    }
+}
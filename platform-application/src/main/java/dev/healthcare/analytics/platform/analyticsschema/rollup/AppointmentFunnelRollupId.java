@@ -0,0 +1,42 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+public class AppointmentFunnelRollupId implements Serializable {
+
+    private String granularity;
+    private String organizationId;
+    private String clinicId;
+    private Instant bucketStart;
+
+    public AppointmentFunnelRollupId() {
+    }
+
+    public AppointmentFunnelRollupId(String granularity, String organizationId, String clinicId, Instant bucketStart) {
+        this.granularity = granularity;
+        this.organizationId = organizationId;
+        this.clinicId = clinicId;
+        this.bucketStart = bucketStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AppointmentFunnelRollupId other)) {
+            return false;
+        }
+        return Objects.equals(granularity, other.granularity)
+                && Objects.equals(organizationId, other.organizationId)
+                && Objects.equals(clinicId, other.clinicId)
+                && Objects.equals(bucketStart, other.bucketStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(granularity, organizationId, clinicId, bucketStart);
+    }
+}
@@ -0,0 +1,99 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AppointmentFunnelRollupMaintenance seeds the rollup table and its latency
+ * sketches from existing facts on first start (before the stream processor
+ * projects anything or aggregates are rebuilt, and after legacy facts were
+ * migrated) and periodically drops
+ * minute buckets past their retention. Hour and day buckets are kept;
+ * windows reaching further back than the minute retention are answered at
+ * hour resolution.
+ */
+@Component
+@DependsOn("appointmentFunnelFactMigration")
+public class AppointmentFunnelRollupMaintenance {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentFunnelRollupMaintenance.class);
+
+    private final AppointmentFunnelRollupRepository rollupRepository;
+    private final Duration minuteRetention;
+
+    public AppointmentFunnelRollupMaintenance(AppointmentFunnelRollupRepository rollupRepository,
+                                              @Value("${platform.analytics.rollup.minute-retention-hours:48}") long minuteRetentionHours) {
+        this.rollupRepository = rollupRepository;
+        this.minuteRetention = Duration.ofHours(minuteRetentionHours);
+    }
+
+    @PostConstruct
+    public void backfillIfEmpty() {
+        Instant minuteBucketsFrom = minuteBucketsFrom();
+        int buckets = rollupRepository.backfillFromFacts(minuteBucketsFrom);
+        if (buckets > 0) {
+            LOGGER.info("Backfilled {} appointment funnel rollup bucket(s) from existing facts", buckets);
+        }
+        if (!rollupRepository.hasAnySketch()) {
+            backfillSketches(rollupRepository, minuteBucketsFrom);
+        }
+    }
+
+    /**
+     * Seeds the latency sketches of a freshly backfilled rollup table, such
+     * as the shadow table of a reprojection, from its facts.
+     */
+    public void backfillSketches(AppointmentFunnelRollupRepository repository) {
+        backfillSketches(repository, minuteBucketsFrom());
+    }
+
+    private void backfillSketches(AppointmentFunnelRollupRepository repository, Instant minuteBucketsFrom) {
+        Map<AppointmentFunnelRollupId, AppointmentFunnelRollupDelta> buckets = new HashMap<>();
+        repository.forEachLatencyFact(contribution -> {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                if (granularity == RollupGranularity.MINUTE && contribution.scheduledAt().isBefore(minuteBucketsFrom)) {
+                    continue;
+                }
+                Instant bucketStart = granularity.bucketStart(contribution.scheduledAt());
+                AppointmentFunnelRollupId id = new AppointmentFunnelRollupId(
+                        granularity.name(), contribution.organizationId(), contribution.clinicId(), bucketStart);
+                buckets.computeIfAbsent(id, key -> new AppointmentFunnelRollupDelta(
+                        granularity, contribution.organizationId(), contribution.clinicId(), bucketStart))
+                        .add(contribution, 1);
+            }
+        });
+        repository.overwriteSketches(buckets.values());
+        if (!buckets.isEmpty()) {
+            LOGGER.info("Backfilled latency sketches for {} appointment funnel rollup bucket(s)", buckets.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${platform.analytics.rollup.purge-interval-ms:600000}")
+    public void purgeExpiredMinuteBuckets() {
+        try (DatabaseWorkload.Scope ignored = DatabaseWorkload.STREAM.enter()) {
+            int deleted = rollupRepository.deleteBucketsBefore(RollupGranularity.MINUTE, minuteBucketsFrom());
+            if (deleted > 0) {
+                LOGGER.debug("Purged {} expired minute rollup bucket(s)", deleted);
+            }
+        }
+    }
+
+    /**
+     * Oldest instant for which minute buckets are guaranteed to be present.
+     */
+    public Instant minuteBucketsFrom() {
+        return RollupGranularity.HOUR.nextBoundary(Instant.now().minus(minuteRetention));
+    }
+}
@@ -0,0 +1,58 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RollupBucketRange selects the buckets of one granularity whose start lies
+ * in [from, to).
+ */
+public record RollupBucketRange(RollupGranularity granularity, Instant from, Instant to) {
+
+    /**
+     * Covers [from, to) with as few buckets as possible: days in the middle,
+     * hours around them and minutes only at the ragged edges. Where minute
+     * buckets are no longer available (before minuteBucketsFrom) the ragged
+     * edge is widened to the enclosing hour instead: the start back to the
+     * start of its hour and the end forward to the end of its hour.
+     */
+    public static List<RollupBucketRange> cover(Instant from, Instant to, Instant minuteBucketsFrom) {
+        Instant start = RollupGranularity.MINUTE.bucketStart(from);
+        if (start.isBefore(minuteBucketsFrom)) {
+            start = RollupGranularity.HOUR.bucketStart(start);
+        }
+        Instant end = to;
+        Instant lastHour = RollupGranularity.HOUR.bucketStart(end);
+        if (lastHour.isBefore(end) && lastHour.isBefore(minuteBucketsFrom)) {
+            end = RollupGranularity.HOUR.nextBoundary(end);
+            lastHour = end;
+        }
+
+        List<RollupBucketRange> ranges = new ArrayList<>(5);
+        Instant firstHour = RollupGranularity.HOUR.nextBoundary(start);
+        Instant firstDay = RollupGranularity.DAY.nextBoundary(start);
+        Instant lastDay = RollupGranularity.DAY.bucketStart(end);
+
+        if (firstDay.isBefore(lastDay)) {
+            addRange(ranges, RollupGranularity.MINUTE, start, firstHour);
+            addRange(ranges, RollupGranularity.HOUR, firstHour, firstDay);
+            addRange(ranges, RollupGranularity.DAY, firstDay, lastDay);
+            addRange(ranges, RollupGranularity.HOUR, lastDay, lastHour);
+            addRange(ranges, RollupGranularity.MINUTE, lastHour, end);
+        } else if (firstHour.isBefore(lastHour)) {
+            addRange(ranges, RollupGranularity.MINUTE, start, firstHour);
+            addRange(ranges, RollupGranularity.HOUR, firstHour, lastHour);
+            addRange(ranges, RollupGranularity.MINUTE, lastHour, end);
+        } else {
+            addRange(ranges, RollupGranularity.MINUTE, start, end);
+        }
+        return ranges;
+    }
+
+    private static void addRange(List<RollupBucketRange> ranges, RollupGranularity granularity, Instant from, Instant to) {
+        if (from.isBefore(to)) {
+            ranges.add(new RollupBucketRange(granularity, from, to));
+        }
+    }
+}
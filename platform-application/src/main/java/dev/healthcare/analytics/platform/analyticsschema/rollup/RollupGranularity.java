@@ -0,0 +1,40 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * RollupGranularity is the width of a funnel rollup bucket. Buckets are
+ * aligned to UTC and identified by their start instant.
+ */
+public enum RollupGranularity {
+
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public Instant bucketStart(Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+
+    /**
+     * Returns the first bucket boundary at or after the given instant.
+     */
+    public Instant nextBoundary(Instant instant) {
+        Instant start = bucketStart(instant);
+        return start.equals(instant) ? start : start.plus(1, unit);
+    }
+
+    /**
+     * Unit name understood by PostgreSQL's date_trunc.
+     */
+    public String sqlUnit() {
+        return name().toLowerCase();
+    }
+}
@@ -1,8 +1,14 @@
 package dev.healthcare.analytics.platform.analyticsschema.service;
 
-import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
-import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactRepository;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.AppointmentFunnelHotWindowStore;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.FunnelBreakdownQuery;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.AppointmentFunnelRollupMaintenance;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.RollupBucketRange;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelBreakdown;
 import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelWindowSnapshot;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
@@ -11,81 +17,75 @@ import java.util.List;
 @Service
 public class AppointmentFunnelReadService {
 
-    private final AppointmentFunnelFactRepository factRepository;
-
-    public AppointmentFunnelReadService(AppointmentFunnelFactRepository factRepository) {
-        this.factRepository = factRepository;
+    private final AppointmentFunnelAggregateStore aggregateStore;
+    private final AppointmentFunnelRollupRepository rollupRepository;
+    private final AppointmentFunnelRollupMaintenance rollupMaintenance;
+    private final AppointmentFunnelHotWindowStore hotWindowStore;
+
+    public AppointmentFunnelReadService(AppointmentFunnelAggregateStore aggregateStore,
+                                        AppointmentFunnelRollupRepository rollupRepository,
+                                        AppointmentFunnelRollupMaintenance rollupMaintenance,
+                                        AppointmentFunnelHotWindowStore hotWindowStore) {
+        this.aggregateStore = aggregateStore;
+        this.rollupRepository = rollupRepository;
+        this.rollupMaintenance = rollupMaintenance;
+        this.hotWindowStore = hotWindowStore;
     }
 
     public AppointmentFunnelSnapshot loadSnapshot(String organizationId, String clinicId) {
-        List<AppointmentFunnelFact> facts = factRepository.findByOrganizationIdAndClinicId(organizationId, clinicId);
-
-        AppointmentFunnelSnapshot snapshot = new AppointmentFunnelSnapshot();
-        snapshot.setOrganizationId(organizationId);
-        snapshot.setClinicId(clinicId);
+        // Served from the running per-tenant aggregate maintained by the stream processor.
+        return aggregateStore.snapshot(organizationId, clinicId);
+    }
 
-        if (facts.isEmpty()) {
-            snapshot.setLastUpdatedAt(Instant.now());
-            return snapshot;
+    /**
+     * Loads the funnel of appointments scheduled in [from, to) for one clinic,
+     * or for the whole organization when clinicId is null. The window is
+     * answered from at most five ranges of rollup buckets, independent of the
+     * number of facts in it.
+     */
+    public AppointmentFunnelWindowSnapshot loadWindow(String organizationId, String clinicId, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("Window start must be before its end");
         }
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(from, to, rollupMaintenance.minuteBucketsFrom());
+        AppointmentFunnelRollupRepository.RollupTotals totals = rollupRepository.sumBuckets(organizationId, clinicId, ranges);
 
-        long scheduled = 0;
-        long completed = 0;
-        long virtualCount = 0;
-        long inPersonCount = 0;
-
-        long totalScheduledToStart = 0;
-        long totalStartToComplete = 0;
-        long countScheduledToStart = 0;
-        long countStartToComplete = 0;
-
-        Instant maxCompletedAt = null;
-
-        for (AppointmentFunnelFact fact : facts) {
-            if ("SCHEDULED".equals(fact.getStatus())) {
-                scheduled++;
-            } else if ("COMPLETED".equals(fact.getStatus())) {
-                completed++;
-            }
-
-            if ("VIRTUAL".equalsIgnoreCase(fact.getModality())) {
-                virtualCount++;
-            } else if ("IN_PERSON".equalsIgnoreCase(fact.getModality())) {
-                inPersonCount++;
-            }
-
-            if (fact.getScheduledToStartSeconds() != null) {
-                totalScheduledToStart += fact.getScheduledToStartSeconds();
-                countScheduledToStart++;
-            }
-
-            if (fact.getStartToCompleteSeconds() != null) {
-                totalStartToComplete += fact.getStartToCompleteSeconds();
-                countStartToComplete++;
-            }
-
-            if (fact.getCompletedAt() != null) {
-                if (maxCompletedAt == null || fact.getCompletedAt().isAfter(maxCompletedAt)) {
-                    maxCompletedAt = fact.getCompletedAt();
-                }
-            }
+        AppointmentFunnelWindowSnapshot snapshot = new AppointmentFunnelWindowSnapshot();
+        snapshot.setOrganizationId(organizationId);
+        snapshot.setClinicId(clinicId != null ? clinicId : AppointmentFunnelAggregateStore.ALL_CLINICS);
+        snapshot.setWindowStart(ranges.isEmpty() ? from : ranges.get(0).from());
+        snapshot.setWindowEnd(ranges.isEmpty() ? to : ranges.get(ranges.size() - 1).to());
+        snapshot.setScheduledCount(totals.scheduledCount());
+        snapshot.setCompletedCount(totals.completedCount());
+        snapshot.setVirtualCount(totals.virtualCount());
+        snapshot.setInPersonCount(totals.inPersonCount());
+        if (totals.countScheduledToStart() > 0) {
+            snapshot.setAverageScheduledToStartSeconds(
+                    totals.sumScheduledToStartSeconds() / (double) totals.countScheduledToStart());
         }
-
-        snapshot.setScheduledCount(scheduled);
-        snapshot.setCompletedCount(completed);
-        snapshot.setVirtualCount(virtualCount);
-        snapshot.setInPersonCount(inPersonCount);
-
-        if (countScheduledToStart > 0) {
-            snapshot.setAverageScheduledToStartSeconds(totalScheduledToStart / (double) countScheduledToStart);
+        if (totals.countStartToComplete() > 0) {
+            snapshot.setAverageStartToCompleteSeconds(
+                    totals.sumStartToCompleteSeconds() / (double) totals.countStartToComplete());
         }
+        snapshot.setScheduledToStartSecondsP50(totals.scheduledToStartSketch().quantile(0.50));
+        snapshot.setScheduledToStartSecondsP90(totals.scheduledToStartSketch().quantile(0.90));
+        snapshot.setScheduledToStartSecondsP99(totals.scheduledToStartSketch().quantile(0.99));
+        snapshot.setStartToCompleteSecondsP50(totals.startToCompleteSketch().quantile(0.50));
+        snapshot.setStartToCompleteSecondsP90(totals.startToCompleteSketch().quantile(0.90));
+        snapshot.setStartToCompleteSecondsP99(totals.startToCompleteSketch().quantile(0.99));
+        return snapshot;
+    }
 
-        if (countStartToComplete > 0) {
-            snapshot.setAverageStartToCompleteSeconds(totalStartToComplete / (double) countStartToComplete);
+    /**
+     * Breaks down the funnel of an organization's recent appointments by one
+     * dimension. Answered entirely from the in-process hot window; windows
+     * older than it are clamped to its oldest retained day.
+     */
+    public AppointmentFunnelBreakdown loadBreakdown(FunnelBreakdownQuery query) {
+        AppointmentFunnelBreakdown breakdown = hotWindowStore.breakdown(query);
+        if (breakdown.getClinicId() == null) {
+            breakdown.setClinicId(AppointmentFunnelAggregateStore.ALL_CLINICS);
         }
-
-        snapshot.setLastUpdatedAt(maxCompletedAt != null ? maxCompletedAt : Instant.now());
-
-        return snapshot;
+        return breakdown;
     }
 }
@@ -0,0 +1,202 @@
+package dev.healthcare.analytics.platform.analyticsschema.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelChangedEvent;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelTenant;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AppointmentFunnelSnapshotCache sits in front of
+ * {@link AppointmentFunnelReadService#loadSnapshot} and keeps each tenant's
+ * last snapshot together with its serialized JSON and an ETag.
+ *
+ * Every tenant has a version stamp that is bumped whenever the stream
+ * processor announces that a projected batch changed its aggregate
+ * ({@link AppointmentFunnelChangedEvent}, published after the aggregate was
+ * updated). A read whose cached entry carries the current version is served
+ * without touching the read service or the JSON encoder; the version is read
+ * before a miss loads the snapshot, so a change racing with the load only
+ * makes the next read miss again. Versions are seeded from the start time,
+ * so ETags from before a restart never match.
+ *
+ * Entries are bounded by max-bytes (serialized size plus a fixed per-entry
+ * overhead); when the budget is exceeded the least recently read entries are
+ * evicted. Cached snapshots are shared and must not be modified by callers.
+ */
+@Service
+public class AppointmentFunnelSnapshotCache {
+
+    // Snapshot object, tenant strings and map entry, on top of the JSON bytes.
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    // Eviction frees down to this share of the budget so it does not run on every miss.
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final AppointmentFunnelReadService readService;
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+
+    private final Map<AppointmentFunnelTenant, Long> versions = new ConcurrentHashMap<>();
+    private final Map<AppointmentFunnelTenant, CachedSnapshot> entries = new ConcurrentHashMap<>();
+    private final AtomicLong versionSequence = new AtomicLong(System.currentTimeMillis() * 1000L);
+    private final long initialVersion = versionSequence.get();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final Counter hitsCounter;
+    private final Counter missesCounter;
+    private final Counter evictionsCounter;
+
+    public AppointmentFunnelSnapshotCache(AppointmentFunnelReadService readService,
+                                          ObjectMapper objectMapper,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${platform.analytics.snapshot-cache.max-bytes:16777216}") long maxBytes) {
+        this.readService = readService;
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+
+        this.hitsCounter = meterRegistry.counter("platform.analytics.snapshot_cache.hits");
+        this.missesCounter = meterRegistry.counter("platform.analytics.snapshot_cache.misses");
+        this.evictionsCounter = meterRegistry.counter("platform.analytics.snapshot_cache.evictions");
+        Gauge.builder("platform.analytics.snapshot_cache.bytes", cachedBytes, AtomicLong::get)
+                .description("Approximate bytes held by cached funnel snapshots")
+                .register(meterRegistry);
+        Gauge.builder("platform.analytics.snapshot_cache.entries", entries, Map::size)
+                .description("Tenants with a cached funnel snapshot")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onFunnelChanged(AppointmentFunnelChangedEvent event) {
+        for (AppointmentFunnelTenant tenant : event.tenants()) {
+            versions.put(tenant, versionSequence.incrementAndGet());
+        }
+    }
+
+    /**
+     * Returns the current snapshot of one clinic, or of the whole organization
+     * when clinicId is {@link dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore#ALL_CLINICS}.
+     */
+    public CachedSnapshot get(String organizationId, String clinicId) {
+        AppointmentFunnelTenant tenant = new AppointmentFunnelTenant(organizationId, clinicId);
+        long version = versions.getOrDefault(tenant, initialVersion);
+        CachedSnapshot cached = entries.get(tenant);
+        if (cached != null && cached.version() == version) {
+            cached.touch();
+            hitsCounter.increment();
+            return cached;
+        }
+        missesCounter.increment();
+
+        AppointmentFunnelSnapshot snapshot = readService.loadSnapshot(organizationId, clinicId);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize analytics snapshot for org=" + organizationId
+                    + " clinic=" + clinicId, e);
+        }
+        CachedSnapshot loaded = new CachedSnapshot(version, snapshot, json, '"' + Long.toHexString(version) + '"');
+        // A concurrent miss may already have stored a newer version; keep whichever is newer.
+        entries.compute(tenant, (key, existing) -> {
+            if (existing != null && existing.version() >= version) {
+                return existing;
+            }
+            cachedBytes.addAndGet(loaded.sizeBytes() - (existing != null ? existing.sizeBytes() : 0L));
+            return loaded;
+        });
+        if (cachedBytes.get() > maxBytes) {
+            evictLeastRecentlyRead();
+        }
+        return loaded;
+    }
+
+    private void evictLeastRecentlyRead() {
+        synchronized (evictionLock) {
+            if (cachedBytes.get() <= maxBytes) {
+                return;
+            }
+            // Read times keep changing under concurrent hits, so sort on a copy of them.
+            List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+            for (Map.Entry<AppointmentFunnelTenant, CachedSnapshot> entry : entries.entrySet()) {
+                candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue(), entry.getValue().lastReadNanos()));
+            }
+            candidates.sort(Comparator.comparingLong(EvictionCandidate::lastReadNanos));
+            long target = (long) (maxBytes * EVICTION_TARGET);
+            for (EvictionCandidate candidate : candidates) {
+                if (cachedBytes.get() <= target) {
+                    break;
+                }
+                if (entries.remove(candidate.tenant(), candidate.snapshot())) {
+                    cachedBytes.addAndGet(-candidate.snapshot().sizeBytes());
+                    evictionsCounter.increment();
+                }
+            }
+        }
+    }
+
+    private record EvictionCandidate(AppointmentFunnelTenant tenant, CachedSnapshot snapshot, long lastReadNanos) {
+    }
+
+    /**
+     * One tenant's snapshot at a version, with its JSON encoding and the
+     * quoted ETag derived from the version.
+     */
+    public static final class CachedSnapshot {
+
+        private final long version;
+        private final AppointmentFunnelSnapshot snapshot;
+        private final byte[] json;
+        private final String etag;
+        private volatile long lastReadNanos = System.nanoTime();
+
+        CachedSnapshot(long version, AppointmentFunnelSnapshot snapshot, byte[] json, String etag) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.json = json;
+            this.etag = etag;
+        }
+
+        public long version() {
+            return version;
+        }
+
+        public AppointmentFunnelSnapshot snapshot() {
+            return snapshot;
+        }
+
+        public byte[] json() {
+            return json;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        long sizeBytes() {
+            return json.length + ENTRY_OVERHEAD_BYTES;
+        }
+
+        long lastReadNanos() {
+            return lastReadNanos;
+        }
+
+        void touch() {
+            lastReadNanos = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package dev.healthcare.analytics.platform.analyticsschema.sketch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * LatencySketch is a mergeable quantile sketch for latencies in seconds, in the
+ * style of DDSketch: values are counted in logarithmic bins whose width keeps
+ * every quantile within {@link #RELATIVE_ACCURACY} of the true value.
+ *
+ * Bin counts are plain signed integers, so sketches merge by adding counts and
+ * a previously added value can be retracted exactly by adding it with a
+ * negative count. Values of zero or less (an appointment started early) are
+ * counted in a dedicated zero bin.
+ *
+ * Not thread-safe; owners synchronize access.
+ */
+public final class LatencySketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long zeroCount;
+    private long totalCount;
+
+    public void add(long valueSeconds, long count) {
+        if (count == 0) {
+            return;
+        }
+        if (valueSeconds <= 0) {
+            zeroCount += count;
+        } else {
+            bins.merge(binIndex(valueSeconds), count, (a, b) -> a + b == 0 ? null : a + b);
+        }
+        totalCount += count;
+    }
+
+    public void merge(LatencySketch other) {
+        if (other == null) {
+            return;
+        }
+        for (Map.Entry<Integer, Long> bin : other.bins.entrySet()) {
+            bins.merge(bin.getKey(), bin.getValue(), (a, b) -> a + b == 0 ? null : a + b);
+        }
+        zeroCount += other.zeroCount;
+        totalCount += other.totalCount;
+    }
+
+    public boolean isEmpty() {
+        return totalCount == 0 && zeroCount == 0 && bins.isEmpty();
+    }
+
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the value at quantile q (0..1), or null when the sketch is empty.
+     */
+    public Double quantile(double q) {
+        if (totalCount <= 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (totalCount - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0.0;
+        }
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            seen += bin.getValue();
+            if (rank < seen) {
+                return binValue(bin.getKey());
+            }
+        }
+        return binValue(bins.lastKey());
+    }
+
+    /**
+     * Encodes the sketch as: version byte, zero count, bin count, then per bin
+     * the index delta and count, all as zig-zag varints.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + bins.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, bins.size());
+        int previousIndex = 0;
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            writeVarLong(out, bin.getKey() - previousIndex);
+            writeVarLong(out, bin.getValue());
+            previousIndex = bin.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static LatencySketch fromBytes(byte[] encoded) {
+        LatencySketch sketch = new LatencySketch();
+        if (encoded == null || encoded.length == 0) {
+            return sketch;
+        }
+        ByteBuffer in = ByteBuffer.wrap(encoded);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported latency sketch format version " + version);
+        }
+        sketch.zeroCount = readVarLong(in);
+        sketch.totalCount = sketch.zeroCount;
+        long binCount = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < binCount; i++) {
+            index += (int) readVarLong(in);
+            long count = readVarLong(in);
+            sketch.bins.put(index, count);
+            sketch.totalCount += count;
+        }
+        return sketch;
+    }
+
+    private static int binIndex(long valueSeconds) {
+        return (int) Math.ceil(Math.log(valueSeconds) / LOG_GAMMA);
+    }
+
+    private static double binValue(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+}
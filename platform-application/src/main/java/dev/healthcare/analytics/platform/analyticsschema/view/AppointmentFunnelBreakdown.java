@@ -0,0 +1,80 @@
+package dev.healthcare.analytics.platform.analyticsschema.view;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * AppointmentFunnelBreakdown is an ad-hoc drill-down of one organization's funnel
+ * computed from the in-process hot window. windowStart is the effective start:
+ * requests reaching further back are clamped to the oldest retained day.
+ */
+public class AppointmentFunnelBreakdown {
+
+    private String organizationId;
+    private String clinicId;
+
+    private String groupBy;
+
+    private Instant windowStart;
+    private Instant windowEnd;
+
+    private long scannedRows;
+
+    private List<AppointmentFunnelBreakdownRow> rows;
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public void setOrganizationId(String organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public void setClinicId(String clinicId) {
+        this.clinicId = clinicId;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(Instant windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(Instant windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public void setScannedRows(long scannedRows) {
+        this.scannedRows = scannedRows;
+    }
+
+    public List<AppointmentFunnelBreakdownRow> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<AppointmentFunnelBreakdownRow> rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,85 @@
+package dev.healthcare.analytics.platform.analyticsschema.view;
+
+/**
+ * AppointmentFunnelBreakdownRow is the funnel of one group of a hot-window
+ * breakdown; key is the clinic id, status, modality or UTC hour of day.
+ */
+public class AppointmentFunnelBreakdownRow {
+
+    private String key;
+
+    private long factCount;
+
+    private long scheduledCount;
+    private long completedCount;
+
+    private long virtualCount;
+    private long inPersonCount;
+
+    private Double averageScheduledToStartSeconds;
+    private Double averageStartToCompleteSeconds;
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public long getFactCount() {
+        return factCount;
+    }
+
+    public void setFactCount(long factCount) {
+        this.factCount = factCount;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public void setScheduledCount(long scheduledCount) {
+        this.scheduledCount = scheduledCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public long getVirtualCount() {
+        return virtualCount;
+    }
+
+    public void setVirtualCount(long virtualCount) {
+        this.virtualCount = virtualCount;
+    }
+
+    public long getInPersonCount() {
+        return inPersonCount;
+    }
+
+    public void setInPersonCount(long inPersonCount) {
+        this.inPersonCount = inPersonCount;
+    }
+
+    public Double getAverageScheduledToStartSeconds() {
+        return averageScheduledToStartSeconds;
+    }
+
+    public void setAverageScheduledToStartSeconds(Double averageScheduledToStartSeconds) {
+        this.averageScheduledToStartSeconds = averageScheduledToStartSeconds;
+    }
+
+    public Double getAverageStartToCompleteSeconds() {
+        return averageStartToCompleteSeconds;
+    }
+
+    public void setAverageStartToCompleteSeconds(Double averageStartToCompleteSeconds) {
+        this.averageStartToCompleteSeconds = averageStartToCompleteSeconds;
+    }
+}
@@ -20,6 +20,14 @@ public class AppointmentFunnelSnapshot {
     private Double averageScheduledToStartSeconds;
     private Double averageStartToCompleteSeconds;
 
+    // Latency percentiles from mergeable sketches, accurate to 1% of the value.
+    private Double scheduledToStartSecondsP50;
+    private Double scheduledToStartSecondsP90;
+    private Double scheduledToStartSecondsP99;
+    private Double startToCompleteSecondsP50;
+    private Double startToCompleteSecondsP90;
+    private Double startToCompleteSecondsP99;
+
     private Instant lastUpdatedAt;
 
     public String getOrganizationId() {
@@ -93,4 +101,52 @@ public class AppointmentFunnelSnapshot {
     public void setLastUpdatedAt(Instant lastUpdatedAt) {
         this.lastUpdatedAt = lastUpdatedAt;
     }
+
+    public Double getScheduledToStartSecondsP50() {
+        return scheduledToStartSecondsP50;
+    }
+
+    public void setScheduledToStartSecondsP50(Double scheduledToStartSecondsP50) {
+        this.scheduledToStartSecondsP50 = scheduledToStartSecondsP50;
+    }
+
+    public Double getScheduledToStartSecondsP90() {
+        return scheduledToStartSecondsP90;
+    }
+
+    public void setScheduledToStartSecondsP90(Double scheduledToStartSecondsP90) {
+        this.scheduledToStartSecondsP90 = scheduledToStartSecondsP90;
+    }
+
+    public Double getScheduledToStartSecondsP99() {
+        return scheduledToStartSecondsP99;
+    }
+
+    public void setScheduledToStartSecondsP99(Double scheduledToStartSecondsP99) {
+        this.scheduledToStartSecondsP99 = scheduledToStartSecondsP99;
+    }
+
+    public Double getStartToCompleteSecondsP50() {
+        return startToCompleteSecondsP50;
+    }
+
+    public void setStartToCompleteSecondsP50(Double startToCompleteSecondsP50) {
+        this.startToCompleteSecondsP50 = startToCompleteSecondsP50;
+    }
+
+    public Double getStartToCompleteSecondsP90() {
+        return startToCompleteSecondsP90;
+    }
+
+    public void setStartToCompleteSecondsP90(Double startToCompleteSecondsP90) {
+        this.startToCompleteSecondsP90 = startToCompleteSecondsP90;
+    }
+
+    public Double getStartToCompleteSecondsP99() {
+        return startToCompleteSecondsP99;
+    }
+
+    public void setStartToCompleteSecondsP99(Double startToCompleteSecondsP99) {
+        this.startToCompleteSecondsP99 = startToCompleteSecondsP99;
+    }
 }
@@ -0,0 +1,161 @@
+package dev.healthcare.analytics.platform.analyticsschema.view;
+
+import java.time.Instant;
+
+/**
+ * AppointmentFunnelWindowSnapshot is the funnel of the appointments scheduled
+ * within a time window, summed from the pre-aggregated rollup buckets.
+ */
+public class AppointmentFunnelWindowSnapshot {
+
+    private String organizationId;
+    private String clinicId;
+
+    private Instant windowStart;
+    private Instant windowEnd;
+
+    private long scheduledCount;
+    private long completedCount;
+
+    private long virtualCount;
+    private long inPersonCount;
+
+    private Double averageScheduledToStartSeconds;
+    private Double averageStartToCompleteSeconds;
+
+    // Latency percentiles from mergeable sketches, accurate to 1% of the value.
+    private Double scheduledToStartSecondsP50;
+    private Double scheduledToStartSecondsP90;
+    private Double scheduledToStartSecondsP99;
+    private Double startToCompleteSecondsP50;
+    private Double startToCompleteSecondsP90;
+    private Double startToCompleteSecondsP99;
+
+    public String getOrganizationId() {
+        return organizationId;
+    }
+
+    public void setOrganizationId(String organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public void setClinicId(String clinicId) {
+        this.clinicId = clinicId;
+    }
+
+    public Instant getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(Instant windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public Instant getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(Instant windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public long getScheduledCount() {
+        return scheduledCount;
+    }
+
+    public void setScheduledCount(long scheduledCount) {
+        this.scheduledCount = scheduledCount;
+    }
+
+    public long getCompletedCount() {
+        return completedCount;
+    }
+
+    public void setCompletedCount(long completedCount) {
+        this.completedCount = completedCount;
+    }
+
+    public long getVirtualCount() {
+        return virtualCount;
+    }
+
+    public void setVirtualCount(long virtualCount) {
+        this.virtualCount = virtualCount;
+    }
+
+    public long getInPersonCount() {
+        return inPersonCount;
+    }
+
+    public void setInPersonCount(long inPersonCount) {
+        this.inPersonCount = inPersonCount;
+    }
+
+    public Double getAverageScheduledToStartSeconds() {
+        return averageScheduledToStartSeconds;
+    }
+
+    public void setAverageScheduledToStartSeconds(Double averageScheduledToStartSeconds) {
+        this.averageScheduledToStartSeconds = averageScheduledToStartSeconds;
+    }
+
+    public Double getAverageStartToCompleteSeconds() {
+        return averageStartToCompleteSeconds;
+    }
+
+    public void setAverageStartToCompleteSeconds(Double averageStartToCompleteSeconds) {
+        this.averageStartToCompleteSeconds = averageStartToCompleteSeconds;
+    }
+
+    public Double getScheduledToStartSecondsP50() {
+        return scheduledToStartSecondsP50;
+    }
+
+    public void setScheduledToStartSecondsP50(Double scheduledToStartSecondsP50) {
+        this.scheduledToStartSecondsP50 = scheduledToStartSecondsP50;
+    }
+
+    public Double getScheduledToStartSecondsP90() {
+        return scheduledToStartSecondsP90;
+    }
+
+    public void setScheduledToStartSecondsP90(Double scheduledToStartSecondsP90) {
+        this.scheduledToStartSecondsP90 = scheduledToStartSecondsP90;
+    }
+
+    public Double getScheduledToStartSecondsP99() {
+        return scheduledToStartSecondsP99;
+    }
+
+    public void setScheduledToStartSecondsP99(Double scheduledToStartSecondsP99) {
+        this.scheduledToStartSecondsP99 = scheduledToStartSecondsP99;
+    }
+
+    public Double getStartToCompleteSecondsP50() {
+        return startToCompleteSecondsP50;
+    }
+
+    public void setStartToCompleteSecondsP50(Double startToCompleteSecondsP50) {
+        this.startToCompleteSecondsP50 = startToCompleteSecondsP50;
+    }
+
+    public Double getStartToCompleteSecondsP90() {
+        return startToCompleteSecondsP90;
+    }
+
+    public void setStartToCompleteSecondsP90(Double startToCompleteSecondsP90) {
+        this.startToCompleteSecondsP90 = startToCompleteSecondsP90;
+    }
+
+    public Double getStartToCompleteSecondsP99() {
+        return startToCompleteSecondsP99;
+    }
+
+    public void setStartToCompleteSecondsP99(Double startToCompleteSecondsP99) {
+        this.startToCompleteSecondsP99 = startToCompleteSecondsP99;
+    }
+}
@@ -0,0 +1,42 @@
+package dev.healthcare.analytics.platform.api;
+
+import dev.healthcare.analytics.platform.streampipeline.OutboxReplayService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/analytics/replay")
+public class AnalyticsReplayController {
+
+    private final OutboxReplayService replayService;
+
+    public AnalyticsReplayController(OutboxReplayService replayService) {
+        this.replayService = replayService;
+    }
+
+    /**
+     * Starts a full reprojection of the analytics tables from the outbox, and
+     * from archived segments when includeArchive is set. Answers 409 while a
+     * run is active or when the input would miss retired events; the reason
+     * is in the status' error.
+     */
+    @PostMapping
+    public ResponseEntity<OutboxReplayService.ReplayStatus> start(
+            @RequestParam(value = "includeArchive", defaultValue = "false") boolean includeArchive) {
+        OutboxReplayService.ReplayStatus current = replayService.status();
+        if (current.running()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(current);
+        }
+        OutboxReplayService.ReplayStatus started = replayService.start(includeArchive);
+        if (started.refused()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(started);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(started);
+    }
+
+    @GetMapping
+    public ResponseEntity<OutboxReplayService.ReplayStatus> status() {
+        return ResponseEntity.ok(replayService.status());
+    }
+}
@@ -1,11 +1,10 @@
 package dev.healthcare.analytics.platform.api;
 
 import dev.healthcare.analytics.platform.appschema.core.AppointmentEntity;
+import dev.healthcare.analytics.platform.domain.appointment.AppointmentAdmissionController;
 import dev.healthcare.analytics.platform.domain.appointment.AppointmentApplicationService;
-import io.micrometer.core.instrument.Gauge;
-import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Tags;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,8 +12,6 @@ import org.springframework.web.bind.annotation.*;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/appointments")
@@ -22,32 +19,17 @@ public class AppointmentApiController {
 
     private final AppointmentApplicationService appointmentApplicationService;
     private final AppointmentApiMapper appointmentApiMapper;
-
-    private final BlockingQueue<AppointmentApplicationService.ScheduleCommand> scheduleQueue;
+    private final AppointmentAdmissionController admissionController;
     private final boolean scheduleQueueEnabled;
-    private final long queueOfferTimeoutMillis;
-        private final io.micrometer.core.instrument.Counter scheduleQueueFullCounter;
-        public AppointmentApiController(AppointmentApplicationService appointmentApplicationService,
-                        AppointmentApiMapper appointmentApiMapper,
-                        BlockingQueue<AppointmentApplicationService.ScheduleCommand> scheduleQueue,
-                        MeterRegistry meterRegistry,
-                        @Value("${platform.appointment-queue.enabled:false}") boolean scheduleQueueEnabled,
-                        @Value("${platform.appointment-queue.offer-timeout-ms:50}") long queueOfferTimeoutMillis) {
+
+    public AppointmentApiController(AppointmentApplicationService appointmentApplicationService,
+                                    AppointmentApiMapper appointmentApiMapper,
+                                    AppointmentAdmissionController admissionController,
+                                    @Value("${platform.appointment-queue.enabled:false}") boolean scheduleQueueEnabled) {
         this.appointmentApplicationService = appointmentApplicationService;
         this.appointmentApiMapper = appointmentApiMapper;
-        this.scheduleQueue = scheduleQueue;
+        this.admissionController = admissionController;
         this.scheduleQueueEnabled = scheduleQueueEnabled;
-        this.queueOfferTimeoutMillis = queueOfferTimeoutMillis;
-
-        Gauge.builder("platform.appointment.queue.depth", scheduleQueue, BlockingQueue::size)
-            .description("Current depth of the appointment scheduling queue")
-            .register(meterRegistry);
-
-        this.scheduleQueueFullCounter = io.micrometer.core.instrument.Counter
-            .builder("platform.appointment.schedule.queue_full")
-            .description("Number of schedule requests rejected because the queue was full")
-            .tags(Tags.empty())
-            .register(meterRegistry);
     }
 
     @PostMapping
@@ -60,18 +42,10 @@ public class AppointmentApiController {
             return ResponseEntity.ok(appointmentApiMapper.toResponse(entity));
         }
 
-        boolean accepted;
-        try {
-            accepted = scheduleQueue.offer(command, queueOfferTimeoutMillis, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body("Scheduling interrupted while waiting for queue capacity");
-        }
-
-        if (!accepted) {
-            scheduleQueueFullCounter.increment();
+        AppointmentAdmissionController.Admission admission = admissionController.tryAdmit(command);
+        if (!admission.accepted()) {
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, Integer.toString(admission.retryAfterSeconds()))
                     .body("Scheduling queue is full; please retry later");
         }
 
@@ -3,6 +3,7 @@ package dev.healthcare.analytics.platform.appschema.core;
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(TenantReferenceCacheInvalidator.class)
 @Table(name = "clinic", schema = "app")
 public class ClinicEntity {
 
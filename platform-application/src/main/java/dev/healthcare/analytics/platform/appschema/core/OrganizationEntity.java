@@ -2,12 +2,14 @@ package dev.healthcare.analytics.platform.appschema.core;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 @Entity
+@EntityListeners(TenantReferenceCacheInvalidator.class)
 @Table(name = "organization", schema = "app")
 public class OrganizationEntity {
 
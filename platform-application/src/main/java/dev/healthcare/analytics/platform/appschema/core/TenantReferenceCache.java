@@ -0,0 +1,217 @@
+package dev.healthcare.analytics.platform.appschema.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * TenantReferenceCache remembers which organization, clinic and patient ids
+ * exist, so validating a schedule command does not cost three SELECTs. Known
+ * ids are handed out as JPA references ({@code getReferenceById}), which is
+ * all an appointment insert needs: the foreign key values.
+ *
+ * Each kind is a bounded LRU map with a time-to-live. Writes through JPA
+ * evict the written id, immediately and again after the transaction
+ * completes (see {@link TenantReferenceCacheInvalidator}); the TTL covers
+ * changes made outside JPA, such as SQL scripts or cascading deletes. Misses
+ * are not cached, so a newly created tenant is usable at once.
+ */
+@Component
+public class TenantReferenceCache {
+
+    private final OrganizationRepository organizationRepository;
+    private final ClinicRepository clinicRepository;
+    private final PatientAccountRepository patientAccountRepository;
+
+    private final KnownIds organizations;
+    private final KnownIds clinics;
+    private final KnownIds patients;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public TenantReferenceCache(OrganizationRepository organizationRepository,
+                                ClinicRepository clinicRepository,
+                                PatientAccountRepository patientAccountRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${platform.tenant-cache.max-entries:10000}") int maxEntries,
+                                @Value("${platform.tenant-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.organizationRepository = organizationRepository;
+        this.clinicRepository = clinicRepository;
+        this.patientAccountRepository = patientAccountRepository;
+        long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.organizations = new KnownIds(maxEntries, ttlNanos);
+        this.clinics = new KnownIds(maxEntries, ttlNanos);
+        this.patients = new KnownIds(maxEntries, ttlNanos);
+        this.hits = Counter.builder("platform.tenant.reference.cache")
+                .description("Tenant reference lookups answered from the cache or the database")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("platform.tenant.reference.cache")
+                .description("Tenant reference lookups answered from the cache or the database")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public Optional<OrganizationEntity> organization(Long id) {
+        return exists(organizations, id, organizationRepository::existsById)
+                ? Optional.of(organizationRepository.getReferenceById(id))
+                : Optional.empty();
+    }
+
+    public Optional<ClinicEntity> clinic(Long id) {
+        return exists(clinics, id, clinicRepository::existsById)
+                ? Optional.of(clinicRepository.getReferenceById(id))
+                : Optional.empty();
+    }
+
+    public Optional<PatientAccountEntity> patient(Long id) {
+        return exists(patients, id, patientAccountRepository::existsById)
+                ? Optional.of(patientAccountRepository.getReferenceById(id))
+                : Optional.empty();
+    }
+
+    /**
+     * Returns the subset of ids that exist, loading the uncached ones with one query.
+     */
+    public Set<Long> existingOrganizationIds(Collection<Long> ids) {
+        return existing(organizations, ids, missing -> idsOf(organizationRepository.findAllById(missing), OrganizationEntity::getId));
+    }
+
+    public Set<Long> existingClinicIds(Collection<Long> ids) {
+        return existing(clinics, ids, missing -> idsOf(clinicRepository.findAllById(missing), ClinicEntity::getId));
+    }
+
+    public Set<Long> existingPatientIds(Collection<Long> ids) {
+        return existing(patients, ids, missing -> idsOf(patientAccountRepository.findAllById(missing), PatientAccountEntity::getId));
+    }
+
+    void evictOrganization(Long id) {
+        organizations.remove(id);
+    }
+
+    void evictClinic(Long id) {
+        clinics.remove(id);
+    }
+
+    void evictPatient(Long id) {
+        patients.remove(id);
+    }
+
+    private boolean exists(KnownIds known, Long id, Function<Long, Boolean> loader) {
+        if (id == null) {
+            return false;
+        }
+        if (known.contains(id)) {
+            hits.increment();
+            return true;
+        }
+        misses.increment();
+        if (!loader.apply(id)) {
+            return false;
+        }
+        known.add(id);
+        return true;
+    }
+
+    private Set<Long> existing(KnownIds known, Collection<Long> ids, Function<List<Long>, Set<Long>> loader) {
+        Set<Long> existing = new HashSet<>(ids.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            if (known.contains(id)) {
+                existing.add(id);
+            } else {
+                missing.add(id);
+            }
+        }
+        hits.increment(existing.size());
+        if (!missing.isEmpty()) {
+            misses.increment(missing.size());
+            for (Long id : loader.apply(missing)) {
+                known.add(id);
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    private static <T> Set<Long> idsOf(List<T> entities, Function<T, Long> idOf) {
+        Set<Long> ids = new HashSet<>(entities.size() * 2);
+        for (T entity : entities) {
+            ids.add(idOf.apply(entity));
+        }
+        return ids;
+    }
+
+    /**
+     * Access-ordered LRU of ids with an expiry per entry. A ReentrantLock
+     * rather than synchronized keeps virtual threads from pinning their carrier.
+     */
+    private static final class KnownIds {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long ttlNanos;
+        private final LinkedHashMap<Long, Long> expiresAtById;
+
+        KnownIds(int maxEntries, long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.expiresAtById = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        boolean contains(Long id) {
+            lock.lock();
+            try {
+                Long expiresAt = expiresAtById.get(id);
+                if (expiresAt == null) {
+                    return false;
+                }
+                if (expiresAt - System.nanoTime() <= 0) {
+                    expiresAtById.remove(id);
+                    return false;
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void add(Long id) {
+            lock.lock();
+            try {
+                expiresAtById.put(id, System.nanoTime() + ttlNanos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.lock();
+            try {
+                expiresAtById.remove(id);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.healthcare.analytics.platform.appschema.core;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TenantReferenceCacheInvalidator is the JPA entity listener of the
+ * organization, clinic and patient entities. Hibernate creates it through
+ * Spring's bean container while the entity manager factory is being built,
+ * so the cache (which needs repositories, hence that factory) is looked up
+ * lazily.
+ *
+ * The id is evicted when the change is flushed and once more after the
+ * transaction completes, so a concurrent reader cannot re-cache the
+ * pre-commit state between the two.
+ */
+public class TenantReferenceCacheInvalidator {
+
+    private final ObjectProvider<TenantReferenceCache> cacheProvider;
+
+    public TenantReferenceCacheInvalidator(ObjectProvider<TenantReferenceCache> cacheProvider) {
+        this.cacheProvider = cacheProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        TenantReferenceCache cache = cacheProvider.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        Runnable evict = switch (entity) {
+            case OrganizationEntity organization -> () -> cache.evictOrganization(organization.getId());
+            case ClinicEntity clinic -> () -> cache.evictClinic(clinic.getId());
+            case PatientAccountEntity patient -> () -> cache.evictPatient(patient.getId());
+            default -> null;
+        };
+        if (evict == null) {
+            return;
+        }
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+}
@@ -23,16 +23,22 @@ public class AppOutboxEvent {
     @Column(name = "event_type", nullable = false, length = 64)
     private String eventType;
 
-    @Column(name = "event_payload", nullable = false, columnDefinition = "jsonb")
+    // Exactly one of the two payload columns is set, depending on the codec that wrote the row.
+    @Column(name = "event_payload", columnDefinition = "jsonb")
     @JdbcTypeCode(SqlTypes.JSON)
     private String eventPayload;
 
+    @Column(name = "event_payload_bin", columnDefinition = "bytea")
+    private byte[] eventPayloadBinary;
+
     @Column(name = "event_time", nullable = false)
     private Instant eventTime;
 
+    // Partition key of the table (see OutboxPartitionMigration), so part of its primary key.
     @Column(name = "created_at", nullable = false)
     private Instant createdAt;
 
+    // Not written: retention follows the stream checkpoints (see OutboxRetentionJanitor).
     @Column(name = "processed_at")
     private Instant processedAt;
 
@@ -79,6 +85,14 @@ public class AppOutboxEvent {
         this.eventPayload = eventPayload;
     }
 
+    public byte[] getEventPayloadBinary() {
+        return eventPayloadBinary;
+    }
+
+    public void setEventPayloadBinary(byte[] eventPayloadBinary) {
+        this.eventPayloadBinary = eventPayloadBinary;
+    }
+
     public Instant getEventTime() {
         return eventTime;
     }
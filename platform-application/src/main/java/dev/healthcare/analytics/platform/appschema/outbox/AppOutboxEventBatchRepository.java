@@ -0,0 +1,73 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AppOutboxEventBatchRepository inserts many outbox rows with one JDBC batch.
+ * Hibernate cannot batch inserts into an IDENTITY column, so ids are taken
+ * from the column's own sequence with a single nextval query per batch and
+ * bound explicitly; single-row JPA inserts keep drawing from the same sequence.
+ *
+ * Ids are allocated inside the inserting transaction, just like IDENTITY, so
+ * a gap in the outbox still only lasts as long as an in-flight transaction.
+ */
+@Repository
+public class AppOutboxEventBatchRepository {
+
+    private static final String NEXT_IDS_SQL = """
+            SELECT nextval(pg_get_serial_sequence('app.outbox_event', 'id'))
+            FROM generate_series(1, ?)
+            """;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO app.outbox_event (
+                id, aggregate_type, aggregate_id, event_type,
+                event_payload, event_payload_bin, event_time, created_at)
+            VALUES (?, ?, ?, ?, CAST(? AS jsonb), ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppOutboxEventBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Assigns ascending ids to the events, in list order, and inserts them.
+     */
+    public void insertAll(List<AppOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, events.size()));
+        ids.sort(null);
+        for (int i = 0; i < events.size(); i++) {
+            events.get(i).setId(ids.get(i));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), AppOutboxEventBatchRepository::bindEvent);
+    }
+
+    private static void bindEvent(PreparedStatement ps, AppOutboxEvent event) throws SQLException {
+        ps.setLong(1, event.getId());
+        ps.setString(2, event.getAggregateType());
+        ps.setString(3, event.getAggregateId());
+        ps.setString(4, event.getEventType());
+        ps.setString(5, event.getEventPayload());
+        ps.setBytes(6, event.getEventPayloadBinary());
+        ps.setObject(7, toOffsetDateTime(event.getEventTime()));
+        ps.setObject(8, toOffsetDateTime(event.getCreatedAt()));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(Instant instant) {
+        return instant.atOffset(ZoneOffset.UTC);
+    }
+}
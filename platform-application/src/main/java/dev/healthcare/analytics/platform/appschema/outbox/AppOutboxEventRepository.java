@@ -2,10 +2,88 @@ package dev.healthcare.analytics.platform.appschema.outbox;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface AppOutboxEventRepository extends JpaRepository<AppOutboxEvent, Long> {
 
     List<AppOutboxEvent> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Reads the next events of one hash partition of the outbox. Partitioning is
+     * by aggregate_id, so every event of an appointment lands in the same
+     * partition and keeps its relative order.
+     */
+    @Query(value = """
+            SELECT * FROM app.outbox_event
+            WHERE id > :afterId
+              AND (hashtext(aggregate_id) & 2147483647) % :partitionCount = :partitionIndex
+            ORDER BY id
+            LIMIT :batchSize
+            """, nativeQuery = true)
+    List<AppOutboxEvent> findPartitionBatchAfter(@Param("afterId") long afterId,
+                                                 @Param("partitionIndex") int partitionIndex,
+                                                 @Param("partitionCount") int partitionCount,
+                                                 @Param("batchSize") int batchSize);
+
+    @Query(value = """
+            SELECT * FROM app.outbox_event
+            WHERE id IN (:ids)
+              AND (hashtext(aggregate_id) & 2147483647) % :partitionCount = :partitionIndex
+            ORDER BY id
+            """, nativeQuery = true)
+    List<AppOutboxEvent> findPartitionEventsByIdIn(@Param("ids") Collection<Long> ids,
+                                                   @Param("partitionIndex") int partitionIndex,
+                                                   @Param("partitionCount") int partitionCount);
+
+    /**
+     * Reads the next events with ids in the inclusive range, in id order.
+     */
+    @Query(value = """
+            SELECT * FROM app.outbox_event
+            WHERE id >= :fromId AND id <= :toId
+            ORDER BY id
+            LIMIT :batchSize
+            """, nativeQuery = true)
+    List<AppOutboxEvent> findBatchBetween(@Param("fromId") long fromId,
+                                          @Param("toId") long toId,
+                                          @Param("batchSize") int batchSize);
+
+    /**
+     * Lowest id among events created at or after the given instant, or null;
+     * created_at prunes the scan to the newest partitions.
+     */
+    @Query(value = "SELECT min(id) FROM app.outbox_event WHERE created_at >= :createdFrom", nativeQuery = true)
+    Long findMinIdCreatedSince(@Param("createdFrom") Instant createdFrom);
+
+    /**
+     * Lists the ids that exist in any of the inclusive ranges, whose bounds are
+     * given as bigint[] literals ({@code '{105,230}'} and {@code '{107,230}'}),
+     * so the number of bind values does not grow with the ranges' width.
+     */
+    @Query(value = """
+            SELECT e.id
+            FROM unnest(CAST(:starts AS bigint[]), CAST(:ends AS bigint[])) AS g(start_id, end_id)
+            JOIN app.outbox_event e ON e.id BETWEEN g.start_id AND g.end_id
+            ORDER BY e.id
+            """, nativeQuery = true)
+    List<Long> findExistingIdsInRanges(@Param("starts") String starts, @Param("ends") String ends);
+
+    /**
+     * Lists ids in the inclusive range that are not visible to this transaction,
+     * i.e. sequence values taken by transactions that are in flight or rolled back.
+     */
+    @Query(value = """
+            SELECT s.id FROM generate_series(CAST(:fromId AS bigint), CAST(:toId AS bigint)) AS s(id)
+            WHERE NOT EXISTS (SELECT 1 FROM app.outbox_event e WHERE e.id = s.id)
+            ORDER BY s.id
+            LIMIT :maxIds
+            """, nativeQuery = true)
+    List<Long> findMissingIdsBetween(@Param("fromId") long fromId,
+                                     @Param("toId") long toId,
+                                     @Param("maxIds") int maxIds);
 }
@@ -0,0 +1,60 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+/**
+ * AppointmentPayloadLayout is the fixed binary layout of APPOINTMENT_SCHEDULED
+ * and APPOINTMENT_COMPLETED payloads in the bytea {@code event_payload_bin}
+ * column. All numbers are big-endian; an instant is epoch seconds (8 bytes)
+ * followed by nanos (4 bytes).
+ *
+ * <pre>
+ * offset  size  field
+ *      0     1  schema version (currently 1)
+ *      1     1  flags: which of the instants below are present
+ *      2     1  status (STATUS_* codes, 0 = unknown)
+ *      3     1  modality (MODALITY_* codes, 0 = unknown)
+ *      4     8  appointmentId
+ *     12     8  organizationId
+ *     20     8  clinicId
+ *     28     8  patientId
+ *     36    12  scheduledAt
+ *     48    12  startedAt    (completed events only)
+ *     60    12  completedAt  (completed events only)
+ * </pre>
+ *
+ * A scheduled event is 48 bytes and a completed event 72, against about
+ * 210 bytes of JSON on average. Readers must reject versions they do not know;
+ * a new layout gets a new version number and the old one stays readable.
+ */
+public final class AppointmentPayloadLayout {
+
+    public static final byte SCHEMA_VERSION = 1;
+
+    public static final int SCHEDULED_EVENT_LENGTH = 48;
+    public static final int COMPLETED_EVENT_LENGTH = 72;
+
+    public static final int VERSION_OFFSET = 0;
+    public static final int FLAGS_OFFSET = 1;
+    public static final int STATUS_OFFSET = 2;
+    public static final int MODALITY_OFFSET = 3;
+    public static final int APPOINTMENT_ID_OFFSET = 4;
+    public static final int ORGANIZATION_ID_OFFSET = 12;
+    public static final int CLINIC_ID_OFFSET = 20;
+    public static final int PATIENT_ID_OFFSET = 28;
+    public static final int SCHEDULED_AT_OFFSET = 36;
+    public static final int STARTED_AT_OFFSET = 48;
+    public static final int COMPLETED_AT_OFFSET = 60;
+
+    public static final int FLAG_SCHEDULED_AT = 1;
+    public static final int FLAG_STARTED_AT = 1 << 1;
+    public static final int FLAG_COMPLETED_AT = 1 << 2;
+
+    public static final byte UNKNOWN = 0;
+    public static final byte STATUS_SCHEDULED = 1;
+    public static final byte STATUS_COMPLETED = 2;
+    public static final byte STATUS_CANCELLED = 3;
+    public static final byte MODALITY_VIRTUAL = 1;
+    public static final byte MODALITY_IN_PERSON = 2;
+
+    private AppointmentPayloadLayout() {
+    }
+}
@@ -0,0 +1,147 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * BinaryOutboxPayloadCodec stores appointment events in the fixed
+ * {@link AppointmentPayloadLayout} in the bytea {@code event_payload_bin}
+ * column, so neither Postgres (on insert) nor the projector (on read) has to
+ * parse JSON. Event types without a layout, and payloads the layout cannot
+ * represent faithfully (an unknown status name, a non-numeric id), are
+ * written as JSON instead.
+ */
+@Component
+public class BinaryOutboxPayloadCodec implements OutboxPayloadCodec {
+
+    public static final String NAME = "binary";
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final JsonOutboxPayloadCodec fallback;
+
+    public BinaryOutboxPayloadCodec(JsonOutboxPayloadCodec fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int encode(String eventType, Map<String, Object> payload, AppOutboxEvent target) {
+        byte[] binary = switch (eventType) {
+            case "APPOINTMENT_SCHEDULED" -> encodeAppointment(payload, AppointmentPayloadLayout.SCHEDULED_EVENT_LENGTH);
+            case "APPOINTMENT_COMPLETED" -> encodeAppointment(payload, AppointmentPayloadLayout.COMPLETED_EVENT_LENGTH);
+            default -> null;
+        };
+        if (binary == null) {
+            return fallback.encode(eventType, payload, target);
+        }
+        target.setEventPayload(null);
+        target.setEventPayloadBinary(binary);
+        return binary.length;
+    }
+
+    /**
+     * Returns null when a value cannot be represented in the layout.
+     */
+    private static byte[] encodeAppointment(Map<String, Object> payload, int length) {
+        int status = statusCode(payload.get("status"));
+        int modality = modalityCode(payload.get("modality"));
+        if (status < 0 || modality < 0) {
+            return null;
+        }
+        byte[] out = new byte[length];
+        out[AppointmentPayloadLayout.VERSION_OFFSET] = AppointmentPayloadLayout.SCHEMA_VERSION;
+        out[AppointmentPayloadLayout.STATUS_OFFSET] = (byte) status;
+        out[AppointmentPayloadLayout.MODALITY_OFFSET] = (byte) modality;
+        if (!putId(out, AppointmentPayloadLayout.APPOINTMENT_ID_OFFSET, payload.get("appointmentId"))
+                || !putId(out, AppointmentPayloadLayout.ORGANIZATION_ID_OFFSET, payload.get("organizationId"))
+                || !putId(out, AppointmentPayloadLayout.CLINIC_ID_OFFSET, payload.get("clinicId"))
+                || !putId(out, AppointmentPayloadLayout.PATIENT_ID_OFFSET, payload.get("patientId"))) {
+            return null;
+        }
+
+        int flags = 0;
+        Object scheduledAt = payload.get("scheduledAt");
+        Object startedAt = payload.get("startedAt");
+        Object completedAt = payload.get("completedAt");
+        if (length < AppointmentPayloadLayout.COMPLETED_EVENT_LENGTH && (startedAt != null || completedAt != null)) {
+            return null;
+        }
+        if (!(scheduledAt == null || scheduledAt instanceof Instant)
+                || !(startedAt == null || startedAt instanceof Instant)
+                || !(completedAt == null || completedAt instanceof Instant)) {
+            return null;
+        }
+        if (scheduledAt != null) {
+            putInstant(out, AppointmentPayloadLayout.SCHEDULED_AT_OFFSET, (Instant) scheduledAt);
+            flags |= AppointmentPayloadLayout.FLAG_SCHEDULED_AT;
+        }
+        if (startedAt != null) {
+            putInstant(out, AppointmentPayloadLayout.STARTED_AT_OFFSET, (Instant) startedAt);
+            flags |= AppointmentPayloadLayout.FLAG_STARTED_AT;
+        }
+        if (completedAt != null) {
+            putInstant(out, AppointmentPayloadLayout.COMPLETED_AT_OFFSET, (Instant) completedAt);
+            flags |= AppointmentPayloadLayout.FLAG_COMPLETED_AT;
+        }
+        out[AppointmentPayloadLayout.FLAGS_OFFSET] = (byte) flags;
+        return out;
+    }
+
+    private static int statusCode(Object status) {
+        if (status == null) {
+            return AppointmentPayloadLayout.UNKNOWN;
+        }
+        return switch (status.toString()) {
+            case "SCHEDULED" -> AppointmentPayloadLayout.STATUS_SCHEDULED;
+            case "COMPLETED" -> AppointmentPayloadLayout.STATUS_COMPLETED;
+            case "CANCELLED" -> AppointmentPayloadLayout.STATUS_CANCELLED;
+            default -> -1;
+        };
+    }
+
+    private static int modalityCode(Object modality) {
+        if (modality == null) {
+            return AppointmentPayloadLayout.UNKNOWN;
+        }
+        return switch (modality.toString()) {
+            case "VIRTUAL" -> AppointmentPayloadLayout.MODALITY_VIRTUAL;
+            case "IN_PERSON" -> AppointmentPayloadLayout.MODALITY_IN_PERSON;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Ids are positive; 0 marks a missing id, as an absent JSON field would.
+     */
+    private static boolean putId(byte[] out, int offset, Object id) {
+        long value;
+        if (id == null) {
+            value = 0L;
+        } else if (id instanceof Long || id instanceof Integer || id instanceof Short) {
+            value = ((Number) id).longValue();
+        } else {
+            return false;
+        }
+        if (value < 0L) {
+            return false;
+        }
+        LONG.set(out, offset, value);
+        return true;
+    }
+
+    private static void putInstant(byte[] out, int offset, Instant instant) {
+        LONG.set(out, offset, instant.getEpochSecond());
+        INT.set(out, offset + 8, instant.getNano());
+    }
+}
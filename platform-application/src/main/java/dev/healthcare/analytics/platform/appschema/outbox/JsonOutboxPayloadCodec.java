@@ -0,0 +1,42 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * JsonOutboxPayloadCodec stores the payload as JSON text in the jsonb
+ * {@code event_payload} column, the original outbox format.
+ */
+@Component
+public class JsonOutboxPayloadCodec implements OutboxPayloadCodec {
+
+    public static final String NAME = "json";
+
+    private final ObjectMapper objectMapper;
+
+    public JsonOutboxPayloadCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int encode(String eventType, Map<String, Object> payload, AppOutboxEvent target) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize event payload for type " + eventType, e);
+        }
+        target.setEventPayload(new String(json, StandardCharsets.UTF_8));
+        target.setEventPayloadBinary(null);
+        return json.length;
+    }
+}
@@ -1,25 +1,56 @@
 package dev.healthcare.analytics.platform.appschema.outbox;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Component
+@DependsOn("outboxPartitionMigration")
 public class OutboxEventPublisher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OutboxEventPublisher.class);
 
+    /**
+     * PostgreSQL channel signalled whenever new outbox rows are committed.
+     */
+    public static final String NOTIFY_CHANNEL = "app_outbox_event";
+
     private final AppOutboxEventRepository appOutboxEventRepository;
-    private final ObjectMapper objectMapper;
+    private final AppOutboxEventBatchRepository appOutboxEventBatchRepository;
+    private final OutboxPayloadCodec payloadCodec;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean notifyEnabled;
+    private final DistributionSummary jsonPayloadBytes;
+    private final DistributionSummary binaryPayloadBytes;
 
-    public OutboxEventPublisher(AppOutboxEventRepository appOutboxEventRepository, ObjectMapper objectMapper) {
+    public OutboxEventPublisher(AppOutboxEventRepository appOutboxEventRepository,
+                                AppOutboxEventBatchRepository appOutboxEventBatchRepository,
+                                List<OutboxPayloadCodec> payloadCodecs,
+                                JdbcTemplate jdbcTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${platform.outbox.payload-codec:binary}") String payloadCodecName,
+                                @Value("${platform.stream-pipeline.notify.enabled:true}") boolean notifyEnabled) {
         this.appOutboxEventRepository = appOutboxEventRepository;
-        this.objectMapper = objectMapper;
+        this.appOutboxEventBatchRepository = appOutboxEventBatchRepository;
+        this.payloadCodec = payloadCodecs.stream()
+                .filter(codec -> codec.name().equals(payloadCodecName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown outbox payload codec '" + payloadCodecName + "'"));
+        this.jdbcTemplate = jdbcTemplate;
+        this.notifyEnabled = notifyEnabled;
+        // Tagged by the format actually written: the binary codec falls back to JSON for other event types.
+        this.jsonPayloadBytes = payloadBytes(meterRegistry, JsonOutboxPayloadCodec.NAME);
+        this.binaryPayloadBytes = payloadBytes(meterRegistry, BinaryOutboxPayloadCodec.NAME);
     }
 
     public void publishEvent(String aggregateType,
@@ -27,22 +58,65 @@ public class OutboxEventPublisher {
                              String eventType,
                              Map<String, Object> eventPayload,
                              Instant eventTime) {
-        String json;
-        try {
-            json = objectMapper.writeValueAsString(eventPayload);
-        } catch (JsonProcessingException e) {
-            throw new IllegalStateException("Failed to serialize event payload for type " + eventType, e);
+        AppOutboxEvent event = toOutboxEvent(new PendingEvent(aggregateType, aggregateId, eventType, eventPayload, eventTime),
+                Instant.now());
+
+        appOutboxEventRepository.save(event);
+        notifyListeners();
+        LOGGER.debug("Published outbox event: type={} aggregateType={} aggregateId={}", eventType, aggregateType, aggregateId);
+    }
+
+    /**
+     * Publishes several events with one batched insert and a single
+     * notification. Must run inside the caller's transaction, like publishEvent.
+     */
+    public void publishEvents(List<PendingEvent> pendingEvents) {
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        Instant createdAt = Instant.now();
+        List<AppOutboxEvent> events = new ArrayList<>(pendingEvents.size());
+        for (PendingEvent pending : pendingEvents) {
+            events.add(toOutboxEvent(pending, createdAt));
         }
 
+        appOutboxEventBatchRepository.insertAll(events);
+        notifyListeners();
+        LOGGER.debug("Published {} outbox events in one batch", events.size());
+    }
+
+    private AppOutboxEvent toOutboxEvent(PendingEvent pending, Instant createdAt) {
         AppOutboxEvent event = new AppOutboxEvent();
-        event.setAggregateType(aggregateType);
-        event.setAggregateId(aggregateId);
-        event.setEventType(eventType);
-        event.setEventPayload(json);
-        event.setEventTime(eventTime);
-        event.setCreatedAt(Instant.now());
+        event.setAggregateType(pending.aggregateType());
+        event.setAggregateId(pending.aggregateId());
+        event.setEventType(pending.eventType());
+        int payloadBytes = payloadCodec.encode(pending.eventType(), pending.eventPayload(), event);
+        event.setEventTime(pending.eventTime());
+        event.setCreatedAt(createdAt);
+        (event.getEventPayloadBinary() != null ? binaryPayloadBytes : jsonPayloadBytes).record(payloadBytes);
+        return event;
+    }
 
-        appOutboxEventRepository.save(event);
-        LOGGER.debug("Published outbox event: type={} aggregateType={} aggregateId={}", eventType, aggregateType, aggregateId);
+    private void notifyListeners() {
+        if (notifyEnabled) {
+            // Issued inside the publishing transaction: PostgreSQL delivers it only on commit
+            // and folds identical notifications of one transaction into a single wakeup.
+            jdbcTemplate.execute("NOTIFY " + NOTIFY_CHANNEL);
+        }
+    }
+
+    private static DistributionSummary payloadBytes(MeterRegistry meterRegistry, String format) {
+        return DistributionSummary.builder("platform.outbox.payload.bytes")
+                .description("Encoded size of outbox event payloads")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    public record PendingEvent(String aggregateType,
+                               String aggregateId,
+                               String eventType,
+                               Map<String, Object> eventPayload,
+                               Instant eventTime) {
     }
 }
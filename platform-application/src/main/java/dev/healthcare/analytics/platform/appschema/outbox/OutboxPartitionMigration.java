@@ -0,0 +1,90 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * OutboxPartitionMigration turns the plain app.outbox_event table that
+ * Hibernate creates into a table range-partitioned by created_at, so old
+ * events can be retired by dropping whole partitions instead of deleting rows.
+ *
+ * The conversion is one DO block under an exclusive lock: the existing table
+ * is renamed to outbox_event_legacy and attached as the partition for
+ * everything before the next boundary, the parent takes over the id sequence
+ * and gets a DEFAULT partition. Partitioned primary keys must contain the
+ * partition key, so the key becomes (id, created_at); ids stay unique because
+ * they still come from the one sequence. The idx_outbox_event_unprocessed
+ * index is dropped: processed_at is never written, retention follows the
+ * stream checkpoints instead.
+ */
+@Component
+@DependsOn("outboxPayloadColumnMigration")
+public class OutboxPartitionMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPartitionMigration.class);
+
+    private static final String CONVERT_SQL = """
+            DO $$
+            DECLARE
+                id_sequence text;
+                next_id bigint;
+                is_identity_column boolean;
+            BEGIN
+                LOCK TABLE app.outbox_event IN ACCESS EXCLUSIVE MODE;
+                id_sequence := pg_get_serial_sequence('app.outbox_event', 'id');
+                SELECT is_identity = 'YES' INTO is_identity_column FROM information_schema.columns
+                WHERE table_schema = 'app' AND table_name = 'outbox_event' AND column_name = 'id';
+                EXECUTE 'SELECT CASE WHEN is_called THEN last_value + 1 ELSE last_value END FROM ' || id_sequence
+                    INTO next_id;
+
+                ALTER TABLE app.outbox_event RENAME TO outbox_event_legacy;
+                ALTER INDEX IF EXISTS app.outbox_event_pkey RENAME TO outbox_event_legacy_pkey;
+                IF is_identity_column THEN
+                    ALTER TABLE app.outbox_event_legacy ALTER COLUMN id DROP IDENTITY;
+                END IF;
+
+                CREATE TABLE app.outbox_event (LIKE app.outbox_event_legacy INCLUDING DEFAULTS)
+                    PARTITION BY RANGE (created_at);
+                IF is_identity_column THEN
+                    EXECUTE 'ALTER TABLE app.outbox_event ALTER COLUMN id ADD GENERATED BY DEFAULT AS IDENTITY (START WITH '
+                        || next_id || ')';
+                ELSE
+                    EXECUTE 'ALTER SEQUENCE ' || id_sequence || ' OWNED BY app.outbox_event.id';
+                END IF;
+                ALTER TABLE app.outbox_event ADD PRIMARY KEY (id, created_at);
+                ALTER TABLE app.outbox_event ATTACH PARTITION app.outbox_event_legacy
+                    FOR VALUES FROM (MINVALUE) TO ('{legacyUpperBound}');
+                CREATE TABLE app.outbox_event_default PARTITION OF app.outbox_event DEFAULT;
+            END$$
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxPartitions outboxPartitions;
+
+    public OutboxPartitionMigration(JdbcTemplate jdbcTemplate, OutboxPartitions outboxPartitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxPartitions = outboxPartitions;
+    }
+
+    @PostConstruct
+    public void partitionOutbox() {
+        String relkind = jdbcTemplate.queryForObject("""
+                SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace
+                WHERE n.nspname = 'app' AND c.relname = 'outbox_event'
+                """, String.class);
+        if ("r".equals(relkind)) {
+            Instant legacyUpperBound = outboxPartitions.nextBoundary(Instant.now());
+            jdbcTemplate.execute(CONVERT_SQL.replace("{legacyUpperBound}", legacyUpperBound.toString()));
+            LOGGER.info("Partitioned app.outbox_event by created_at; existing rows stay in outbox_event_legacy until {}",
+                    legacyUpperBound);
+        }
+        jdbcTemplate.execute("DROP INDEX IF EXISTS app.idx_outbox_event_unprocessed");
+        outboxPartitions.ensurePartitionsAhead();
+    }
+}
@@ -0,0 +1,196 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * OutboxPartitions owns the DDL of the range-partitioned app.outbox_event:
+ * partitions cover created_at ranges of partition-hours aligned to the epoch,
+ * premake-partitions of them are kept ready ahead of the clock, and a DEFAULT
+ * partition catches rows outside every range. Partitions are retired by
+ * detaching and optionally dropping them, under a short lock_timeout so a busy
+ * outbox makes the janitor retry later instead of queueing writers behind it.
+ */
+@Component
+public class OutboxPartitions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPartitions.class);
+
+    static final String DEFAULT_PARTITION = "outbox_event_default";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("outbox_event_[a-z0-9_]+");
+    private static final DateTimeFormatter NAME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd_HHmm").withZone(ZoneOffset.UTC);
+
+    private static final String LIST_SQL = """
+            SELECT c.relname,
+                   (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = 'app.outbox_event'::regclass
+              AND pg_get_expr(c.relpartbound, c.oid) <> 'DEFAULT'
+            ORDER BY 2
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration interval;
+    private final int premakePartitions;
+    private final long lockTimeoutMillis;
+
+    public OutboxPartitions(JdbcTemplate jdbcTemplate,
+                            @Value("${platform.outbox.retention.partition-hours:24}") long partitionHours,
+                            @Value("${platform.outbox.retention.premake-partitions:2}") int premakePartitions,
+                            @Value("${platform.outbox.retention.lock-timeout-ms:2000}") long lockTimeoutMillis) {
+        if (partitionHours < 1) {
+            throw new IllegalArgumentException("platform.outbox.retention.partition-hours must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.interval = Duration.ofHours(partitionHours);
+        this.premakePartitions = Math.max(1, premakePartitions);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * First partition boundary after the given instant.
+     */
+    public Instant nextBoundary(Instant instant) {
+        long intervalSeconds = interval.getSeconds();
+        return Instant.ofEpochSecond(Math.floorDiv(instant.getEpochSecond(), intervalSeconds) * intervalSeconds + intervalSeconds);
+    }
+
+    /**
+     * Attached range partitions ordered by their upper created_at bound; the
+     * DEFAULT partition is not included.
+     */
+    public List<OutboxPartition> listRangePartitions() {
+        return jdbcTemplate.query(LIST_SQL, (rs, rowNum) -> new OutboxPartition(
+                rs.getString(1), rs.getObject(2, OffsetDateTime.class).toInstant()));
+    }
+
+    /**
+     * Creates the partitions missing between the newest existing bound and
+     * premake-partitions intervals past the current one. Rows that already
+     * landed in the DEFAULT partition for a new range are moved into it.
+     * Past intervals are only created for rows in the DEFAULT partition, such
+     * as those written while the janitor was down for longer than the premake
+     * horizon, so they are retired with their range like every other row.
+     */
+    public int ensurePartitionsAhead() {
+        Instant now = Instant.now();
+        Instant horizon = nextBoundary(now).plus(interval.multipliedBy(premakePartitions));
+        Instant currentStart = nextBoundary(now).minus(interval);
+
+        List<OutboxPartition> partitions = listRangePartitions();
+        int created = backfillDefaultRowsBefore(currentStart);
+        Instant start = partitions.isEmpty() ? currentStart : partitions.get(partitions.size() - 1).upperBound();
+        if (start.isBefore(currentStart)) {
+            start = currentStart;
+        }
+
+        while (start.isBefore(horizon)) {
+            Instant end = start.plus(interval);
+            createPartition(partitionName(start), start, end);
+            created++;
+            start = end;
+        }
+        if (created > 0) {
+            LOGGER.info("Created {} outbox partition(s) up to {}", created, horizon);
+        }
+        return created;
+    }
+
+    private int backfillDefaultRowsBefore(Instant before) {
+        long intervalSeconds = interval.getSeconds();
+        List<Long> starts = jdbcTemplate.queryForList("""
+                SELECT DISTINCT (floor(extract(epoch FROM created_at) / ?) * ?)::bigint
+                FROM app.%s
+                WHERE created_at < ?
+                ORDER BY 1
+                """.formatted(DEFAULT_PARTITION), Long.class,
+                intervalSeconds, intervalSeconds, OffsetDateTime.ofInstant(before, ZoneOffset.UTC));
+
+        int created = 0;
+        for (Long epochSecond : starts) {
+            Instant start = Instant.ofEpochSecond(epochSecond);
+            try {
+                createPartition(partitionName(start), start, start.plus(interval));
+                created++;
+            } catch (DataAccessException ex) {
+                // A lock_timeout, or a range overlapping partitions made with another partition-hours;
+                // the rows stay in the DEFAULT partition until a later run moves them.
+                LOGGER.warn("Could not move outbox rows of [{}, {}) out of the DEFAULT partition",
+                        start, start.plus(interval), ex);
+            }
+        }
+        if (created > 0) {
+            LOGGER.info("Moved outbox rows of {} past interval(s) out of the DEFAULT partition", created);
+        }
+        return created;
+    }
+
+    private void createPartition(String name, Instant from, Instant to) {
+        String fromLiteral = "'" + from + "'";
+        String toLiteral = "'" + to + "'";
+        jdbcTemplate.execute("""
+                DO $$
+                BEGIN
+                    PERFORM set_config('lock_timeout', '%d', true);
+                    CREATE TABLE app.%s (LIKE app.outbox_event INCLUDING DEFAULTS);
+                    WITH moved AS (
+                        DELETE FROM app.%s WHERE created_at >= %s AND created_at < %s RETURNING *)
+                    INSERT INTO app.%s SELECT * FROM moved;
+                    ALTER TABLE app.outbox_event ATTACH PARTITION app.%s FOR VALUES FROM (%s) TO (%s);
+                END$$
+                """.formatted(lockTimeoutMillis, name, DEFAULT_PARTITION, fromLiteral, toLiteral, name, name,
+                fromLiteral, toLiteral));
+    }
+
+    /**
+     * Highest outbox id stored in the partition, or null when it is empty.
+     */
+    public Long maxId(OutboxPartition partition) {
+        return jdbcTemplate.queryForObject("SELECT max(id) FROM app." + checkedName(partition), Long.class);
+    }
+
+    /**
+     * Detaches the partition from app.outbox_event and, when drop is set,
+     * drops it; a detached table stays in the app schema under its name.
+     */
+    public void retire(OutboxPartition partition, boolean drop) {
+        String name = checkedName(partition);
+        jdbcTemplate.execute("""
+                DO $$
+                BEGIN
+                    PERFORM set_config('lock_timeout', '%d', true);
+                    ALTER TABLE app.outbox_event DETACH PARTITION app.%s;
+                    %s
+                END$$
+                """.formatted(lockTimeoutMillis, name, drop ? "DROP TABLE app." + name + ";" : ""));
+    }
+
+    static String partitionName(Instant start) {
+        return "outbox_event_p" + NAME_FORMAT.format(start);
+    }
+
+    static String checkedName(OutboxPartition partition) {
+        if (!PARTITION_NAME.matcher(partition.name()).matches()) {
+            throw new IllegalArgumentException("Unexpected outbox partition name " + partition.name());
+        }
+        return partition.name();
+    }
+
+    public record OutboxPartition(String name, Instant upperBound) {
+    }
+}
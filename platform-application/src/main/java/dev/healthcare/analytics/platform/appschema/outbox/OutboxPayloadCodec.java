@@ -0,0 +1,19 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import java.util.Map;
+
+/**
+ * OutboxPayloadCodec writes an event payload into an outbox row. Codecs are
+ * Spring beans selected by {@link #name()} through
+ * {@code platform.outbox.payload-codec}; rows written by every codec stay
+ * readable, so the setting can be switched without draining the outbox.
+ */
+public interface OutboxPayloadCodec {
+
+    String name();
+
+    /**
+     * Sets the payload column(s) of target and returns the encoded size in bytes.
+     */
+    int encode(String eventType, Map<String, Object> payload, AppOutboxEvent target);
+}
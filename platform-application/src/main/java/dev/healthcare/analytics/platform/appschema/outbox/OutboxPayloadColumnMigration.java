@@ -0,0 +1,41 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * OutboxPayloadColumnMigration drops the NOT NULL constraint that older
+ * versions put on the jsonb {@code event_payload} column, so rows written by
+ * the binary codec can leave it empty. Hibernate's schema update adds the
+ * {@code event_payload_bin} column but never relaxes an existing constraint.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class OutboxPayloadColumnMigration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPayloadColumnMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxPayloadColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void allowBinaryPayloads() {
+        Boolean notNull = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (
+                    SELECT 1 FROM information_schema.columns
+                    WHERE table_schema = 'app' AND table_name = 'outbox_event'
+                      AND column_name = 'event_payload' AND is_nullable = 'NO')
+                """, Boolean.class);
+        if (Boolean.TRUE.equals(notNull)) {
+            jdbcTemplate.execute("ALTER TABLE app.outbox_event ALTER COLUMN event_payload DROP NOT NULL");
+            LOGGER.info("Made app.outbox_event.event_payload nullable for binary outbox payloads");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HexFormat;
+
+/**
+ * OutboxReplayStaging makes archived outbox events queryable again for a
+ * replay: every segment in the archive directory is COPY-loaded into the
+ * UNLOGGED table app.outbox_replay_staging, which has the outbox columns, so
+ * a replay can read it together with app.outbox_event in one query. The
+ * table is dropped again once the replay is done.
+ */
+@Component
+public class OutboxReplayStaging {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxReplayStaging.class);
+
+    public static final String STAGING_TABLE = "app.outbox_replay_staging";
+
+    private static final int CHUNK_ROWS = 5000;
+
+    private static final String COPY_SQL = "COPY " + STAGING_TABLE
+            + " (id, aggregate_type, aggregate_id, event_type, event_payload, event_payload_bin, event_time, created_at)"
+            + " FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxSegmentArchive segmentArchive;
+
+    public OutboxReplayStaging(DataSource dataSource, JdbcTemplate jdbcTemplate, OutboxSegmentArchive segmentArchive) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.segmentArchive = segmentArchive;
+    }
+
+    /**
+     * Recreates the staging table and loads every archived segment into it.
+     * Returns the number of events staged.
+     */
+    public long loadArchivedSegments() throws IOException, SQLException {
+        drop();
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + STAGING_TABLE + " (LIKE app.outbox_event)");
+
+        long staged = 0;
+        try (Connection connection = dataSource.getConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            for (Path segment : segmentArchive.segments()) {
+                staged += loadSegment(copyManager, segment);
+            }
+        }
+        jdbcTemplate.execute("ANALYZE " + STAGING_TABLE);
+        LOGGER.info("Staged {} archived outbox event(s) for replay", staged);
+        return staged;
+    }
+
+    private long loadSegment(CopyManager copyManager, Path segment) throws IOException {
+        StringBuilder chunk = new StringBuilder();
+        int[] chunkRows = {0};
+        long loaded;
+        try {
+            loaded = OutboxSegmentArchive.read(segment, event -> {
+                appendRow(chunk, event);
+                if (++chunkRows[0] >= CHUNK_ROWS) {
+                    try {
+                        copy(copyManager, chunk);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    chunkRows[0] = 0;
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        copy(copyManager, chunk);
+        return loaded;
+    }
+
+    private static void copy(CopyManager copyManager, StringBuilder chunk) throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            copyManager.copyIn(COPY_SQL, new StringReader(chunk.toString()));
+        } catch (SQLException e) {
+            throw new IOException("Failed to stage archived outbox events", e);
+        }
+        chunk.setLength(0);
+    }
+
+    public void drop() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+    }
+
+    private static void appendRow(StringBuilder chunk, AppOutboxEvent event) {
+        chunk.append(event.getId()).append(',');
+        appendQuoted(chunk, event.getAggregateType()).append(',');
+        appendQuoted(chunk, event.getAggregateId()).append(',');
+        appendQuoted(chunk, event.getEventType()).append(',');
+        if (event.getEventPayload() != null && !event.getEventPayload().isEmpty()) {
+            appendQuoted(chunk, event.getEventPayload());
+        }
+        chunk.append(',');
+        if (event.getEventPayloadBinary() != null) {
+            chunk.append("\\x").append(HexFormat.of().formatHex(event.getEventPayloadBinary()));
+        }
+        chunk.append(',').append(event.getEventTime())
+                .append(',').append(event.getCreatedAt())
+                .append('\n');
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder chunk, String value) {
+        return chunk.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
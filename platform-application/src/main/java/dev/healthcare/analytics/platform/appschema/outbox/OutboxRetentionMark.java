@@ -0,0 +1,45 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import jakarta.persistence.*;
+
+/**
+ * OutboxRetentionMark records how far the retention janitor has retired the
+ * outbox: the highest outbox id of any retired partition under one name, and
+ * of those retired without an archive copy under another. A replay compares
+ * its input against them.
+ */
+@Entity
+@Table(name = "outbox_retention_mark", schema = "app")
+public class OutboxRetentionMark {
+
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    @Column(name = "highest_outbox_id", nullable = false)
+    private long highestOutboxId;
+
+    public OutboxRetentionMark() {
+    }
+
+    public OutboxRetentionMark(String name, long highestOutboxId) {
+        this.name = name;
+        this.highestOutboxId = highestOutboxId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getHighestOutboxId() {
+        return highestOutboxId;
+    }
+
+    public void setHighestOutboxId(long highestOutboxId) {
+        this.highestOutboxId = highestOutboxId;
+    }
+}
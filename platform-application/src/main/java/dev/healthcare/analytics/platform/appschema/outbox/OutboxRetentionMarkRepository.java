@@ -0,0 +1,6 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface OutboxRetentionMarkRepository extends JpaRepository<OutboxRetentionMark, String> {
+}
@@ -0,0 +1,208 @@
+package dev.healthcare.analytics.platform.appschema.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OutboxSegmentArchive exports an outbox partition to a gzip-compressed
+ * segment file in archive-dir before the partition is dropped, so retired
+ * events can still be replayed with {@link #read}.
+ *
+ * A segment is a magic number followed by one record per event in id order
+ * (id, aggregate type and id, event type, event time, created_at and the
+ * payload in whichever column held it), terminated by a zero byte. The file
+ * is written under a temporary name and moved into place once complete.
+ */
+@Component
+public class OutboxSegmentArchive {
+
+    private static final int MAGIC = 0x4F425831; // "OBX1"
+    private static final int EXPORT_PAGE_SIZE = 5000;
+
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+    private static final byte PAYLOAD_JSON = 0;
+    private static final byte PAYLOAD_BINARY = 1;
+
+    private static final String PAGE_SQL = """
+            SELECT id, aggregate_type, aggregate_id, event_type,
+                   event_payload::text, event_payload_bin, event_time, created_at
+            FROM app.%s
+            WHERE id > ?
+            ORDER BY id
+            LIMIT %d
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path archiveDir;
+
+    public OutboxSegmentArchive(JdbcTemplate jdbcTemplate,
+                                @Value("${platform.outbox.retention.archive.enabled:false}") boolean enabled,
+                                @Value("${platform.outbox.retention.archive.dir:outbox-archive}") String archiveDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.archiveDir = Path.of(archiveDir);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Writes every row of the partition to {@code <archive-dir>/<partition>.seg.gz},
+     * paging through it by id, and returns the number of events written.
+     */
+    public long export(OutboxPartitions.OutboxPartition partition) throws IOException {
+        String name = OutboxPartitions.checkedName(partition);
+        String pageSql = PAGE_SQL.formatted(name, EXPORT_PAGE_SIZE);
+        Files.createDirectories(archiveDir);
+        Path target = archiveDir.resolve(name + ".seg.gz");
+        Path temporary = archiveDir.resolve(name + ".seg.gz.tmp");
+
+        long written = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+            out.writeInt(MAGIC);
+            long afterId = Long.MIN_VALUE;
+            while (true) {
+                long[] lastId = {afterId};
+                int rows = jdbcTemplate.query(pageSql, rs -> {
+                    int count = 0;
+                    while (rs.next()) {
+                        AppOutboxEvent event = new AppOutboxEvent();
+                        event.setId(rs.getLong(1));
+                        event.setAggregateType(rs.getString(2));
+                        event.setAggregateId(rs.getString(3));
+                        event.setEventType(rs.getString(4));
+                        event.setEventPayload(rs.getString(5));
+                        event.setEventPayloadBinary(rs.getBytes(6));
+                        event.setEventTime(rs.getObject(7, OffsetDateTime.class).toInstant());
+                        event.setCreatedAt(rs.getObject(8, OffsetDateTime.class).toInstant());
+                        try {
+                            writeRecord(out, event);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        lastId[0] = event.getId();
+                        count++;
+                    }
+                    return count;
+                }, afterId);
+                written += rows;
+                if (rows < EXPORT_PAGE_SIZE) {
+                    break;
+                }
+                afterId = lastId[0];
+            }
+            out.writeByte(END);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return written;
+    }
+
+    /**
+     * Completed segment files in archive-dir, ordered by name (and so by the
+     * partition range they came from); empty when the directory is missing.
+     */
+    public List<Path> segments() throws IOException {
+        if (!Files.isDirectory(archiveDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".seg.gz"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Reads a segment written by {@link #export} and hands its events, in id
+     * order, to the consumer. Returns the number of events read.
+     */
+    public static long read(Path segment, Consumer<AppOutboxEvent> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(segment))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an outbox segment: " + segment);
+            }
+            long read = 0;
+            while (in.readByte() == RECORD) {
+                consumer.accept(readRecord(in));
+                read++;
+            }
+            return read;
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, AppOutboxEvent event) throws IOException {
+        out.writeByte(RECORD);
+        out.writeLong(event.getId());
+        out.writeUTF(event.getAggregateType());
+        out.writeUTF(event.getAggregateId());
+        out.writeUTF(event.getEventType());
+        writeInstant(out, event.getEventTime());
+        writeInstant(out, event.getCreatedAt());
+        byte[] payload;
+        if (event.getEventPayloadBinary() != null) {
+            out.writeByte(PAYLOAD_BINARY);
+            payload = event.getEventPayloadBinary();
+        } else {
+            out.writeByte(PAYLOAD_JSON);
+            payload = event.getEventPayload() != null
+                    ? event.getEventPayload().getBytes(StandardCharsets.UTF_8)
+                    : new byte[0];
+        }
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    private static AppOutboxEvent readRecord(DataInputStream in) throws IOException {
+        AppOutboxEvent event = new AppOutboxEvent();
+        event.setId(in.readLong());
+        event.setAggregateType(in.readUTF());
+        event.setAggregateId(in.readUTF());
+        event.setEventType(in.readUTF());
+        event.setEventTime(readInstant(in));
+        event.setCreatedAt(readInstant(in));
+        byte format = in.readByte();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        if (format == PAYLOAD_BINARY) {
+            event.setEventPayloadBinary(payload);
+        } else {
+            event.setEventPayload(new String(payload, StandardCharsets.UTF_8));
+        }
+        return event;
+    }
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+}
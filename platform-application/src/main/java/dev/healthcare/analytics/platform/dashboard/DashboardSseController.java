@@ -1,32 +1,67 @@
 package dev.healthcare.analytics.platform.dashboard;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelReadService;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelChangedEvent;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelTenant;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelSnapshotCache;
 import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.time.Instant;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * DashboardSseController exposes a server-sent events stream that pushes
- * near real-time analytics snapshots to web clients.
+ * near real-time analytics snapshots to web clients. Subscriptions without a
+ * clinicId follow the organization-wide rollup.
+ *
+ * Pushes are change-driven: the stream processor announces which tenants'
+ * aggregates changed, and only those tenants are re-read (through the
+ * versioned snapshot cache), at most once per sse-min-push-interval-ms
+ * each. Subscribers get one full
+ * "analytics-snapshot" when they connect and "analytics-delta" events with
+ * only the changed fields afterwards, so idle clinics cost nothing.
+ *
+ * Event ids increase monotonically (seeded from the start time so they keep
+ * increasing across restarts). A client reconnecting with the Last-Event-ID
+ * of its tenant's latest event is already up to date and is sent nothing;
+ * any other client gets a fresh full snapshot.
+ *
+ * Producing events never waits on the network: each client has its own
+ * coalescing {@link SseClientChannel} drained on a writer thread (virtual
+ * unless spring.threads.virtual.enabled is off), and a client that stays
+ * behind for longer than sse-slow-client-timeout-ms is evicted. Streams never
+ * time out, so a client that has been sent nothing for sse-heartbeat-interval-ms
+ * gets a comment line; writing to a connection that is gone fails and frees
+ * its subscription slot.
  */
 @RestController
 @RequestMapping("/api/analytics/stream")
@@ -34,85 +69,307 @@ public class DashboardSseController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DashboardSseController.class);
 
-    private final AppointmentFunnelReadService funnelReadService;
+    static final String SNAPSHOT_EVENT = "analytics-snapshot";
+    static final String DELTA_EVENT = "analytics-delta";
+
+    private final AppointmentFunnelSnapshotCache snapshotCache;
     private final ObjectMapper objectMapper;
 
-    private final List<ClientSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Map<TenantKey, TenantStream> streamsByTenant = new ConcurrentHashMap<>();
+    private final Set<TenantKey> changedTenants = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+    private final AtomicLong eventIdSequence = new AtomicLong(System.currentTimeMillis() * 1000L);
+
+    private final ExecutorService writerExecutor;
+    private final SseClientChannel.Listener channelListener;
+
+    private final Counter deltasPushedCounter;
+    private final Counter coalescedCounter;
+    private final Counter evictionsCounter;
+    private final Timer writeLatencyTimer;
 
     private final int maxSseClients;
+    private final long minPushIntervalMillis;
+    private final long slowClientTimeoutMillis;
+    private final long heartbeatIntervalMillis;
 
-    public DashboardSseController(AppointmentFunnelReadService funnelReadService,
+    public DashboardSseController(AppointmentFunnelSnapshotCache snapshotCache,
                                   ObjectMapper objectMapper,
                                   MeterRegistry meterRegistry,
-                                  @Value("${platform.dashboard.max-sse-clients:200}") int maxSseClients) {
-        this.funnelReadService = funnelReadService;
+                                  @Value("${platform.dashboard.max-sse-clients:200}") int maxSseClients,
+                                  @Value("${platform.dashboard.sse-min-push-interval-ms:1000}") long minPushIntervalMillis,
+                                  @Value("${platform.dashboard.sse-slow-client-timeout-ms:10000}") long slowClientTimeoutMillis,
+                                  @Value("${platform.dashboard.sse-heartbeat-interval-ms:15000}") long heartbeatIntervalMillis,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                  @Value("${platform.dashboard.sse-writer-threads:16}") int writerThreads) {
+        this.snapshotCache = snapshotCache;
+        // A virtual thread per write never lets one stalled client hold up others; the platform
+        // pool is bounded, so a few blocked sockets can delay writes until the slow-client sweep.
+        this.writerExecutor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(writerThreads);
         this.objectMapper = objectMapper;
         this.maxSseClients = maxSseClients;
+        this.minPushIntervalMillis = minPushIntervalMillis;
+        this.slowClientTimeoutMillis = slowClientTimeoutMillis;
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+
+        this.deltasPushedCounter = meterRegistry.counter("platform.dashboard.sse.deltas.pushed");
+        this.coalescedCounter = meterRegistry.counter("platform.dashboard.sse.outbound.coalesced");
+        this.evictionsCounter = meterRegistry.counter("platform.dashboard.sse.evictions");
+        this.writeLatencyTimer = Timer.builder("platform.dashboard.sse.write.latency")
+                .description("Time to write one event to one SSE client")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("platform.dashboard.sse.outbound.pending", this, DashboardSseController::countPendingEvents)
+                .description("Number of SSE clients with an event waiting behind an unfinished write")
+                .register(meterRegistry);
+        this.channelListener = new SseClientChannel.Listener() {
+            @Override
+            public void onWritten(long elapsedNanos) {
+                writeLatencyTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void onCoalesced() {
+                coalescedCounter.increment();
+            }
 
-        Gauge.builder("platform.dashboard.sse.subscriptions", subscriptions, List::size)
+            @Override
+            public void onWriteFailed(SseClientChannel channel, Exception cause) {
+                LOGGER.debug("Removing closed SSE subscription after failed write", cause);
+                removeChannel(channel);
+            }
+        };
+        Gauge.builder("platform.dashboard.sse.subscriptions", subscriptionCount, AtomicInteger::get)
                 .description("Number of active SSE dashboard subscriptions")
                 .register(meterRegistry);
+        Gauge.builder("platform.dashboard.sse.tenants", streamsByTenant, Map::size)
+                .description("Number of distinct tenants with at least one SSE dashboard subscription")
+                .register(meterRegistry);
     }
 
     @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public SseEmitter streamAnalytics(@RequestParam("organizationId") String organizationId,
-                                      @RequestParam(value = "clinicId", required = false) String clinicId) {
-        int current = subscriptions.size();
-        if (current >= maxSseClients) {
+                                      @RequestParam(value = "clinicId", required = false) String clinicId,
+                                      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        int current = subscriptionCount.incrementAndGet();
+        if (current > maxSseClients) {
+            subscriptionCount.decrementAndGet();
             LOGGER.warn("Rejecting SSE subscription for org={} clinic={} - reached maxSseClients={} current={}",
-                    organizationId, clinicId, maxSseClients, current);
+                    organizationId, clinicId, maxSseClients, current - 1);
             throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many SSE clients");
         }
 
-        String effectiveClinicId = clinicId != null ? clinicId : "*";
+        // Without a clinic the subscriber follows the organization-wide rollup.
+        String effectiveClinicId = clinicId != null ? clinicId : AppointmentFunnelAggregateStore.ALL_CLINICS;
+        TenantKey tenant = new TenantKey(organizationId, effectiveClinicId);
 
         SseEmitter emitter = new SseEmitter(0L);
-        ClientSubscription subscription = new ClientSubscription(emitter, organizationId, effectiveClinicId);
-        subscriptions.add(subscription);
-
-        emitter.onCompletion(() -> subscriptions.remove(subscription));
-        emitter.onTimeout(() -> subscriptions.remove(subscription));
-        emitter.onError(throwable -> subscriptions.remove(subscription));
+        ClientSubscription subscription = new ClientSubscription(
+                new SseClientChannel(emitter, writerExecutor, channelListener), tenant);
+        TenantStream stream = streamsByTenant.compute(tenant, (key, existing) -> {
+            TenantStream target = existing != null ? existing : new TenantStream();
+            target.subscribers.add(subscription);
+            return target;
+        });
 
-        // Send an initial snapshot immediately.
-        pushSnapshotToClient(subscription);
+        emitter.onCompletion(() -> removeSubscription(subscription));
+        emitter.onTimeout(() -> removeSubscription(subscription));
+        emitter.onError(throwable -> removeSubscription(subscription));
 
+        sendInitialSnapshot(stream, subscription, lastEventId);
         return emitter;
     }
 
-    @Scheduled(fixedDelayString = "${platform.dashboard.sse-broadcast-interval-ms:2000}")
-    public void broadcastSnapshots() {
-        for (ClientSubscription subscription : subscriptions) {
-            pushSnapshotToClient(subscription);
+    @EventListener
+    public void onFunnelChanged(AppointmentFunnelChangedEvent event) {
+        for (AppointmentFunnelTenant changed : event.tenants()) {
+            TenantKey tenant = new TenantKey(changed.organizationId(), changed.clinicId());
+            if (streamsByTenant.containsKey(tenant)) {
+                changedTenants.add(tenant);
+            }
         }
     }
 
-    private void pushSnapshotToClient(ClientSubscription subscription) {
-        try {
-            if ("*".equals(subscription.clinicId())) {
-                // For a wildcard clinic we currently skip broadcasting to keep the logic simple.
+    @Scheduled(fixedDelayString = "${platform.dashboard.sse-push-check-interval-ms:200}")
+    public void pushChangedTenants() {
+        long now = System.currentTimeMillis();
+        Iterator<TenantKey> iterator = changedTenants.iterator();
+        while (iterator.hasNext()) {
+            TenantKey tenant = iterator.next();
+            TenantStream stream = streamsByTenant.get(tenant);
+            if (stream == null) {
+                iterator.remove();
+                continue;
+            }
+            if (now - stream.lastPushAtMillis < minPushIntervalMillis) {
+                // Rate limited; the tenant stays marked and is pushed on a later check.
+                continue;
+            }
+            iterator.remove();
+            pushDelta(tenant, stream, now);
+        }
+    }
+
+    private void sendInitialSnapshot(TenantStream stream, ClientSubscription subscription, String lastEventId) {
+        TenantKey tenant = subscription.tenant();
+        synchronized (stream) {
+            if (stream.published == null) {
+                ObjectNode state = loadState(tenant);
+                if (state == null) {
+                    return;
+                }
+                stream.published = new PublishedState(eventIdSequence.incrementAndGet(), state);
+            }
+            PublishedState published = stream.published;
+            if (lastEventId != null && lastEventId.equals(Long.toString(published.eventId()))) {
+                // Reconnect of a client that has already seen the latest state.
                 return;
             }
+            subscription.channel().offer(
+                    SseClientChannel.OutboundEvent.of(SNAPSHOT_EVENT, published.eventId(), published.state()));
+        }
+    }
 
-            AppointmentFunnelSnapshot snapshot = funnelReadService.loadSnapshot(
-                    subscription.organizationId(),
-                    subscription.clinicId());
+    private void pushDelta(TenantKey tenant, TenantStream stream, long now) {
+        ObjectNode state = loadState(tenant);
+        if (state == null) {
+            return;
+        }
+        synchronized (stream) {
+            stream.lastPushAtMillis = now;
+            PublishedState previous = stream.published;
+            ObjectNode delta = previous != null ? diff(previous.state(), state) : state;
+            if (delta == null) {
+                return;
+            }
+            long eventId = eventIdSequence.incrementAndGet();
+            stream.published = new PublishedState(eventId, state);
+
+            SseClientChannel.OutboundEvent event = SseClientChannel.OutboundEvent.of(
+                    previous != null ? DELTA_EVENT : SNAPSHOT_EVENT, eventId, delta);
+            for (ClientSubscription subscription : stream.subscribers) {
+                subscription.channel().offer(event);
+            }
+            deltasPushedCounter.increment();
+        }
+    }
+
+    /**
+     * Returns the tenant identifiers plus every field that differs from the
+     * previous state, or null when nothing changed.
+     */
+    ObjectNode diff(ObjectNode previous, ObjectNode current) {
+        ObjectNode delta = objectMapper.createObjectNode();
+        delta.set("organizationId", current.get("organizationId"));
+        delta.set("clinicId", current.get("clinicId"));
+        boolean changed = false;
+        Iterator<Map.Entry<String, JsonNode>> fields = current.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (!field.getValue().equals(previous.get(field.getKey()))) {
+                delta.set(field.getKey(), field.getValue());
+                changed = true;
+            }
+        }
+        return changed ? delta : null;
+    }
 
-            String json = objectMapper.writeValueAsString(snapshot);
-            subscription.emitter().send(SseEmitter.event()
-                    .name("analytics-snapshot")
-                    .id(Instant.now().toString())
-                    .data(json));
-        } catch (JsonProcessingException e) {
+    private ObjectNode loadState(TenantKey tenant) {
+        try {
+            AppointmentFunnelSnapshot snapshot = snapshotCache.get(tenant.organizationId(), tenant.clinicId()).snapshot();
+            return objectMapper.valueToTree(snapshot);
+        } catch (IllegalArgumentException | IllegalStateException e) {
             LOGGER.warn("Failed to serialize analytics snapshot for org={} clinic={}",
-                    subscription.organizationId(), subscription.clinicId(), e);
-        } catch (IOException e) {
-            LOGGER.debug("Removing closed SSE subscription for org={} clinic={}",
-                    subscription.organizationId(), subscription.clinicId());
-            subscriptions.remove(subscription);
+                    tenant.organizationId(), tenant.clinicId(), e);
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${platform.dashboard.sse-slow-client-check-interval-ms:1000}")
+    public void evictSlowClients() {
+        long now = System.currentTimeMillis();
+        for (TenantStream stream : streamsByTenant.values()) {
+            for (ClientSubscription subscription : stream.subscribers) {
+                long behindFor = subscription.channel().behindForMillis(now);
+                if (behindFor > slowClientTimeoutMillis) {
+                    LOGGER.info("Evicting slow SSE client for org={} clinic={} ({} ms behind)",
+                            subscription.tenant().organizationId(), subscription.tenant().clinicId(), behindFor);
+                    evictionsCounter.increment();
+                    subscription.channel().close();
+                    removeSubscription(subscription);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${platform.dashboard.sse-heartbeat-check-interval-ms:5000}")
+    public void sendHeartbeats() {
+        long idleSince = System.currentTimeMillis() - heartbeatIntervalMillis;
+        for (TenantStream stream : streamsByTenant.values()) {
+            for (ClientSubscription subscription : stream.subscribers) {
+                subscription.channel().heartbeatIfIdleSince(idleSince);
+            }
+        }
+    }
+
+    private double countPendingEvents() {
+        int pending = 0;
+        for (TenantStream stream : streamsByTenant.values()) {
+            for (ClientSubscription subscription : stream.subscribers) {
+                if (subscription.channel().hasPending()) {
+                    pending++;
+                }
+            }
         }
+        return pending;
+    }
+
+    private void removeChannel(SseClientChannel channel) {
+        for (TenantStream stream : streamsByTenant.values()) {
+            for (ClientSubscription subscription : stream.subscribers) {
+                if (subscription.channel() == channel) {
+                    removeSubscription(subscription);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void removeSubscription(ClientSubscription subscription) {
+        TenantKey tenant = subscription.tenant();
+        TenantStream stream = streamsByTenant.get(tenant);
+        if (stream != null && stream.subscribers.remove(subscription)) {
+            subscriptionCount.decrementAndGet();
+            // Drop the tenant entry once its last subscriber is gone, unless one was added meanwhile.
+            streamsByTenant.computeIfPresent(tenant, (key, current) -> current.subscribers.isEmpty() ? null : current);
+        }
+    }
+
+    /**
+     * Per-tenant push state. Events for one tenant are offered while holding
+     * the stream, so a new subscriber's snapshot and concurrent deltas stay in
+     * order.
+     */
+    private static final class TenantStream {
+
+        private final Set<ClientSubscription> subscribers = ConcurrentHashMap.newKeySet();
+        private volatile PublishedState published;
+        private volatile long lastPushAtMillis;
+    }
+
+    private record PublishedState(long eventId, ObjectNode state) {
+    }
+
+    private record TenantKey(String organizationId, String clinicId) {
+    }
+
+    private record ClientSubscription(SseClientChannel channel, TenantKey tenant) {
     }
 
-    private record ClientSubscription(SseEmitter emitter, String organizationId, String clinicId) {
+    @PreDestroy
+    public void shutdown() {
+        writerExecutor.shutdownNow();
     }
 }
@@ -0,0 +1,69 @@
+package dev.healthcare.analytics.platform.dashboard;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelSnapshotCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * FunnelSnapshotController serves a tenant's current funnel snapshot as the
+ * pre-serialized JSON held by {@link AppointmentFunnelSnapshotCache}. The
+ * response carries the snapshot version as its ETag, so polling clients that
+ * send If-None-Match get a 304 without a body until the tenant changes.
+ * Without a clinicId the organization-wide rollup is returned.
+ */
+@RestController
+@RequestMapping("/api/analytics/funnel/snapshot")
+public class FunnelSnapshotController {
+
+    private final AppointmentFunnelSnapshotCache snapshotCache;
+
+    public FunnelSnapshotController(AppointmentFunnelSnapshotCache snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> snapshot(@RequestParam("organizationId") String organizationId,
+                                           @RequestParam(value = "clinicId", required = false) String clinicId,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String effectiveClinicId = clinicId != null ? clinicId : AppointmentFunnelAggregateStore.ALL_CLINICS;
+        AppointmentFunnelSnapshotCache.CachedSnapshot cached = snapshotCache.get(organizationId, effectiveClinicId);
+        if (matches(ifNoneMatch, cached.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(cached.etag())
+                    .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(cached.etag())
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cached.json());
+    }
+
+    /**
+     * If-None-Match may list several tags, weak ones included, or be "*".
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
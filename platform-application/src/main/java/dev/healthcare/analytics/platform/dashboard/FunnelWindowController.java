@@ -0,0 +1,97 @@
+package dev.healthcare.analytics.platform.dashboard;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.FunnelBreakdownDimension;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.FunnelBreakdownQuery;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelReadService;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelBreakdown;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelWindowSnapshot;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+/**
+ * FunnelWindowController answers windowed funnel queries ("last 15 minutes",
+ * "today", "this week") from the time-bucketed rollups. Windows are given
+ * either as window=today|this-week|ISO-8601 duration (e.g. PT15M), counted
+ * back from now, or explicitly with fromIso/toIso. Calendar windows use UTC.
+ * Breakdowns of recent appointments by clinic, status, modality or hour of
+ * day are served from the in-process hot window instead.
+ */
+@RestController
+@RequestMapping("/api/analytics/funnel")
+public class FunnelWindowController {
+
+    private final AppointmentFunnelReadService funnelReadService;
+
+    public FunnelWindowController(AppointmentFunnelReadService funnelReadService) {
+        this.funnelReadService = funnelReadService;
+    }
+
+    @GetMapping("/window")
+    public AppointmentFunnelWindowSnapshot window(@RequestParam("organizationId") String organizationId,
+                                                  @RequestParam(value = "clinicId", required = false) String clinicId,
+                                                  @RequestParam(value = "window", required = false) String window,
+                                                  @RequestParam(value = "fromIso", required = false) String fromIso,
+                                                  @RequestParam(value = "toIso", required = false) String toIso) {
+        Instant to = toIso != null ? Instant.parse(toIso) : Instant.now();
+        return funnelReadService.loadWindow(organizationId, clinicId, windowFrom(window, fromIso, to), to);
+    }
+
+    /**
+     * Drill-down over the recent hot window, grouped by groupBy=none|clinic|status|modality|hour-of-day
+     * and optionally filtered by status, modality and a patient cohort (patientIds).
+     */
+    @GetMapping("/breakdown")
+    public AppointmentFunnelBreakdown breakdown(@RequestParam("organizationId") String organizationId,
+                                                @RequestParam(value = "clinicId", required = false) String clinicId,
+                                                @RequestParam(value = "window", required = false) String window,
+                                                @RequestParam(value = "fromIso", required = false) String fromIso,
+                                                @RequestParam(value = "toIso", required = false) String toIso,
+                                                @RequestParam(value = "groupBy", required = false) String groupBy,
+                                                @RequestParam(value = "status", required = false) String status,
+                                                @RequestParam(value = "modality", required = false) String modality,
+                                                @RequestParam(value = "patientIds", required = false) List<Long> patientIds) {
+        Instant to = toIso != null ? Instant.parse(toIso) : Instant.now();
+        long[] cohort = null;
+        if (patientIds != null && !patientIds.isEmpty()) {
+            cohort = patientIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+        FunnelBreakdownQuery query = new FunnelBreakdownQuery(
+                organizationId,
+                clinicId,
+                windowFrom(window, fromIso, to),
+                to,
+                FunnelBreakdownDimension.fromParameter(groupBy),
+                status != null ? AppointmentFunnelCodes.statusCode(status) : null,
+                modality != null ? AppointmentFunnelCodes.modalityCode(modality) : null,
+                cohort);
+        return funnelReadService.loadBreakdown(query);
+    }
+
+    private Instant windowFrom(String window, String fromIso, Instant to) {
+        if (fromIso != null) {
+            return Instant.parse(fromIso);
+        }
+        return windowStart(window != null ? window : "today", to);
+    }
+
+    private Instant windowStart(String window, Instant to) {
+        LocalDate day = to.atZone(ZoneOffset.UTC).toLocalDate();
+        return switch (window) {
+            case "today" -> day.atStartOfDay(ZoneOffset.UTC).toInstant();
+            case "this-week" -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                    .atStartOfDay(ZoneOffset.UTC).toInstant();
+            default -> to.minus(Duration.parse(window));
+        };
+    }
+}
@@ -0,0 +1,185 @@
+package dev.healthcare.analytics.platform.dashboard;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+/**
+ * SseClientChannel decouples producing dashboard events from writing them to
+ * one client. Producers only {@link #offer} and never block; a single drain
+ * task on the writer executor sends queued events in order.
+ *
+ * The outbound queue holds at most one pending event besides the one being
+ * written. A newer event is coalesced into it: a delta is merged field by
+ * field (later values win) and a snapshot replaces whatever was pending, so a
+ * slow client skips intermediate states instead of piling them up.
+ *
+ * A client that has been sent nothing for a while gets a heartbeat comment
+ * line instead, so a connection that went away without closing shows up as
+ * a failed write.
+ */
+final class SseClientChannel {
+
+    static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private final SseEmitter emitter;
+    private final Executor writerExecutor;
+    private final Listener listener;
+
+    private OutboundEvent pending;
+    private boolean heartbeatDue;
+    private boolean draining;
+    private boolean closed;
+    private long behindSinceMillis;
+    private long lastSentAtMillis = System.currentTimeMillis();
+
+    SseClientChannel(SseEmitter emitter, Executor writerExecutor, Listener listener) {
+        this.emitter = emitter;
+        this.writerExecutor = writerExecutor;
+        this.listener = listener;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues an event for this client, coalescing it with a pending one.
+     */
+    void offer(OutboundEvent event) {
+        boolean startDrain;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (pending != null) {
+                pending = pending.coalesce(event);
+                listener.onCoalesced();
+            } else {
+                pending = event;
+            }
+            if (draining && behindSinceMillis == 0L) {
+                behindSinceMillis = System.currentTimeMillis();
+            }
+            startDrain = !draining;
+            draining = true;
+        }
+        if (startDrain) {
+            writerExecutor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Queues a heartbeat when nothing has been sent to this client since
+     * idleSinceMillis and no write is under way.
+     */
+    void heartbeatIfIdleSince(long idleSinceMillis) {
+        synchronized (this) {
+            if (closed || draining || lastSentAtMillis >= idleSinceMillis) {
+                return;
+            }
+            heartbeatDue = true;
+            draining = true;
+        }
+        writerExecutor.execute(this::drain);
+    }
+
+    synchronized boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * Returns how long this client has continuously had events waiting behind
+     * an unfinished write, or 0 when it is keeping up.
+     */
+    synchronized long behindForMillis(long nowMillis) {
+        return behindSinceMillis == 0L ? 0L : nowMillis - behindSinceMillis;
+    }
+
+    /**
+     * Closes the channel without waiting for a write in progress.
+     */
+    void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = null;
+        }
+        writerExecutor.execute(emitter::complete);
+    }
+
+    private void drain() {
+        while (true) {
+            OutboundEvent next;
+            boolean heartbeat;
+            synchronized (this) {
+                next = pending;
+                pending = null;
+                // Any event written now serves as the heartbeat.
+                heartbeat = heartbeatDue && next == null;
+                heartbeatDue = false;
+                if ((next == null && !heartbeat) || closed) {
+                    draining = false;
+                    behindSinceMillis = 0L;
+                    return;
+                }
+            }
+            long startNanos = System.nanoTime();
+            try {
+                emitter.send(heartbeat
+                        ? SseEmitter.event().comment(HEARTBEAT_COMMENT)
+                        : SseEmitter.event()
+                                .name(next.name())
+                                .id(Long.toString(next.eventId()))
+                                .data(next.json()));
+            } catch (IOException | IllegalStateException e) {
+                synchronized (this) {
+                    closed = true;
+                    pending = null;
+                    draining = false;
+                }
+                listener.onWriteFailed(this, e);
+                return;
+            }
+            synchronized (this) {
+                lastSentAtMillis = System.currentTimeMillis();
+            }
+            if (!heartbeat) {
+                listener.onWritten(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * One event as sent on the wire; the JSON is rendered once and shared by
+     * every client that receives the same event.
+     */
+    record OutboundEvent(String name, long eventId, ObjectNode payload, String json) {
+
+        static OutboundEvent of(String name, long eventId, ObjectNode payload) {
+            return new OutboundEvent(name, eventId, payload, payload.toString());
+        }
+
+        OutboundEvent coalesce(OutboundEvent newer) {
+            if (!DashboardSseController.DELTA_EVENT.equals(newer.name())) {
+                return newer;
+            }
+            ObjectNode merged = payload.deepCopy();
+            merged.setAll(newer.payload());
+            return of(name, newer.eventId(), merged);
+        }
+    }
+
+    interface Listener {
+
+        void onWritten(long elapsedNanos);
+
+        void onCoalesced();
+
+        void onWriteFailed(SseClientChannel channel, Exception cause);
+    }
+}
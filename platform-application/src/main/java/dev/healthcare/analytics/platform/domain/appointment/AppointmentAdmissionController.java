@@ -0,0 +1,285 @@
+package dev.healthcare.analytics.platform.domain.appointment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AppointmentAdmissionController decides which queued schedule commands are
+ * accepted and hands them to the queue workers.
+ *
+ * Admission is bounded by an adaptive limit on outstanding commands (queued
+ * or being written), adjusted AIMD-style from the service time of worker
+ * batches: +1 after each batch that finished within target-service-ms, and
+ * multiplied by backoff-ratio after a slower or failed one (at most once per
+ * target interval, so one slow burst does not collapse the limit). When more
+ * than half the limit is in use, an organization may only hold its fair
+ * share, limit / active organizations, so one tenant cannot fill the queue.
+ *
+ * Accepted commands wait in per-organization FIFOs that workers drain
+ * round-robin, one command per organization per turn. A rejection carries a
+ * Retry-After estimate: outstanding commands divided by recent throughput.
+ */
+@Component
+public class AppointmentAdmissionController {
+
+    private static final long NO_ORGANIZATION = -1L;
+    private static final long THROUGHPUT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Map<Long, ArrayDeque<Pending>> queuesByOrganization = new HashMap<>();
+    private final ArrayDeque<Long> roundRobin = new ArrayDeque<>();
+    private final Map<Long, Integer> outstandingByOrganization = new HashMap<>();
+    private int queued;
+    private int inFlight;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetServiceNanos;
+    private final double backoffRatio;
+    private final int maxRetryAfterSeconds;
+    private double limit;
+    private long lastDecreaseNanos;
+
+    private double throughputPerSecond;
+    private long windowStartNanos = System.nanoTime();
+    private int completedInWindow;
+
+    private final Timer queueWaitTimer;
+    private final Timer serviceTimeTimer;
+    private final Counter rejectedAtLimit;
+    private final Counter rejectedOverFairShare;
+
+    public AppointmentAdmissionController(
+            MeterRegistry meterRegistry,
+            @Value("${platform.appointment-queue.admission.initial-limit:500}") int initialLimit,
+            @Value("${platform.appointment-queue.admission.min-limit:50}") int minLimit,
+            @Value("${platform.appointment-queue.admission.max-limit:5000}") int maxLimit,
+            @Value("${platform.appointment-queue.admission.target-service-ms:250}") long targetServiceMillis,
+            @Value("${platform.appointment-queue.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${platform.appointment-queue.admission.max-retry-after-seconds:30}") int maxRetryAfterSeconds) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.targetServiceNanos = TimeUnit.MILLISECONDS.toNanos(targetServiceMillis);
+        this.backoffRatio = backoffRatio;
+        this.maxRetryAfterSeconds = Math.max(1, maxRetryAfterSeconds);
+
+        Gauge.builder("platform.appointment.queue.depth", this, AppointmentAdmissionController::queuedCount)
+                .description("Current depth of the appointment scheduling queue")
+                .register(meterRegistry);
+        Gauge.builder("platform.appointment.admission.limit", this, AppointmentAdmissionController::currentLimit)
+                .description("Adaptive limit on outstanding schedule commands")
+                .register(meterRegistry);
+        Gauge.builder("platform.appointment.admission.outstanding", this, AppointmentAdmissionController::outstandingCount)
+                .description("Schedule commands queued or being written")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("platform.appointment.schedule.queue_wait")
+                .description("Time accepted schedule commands spend queued before a worker takes them")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.serviceTimeTimer = Timer.builder("platform.appointment.schedule.service_time")
+                .description("Time a worker spends writing one batch of schedule commands")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedAtLimit = Counter.builder("platform.appointment.schedule.queue_full")
+                .description("Number of schedule requests rejected by admission control")
+                .tag("reason", "limit")
+                .register(meterRegistry);
+        this.rejectedOverFairShare = Counter.builder("platform.appointment.schedule.queue_full")
+                .description("Number of schedule requests rejected by admission control")
+                .tag("reason", "tenant_share")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accepts the command into its organization's queue or rejects it; never blocks.
+     */
+    public Admission tryAdmit(AppointmentApplicationService.ScheduleCommand command) {
+        long organization = organizationOf(command);
+        lock.lock();
+        try {
+            int outstanding = queued + inFlight;
+            int currentLimit = (int) limit;
+            if (outstanding >= currentLimit) {
+                rejectedAtLimit.increment();
+                return Admission.rejected(retryAfterSeconds(outstanding));
+            }
+            int organizationOutstanding = outstandingByOrganization.getOrDefault(organization, 0);
+            if (outstanding * 2 >= currentLimit) {
+                int organizations = outstandingByOrganization.size() + (organizationOutstanding == 0 ? 1 : 0);
+                int fairShare = Math.max(1, currentLimit / organizations);
+                if (organizationOutstanding >= fairShare) {
+                    rejectedOverFairShare.increment();
+                    return Admission.rejected(retryAfterSeconds(outstanding));
+                }
+            }
+
+            ArrayDeque<Pending> queue = queuesByOrganization.get(organization);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queuesByOrganization.put(organization, queue);
+                roundRobin.addLast(organization);
+            }
+            queue.addLast(new Pending(command, System.nanoTime()));
+            outstandingByOrganization.put(organization, organizationOutstanding + 1);
+            queued++;
+            notEmpty.signal();
+            return Admission.ACCEPTED;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks for the first queued command, then waits up to lingerNanos for
+     * the batch to fill, and takes up to maxBatch commands round-robin across
+     * organizations. Every taken batch must be passed to {@link #complete}.
+     */
+    List<AppointmentApplicationService.ScheduleCommand> takeBatch(int maxBatch, long lingerNanos)
+            throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queued == 0) {
+                notEmpty.await();
+            }
+            long deadline = System.nanoTime() + lingerNanos;
+            while (queued < maxBatch) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                notEmpty.awaitNanos(remaining);
+            }
+            if (queued == 0) {
+                // Another worker took everything while this one lingered.
+                return List.of();
+            }
+
+            long now = System.nanoTime();
+            List<AppointmentApplicationService.ScheduleCommand> batch = new ArrayList<>(Math.min(maxBatch, queued));
+            while (batch.size() < maxBatch && !roundRobin.isEmpty()) {
+                Long organization = roundRobin.pollFirst();
+                ArrayDeque<Pending> queue = queuesByOrganization.get(organization);
+                Pending pending = queue.pollFirst();
+                batch.add(pending.command());
+                queueWaitTimer.record(now - pending.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+                if (queue.isEmpty()) {
+                    queuesByOrganization.remove(organization);
+                } else {
+                    roundRobin.addLast(organization);
+                }
+            }
+            queued -= batch.size();
+            inFlight += batch.size();
+            if (queued > 0) {
+                notEmpty.signal();
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a batch taken with {@link #takeBatch} and feeds its service
+     * time (and whether it failed) into the adaptive limit.
+     */
+    void complete(List<AppointmentApplicationService.ScheduleCommand> batch, long serviceNanos, boolean failed) {
+        serviceTimeTimer.record(serviceNanos, TimeUnit.NANOSECONDS);
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            for (AppointmentApplicationService.ScheduleCommand command : batch) {
+                outstandingByOrganization.computeIfPresent(organizationOf(command),
+                        (organization, outstanding) -> outstanding > 1 ? outstanding - 1 : null);
+            }
+            inFlight -= batch.size();
+
+            if (failed || serviceNanos > targetServiceNanos) {
+                if (now - lastDecreaseNanos >= targetServiceNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+
+            completedInWindow += batch.size();
+            long elapsed = now - windowStartNanos;
+            if (elapsed >= THROUGHPUT_WINDOW_NANOS) {
+                double windowRate = completedInWindow * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+                throughputPerSecond = throughputPerSecond == 0 ? windowRate : 0.5 * throughputPerSecond + 0.5 * windowRate;
+                completedInWindow = 0;
+                windowStartNanos = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int retryAfterSeconds(int outstanding) {
+        if (throughputPerSecond <= 0) {
+            return 1;
+        }
+        long seconds = (long) Math.ceil(outstanding / throughputPerSecond);
+        return (int) Math.max(1, Math.min(maxRetryAfterSeconds, seconds));
+    }
+
+    private static long organizationOf(AppointmentApplicationService.ScheduleCommand command) {
+        return command.organizationId() != null ? command.organizationId() : NO_ORGANIZATION;
+    }
+
+    private double queuedCount() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double outstandingCount() {
+        lock.lock();
+        try {
+            return queued + inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double currentLimit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public record Admission(boolean accepted, int retryAfterSeconds) {
+
+        static final Admission ACCEPTED = new Admission(true, 0);
+
+        static Admission rejected(int retryAfterSeconds) {
+            return new Admission(false, retryAfterSeconds);
+        }
+    }
+
+    private record Pending(AppointmentApplicationService.ScheduleCommand command, long enqueuedAtNanos) {
+    }
+}
@@ -6,8 +6,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class AppointmentApplicationService {
@@ -15,29 +18,24 @@ public class AppointmentApplicationService {
     private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentApplicationService.class);
 
     private final AppointmentCommandService appointmentCommandService;
-    private final OrganizationRepository organizationRepository;
-    private final ClinicRepository clinicRepository;
-    private final PatientAccountRepository patientAccountRepository;
+    private final TenantReferenceCache tenantReferenceCache;
     private final AppointmentRepository appointmentRepository;
 
     public AppointmentApplicationService(AppointmentCommandService appointmentCommandService,
-                                         OrganizationRepository organizationRepository,
-                                         ClinicRepository clinicRepository,
-                                         PatientAccountRepository patientAccountRepository,
+                                         TenantReferenceCache tenantReferenceCache,
                                          AppointmentRepository appointmentRepository) {
         this.appointmentCommandService = appointmentCommandService;
-        this.organizationRepository = organizationRepository;
-        this.clinicRepository = clinicRepository;
-        this.patientAccountRepository = patientAccountRepository;
+        this.tenantReferenceCache = tenantReferenceCache;
         this.appointmentRepository = appointmentRepository;
     }
 
     public AppointmentEntity schedule(ScheduleCommand command) {
-        OrganizationEntity organization = organizationRepository.findById(command.organizationId())
+        // Known ids come back as uninitialized references: no SELECT, just the foreign keys.
+        OrganizationEntity organization = tenantReferenceCache.organization(command.organizationId())
             .orElseThrow(() -> new IllegalArgumentException("Invalid organization id"));
-        ClinicEntity clinic = clinicRepository.findById(command.clinicId())
+        ClinicEntity clinic = tenantReferenceCache.clinic(command.clinicId())
             .orElseThrow(() -> new IllegalArgumentException("Invalid clinic id"));
-        PatientAccountEntity patient = patientAccountRepository.findById(command.patientId())
+        PatientAccountEntity patient = tenantReferenceCache.patient(command.patientId())
             .orElseThrow(() -> new IllegalArgumentException("Invalid patient id"));
 
         AppointmentEntity entity = appointmentCommandService.scheduleAppointment(
@@ -55,6 +53,72 @@ public class AppointmentApplicationService {
         return entity;
     }
 
+    /**
+     * Schedules a group of commands with one commit. The referenced
+     * organizations, clinics and patients are checked against the tenant
+     * reference cache, with at most one query each for uncached ids;
+     * commands naming unknown ids are rejected on their own. If the group
+     * commit fails, its commands are retried one at a time so a single bad
+     * command cannot take the others down with it.
+     *
+     * @return the number of appointments scheduled
+     */
+    public int scheduleBatch(List<ScheduleCommand> commands) {
+        Set<Long> organizationIds = new HashSet<>();
+        Set<Long> clinicIds = new HashSet<>();
+        Set<Long> patientIds = new HashSet<>();
+        for (ScheduleCommand command : commands) {
+            addIfPresent(organizationIds, command.organizationId());
+            addIfPresent(clinicIds, command.clinicId());
+            addIfPresent(patientIds, command.patientId());
+        }
+        Set<Long> knownOrganizations = tenantReferenceCache.existingOrganizationIds(organizationIds);
+        Set<Long> knownClinics = tenantReferenceCache.existingClinicIds(clinicIds);
+        Set<Long> knownPatients = tenantReferenceCache.existingPatientIds(patientIds);
+
+        List<ScheduleCommand> accepted = new ArrayList<>(commands.size());
+        for (ScheduleCommand command : commands) {
+            if (command.modality() == null || command.scheduledAt() == null) {
+                LOGGER.warn("Rejected schedule command without modality or scheduledAt: {}", command);
+            } else if (!knownOrganizations.contains(command.organizationId())) {
+                LOGGER.warn("Rejected schedule command with invalid organization id: {}", command);
+            } else if (!knownClinics.contains(command.clinicId())) {
+                LOGGER.warn("Rejected schedule command with invalid clinic id: {}", command);
+            } else if (!knownPatients.contains(command.patientId())) {
+                LOGGER.warn("Rejected schedule command with invalid patient id: {}", command);
+            } else {
+                accepted.add(command);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            appointmentCommandService.scheduleAppointments(accepted);
+            LOGGER.debug("Scheduled {} appointments in one transaction", accepted.size());
+            return accepted.size();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Group commit of {} schedule commands failed; retrying them one by one", accepted.size(), e);
+        }
+        int scheduled = 0;
+        for (ScheduleCommand command : accepted) {
+            try {
+                schedule(command);
+                scheduled++;
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to process schedule command {}", command, e);
+            }
+        }
+        return scheduled;
+    }
+
+    private static void addIfPresent(Set<Long> ids, Long id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
     public Optional<AppointmentEntity> complete(CompleteCommand command) {
         return appointmentRepository.findById(command.appointmentId())
             .map(existing -> {
@@ -9,7 +9,9 @@ import jakarta.transaction.Transactional;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -32,14 +34,8 @@ public class AppointmentCommandService {
                                                  Instant scheduledAt) {
         AppointmentEntity entity = appointmentPersistenceAdapter.createScheduledAppointment(organization, clinic, patient, modality, scheduledAt);
 
-        Map<String, Object> payload = new HashMap<>();
-        payload.put("appointmentId", entity.getId());
-        payload.put("organizationId", organization.getId());
-        payload.put("clinicId", clinic.getId());
-        payload.put("patientId", patient.getId());
-        payload.put("modality", modality.name());
-        payload.put("scheduledAt", scheduledAt);
-        payload.put("status", AppointmentStatus.SCHEDULED.name());
+        Map<String, Object> payload = scheduledPayload(entity.getId(), organization.getId(), clinic.getId(),
+                patient.getId(), modality, scheduledAt);
 
         outboxEventPublisher.publishEvent("APPOINTMENT", String.valueOf(entity.getId()),
                 "APPOINTMENT_SCHEDULED", payload, scheduledAt);
@@ -47,6 +43,29 @@ public class AppointmentCommandService {
         return entity;
     }
 
+    /**
+     * Schedules a group of appointments in one transaction: one batched
+     * appointment insert and one batched outbox insert. All referenced ids
+     * must exist; any failure rolls back the whole group.
+     */
+    @Transactional
+    public List<Long> scheduleAppointments(List<AppointmentApplicationService.ScheduleCommand> commands) {
+        List<Long> appointmentIds = appointmentPersistenceAdapter.createScheduledAppointments(commands);
+
+        List<OutboxEventPublisher.PendingEvent> events = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            AppointmentApplicationService.ScheduleCommand command = commands.get(i);
+            Long appointmentId = appointmentIds.get(i);
+            Map<String, Object> payload = scheduledPayload(appointmentId, command.organizationId(), command.clinicId(),
+                    command.patientId(), command.modality(), command.scheduledAt());
+            events.add(new OutboxEventPublisher.PendingEvent("APPOINTMENT", String.valueOf(appointmentId),
+                    "APPOINTMENT_SCHEDULED", payload, command.scheduledAt()));
+        }
+        outboxEventPublisher.publishEvents(events);
+
+        return appointmentIds;
+    }
+
     @Transactional
     public void completeAppointment(AppointmentEntity appointment, Instant startedAt, Instant completedAt) {
         appointmentPersistenceAdapter.markAppointmentCompleted(appointment, startedAt, completedAt);
@@ -65,4 +84,21 @@ public class AppointmentCommandService {
         outboxEventPublisher.publishEvent("APPOINTMENT", String.valueOf(appointment.getId()),
                 "APPOINTMENT_COMPLETED", payload, completedAt);
     }
+
+    private static Map<String, Object> scheduledPayload(Long appointmentId,
+                                                        Long organizationId,
+                                                        Long clinicId,
+                                                        Long patientId,
+                                                        AppointmentModality modality,
+                                                        Instant scheduledAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("appointmentId", appointmentId);
+        payload.put("organizationId", organizationId);
+        payload.put("clinicId", clinicId);
+        payload.put("patientId", patientId);
+        payload.put("modality", modality.name());
+        payload.put("scheduledAt", scheduledAt);
+        payload.put("status", AppointmentStatus.SCHEDULED.name());
+        return payload;
+    }
 }
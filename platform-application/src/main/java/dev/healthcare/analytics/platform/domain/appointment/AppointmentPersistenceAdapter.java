@@ -6,16 +6,37 @@ import dev.healthcare.analytics.platform.appschema.core.OrganizationEntity;
 import dev.healthcare.analytics.platform.appschema.core.PatientAccountEntity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class AppointmentPersistenceAdapter {
 
+    private static final String NEXT_IDS_SQL = """
+            SELECT nextval(pg_get_serial_sequence('app.appointment', 'id'))
+            FROM generate_series(1, ?)
+            """;
+
+    private static final String INSERT_SCHEDULED_SQL = """
+            INSERT INTO app.appointment (
+                id, organization_id, clinic_id, patient_account_id, modality, status, scheduled_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentPersistenceAdapter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
     public AppointmentEntity createScheduledAppointment(OrganizationEntity organization,
                                                         ClinicEntity clinic,
                                                         PatientAccountEntity patient,
@@ -33,6 +54,35 @@ public class AppointmentPersistenceAdapter {
         return entity;
     }
 
+    /**
+     * Inserts scheduled appointments with one JDBC batch and returns their ids
+     * in command order. Hibernate cannot batch IDENTITY inserts, so the ids are
+     * taken from the column's sequence with a single nextval query and bound
+     * explicitly. The referenced organizations, clinics and patients must exist.
+     */
+    public List<Long> createScheduledAppointments(List<AppointmentApplicationService.ScheduleCommand> commands) {
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, commands.size()));
+        ids.sort(null);
+        List<Object[]> rows = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            AppointmentApplicationService.ScheduleCommand command = commands.get(i);
+            rows.add(new Object[]{
+                    ids.get(i),
+                    command.organizationId(),
+                    command.clinicId(),
+                    command.patientId(),
+                    command.modality().name(),
+                    AppointmentStatus.SCHEDULED.name(),
+                    command.scheduledAt().atOffset(ZoneOffset.UTC)
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SCHEDULED_SQL, rows);
+        return ids;
+    }
+
     public void markAppointmentCompleted(AppointmentEntity appointment,
                                           Instant startedAt,
                                           Instant completedAt) {
@@ -1,5 +1,9 @@
 package dev.healthcare.analytics.platform.domain.appointment;
 
+import dev.healthcare.analytics.platform.execution.DatabaseConcurrencyLimiter;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -7,31 +11,68 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * AppointmentScheduleQueueWorker drains the scheduling queue in groups: a
+ * worker blocks for the first command, then collects up to batch-size
+ * commands or until batch-linger-ms has passed, round-robin across
+ * organizations, and schedules the group with a single commit. Under load this turns one transaction per request into
+ * one per group; when the queue is nearly idle a command waits at most the
+ * linger time.
+ *
+ * Every group holds an OLTP {@link DatabaseConcurrencyLimiter} permit while it is
+ * written. With {@code spring.threads.virtual.enabled} the drain loops run
+ * on virtual threads and each group is written on a virtual thread of its
+ * own, so write concurrency is bounded by the permits rather than by
+ * worker-count; a drain loop waiting for a permit leaves commands in the
+ * queue, which is what pushes back on the API.
+ *
+ * Every group is reported back to the {@link AppointmentAdmissionController}
+ * with its service time, which drives the adaptive admission limit.
+ */
 @Component
 public class AppointmentScheduleQueueWorker {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AppointmentScheduleQueueWorker.class);
 
-    private final BlockingQueue<AppointmentApplicationService.ScheduleCommand> queue;
+    private final AppointmentAdmissionController admissionController;
     private final AppointmentApplicationService appointmentApplicationService;
+    private final DatabaseConcurrencyLimiter databaseConcurrencyLimiter;
     private final boolean queueEnabled;
+    private final boolean virtualThreads;
     private final int workerCount;
+    private final int batchSize;
+    private final long batchLingerNanos;
+    private final DistributionSummary batchSizeSummary;
 
     private ExecutorService executorService;
+    private ExecutorService batchExecutor;
 
     public AppointmentScheduleQueueWorker(
-            BlockingQueue<AppointmentApplicationService.ScheduleCommand> queue,
+            AppointmentAdmissionController admissionController,
             AppointmentApplicationService appointmentApplicationService,
+            DatabaseConcurrencyLimiter databaseConcurrencyLimiter,
+            MeterRegistry meterRegistry,
             @Value("${platform.appointment-queue.enabled:false}") boolean queueEnabled,
-            @Value("${platform.appointment-queue.worker-count:1}") int workerCount) {
-        this.queue = queue;
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${platform.appointment-queue.worker-count:1}") int workerCount,
+            @Value("${platform.appointment-queue.batch-size:100}") int batchSize,
+            @Value("${platform.appointment-queue.batch-linger-ms:5}") long batchLingerMillis) {
+        this.admissionController = admissionController;
         this.appointmentApplicationService = appointmentApplicationService;
+        this.databaseConcurrencyLimiter = databaseConcurrencyLimiter;
         this.queueEnabled = queueEnabled;
+        this.virtualThreads = virtualThreads;
         this.workerCount = workerCount;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchLingerNanos = TimeUnit.MILLISECONDS.toNanos(batchLingerMillis);
+        this.batchSizeSummary = DistributionSummary.builder("platform.appointment.schedule.batch.size")
+                .description("Schedule commands committed per queue worker transaction")
+                .register(meterRegistry);
     }
 
     @PostConstruct
@@ -41,34 +82,91 @@ public class AppointmentScheduleQueueWorker {
             return;
         }
 
-        this.executorService = Executors.newFixedThreadPool(workerCount);
+        if (virtualThreads) {
+            this.executorService = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("appointment-schedule-worker-", 0).factory());
+            this.batchExecutor = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("appointment-schedule-batch-", 0).factory());
+        } else {
+            this.executorService = Executors.newFixedThreadPool(workerCount);
+        }
         for (int i = 0; i < workerCount; i++) {
             final int workerIndex = i;
             executorService.submit(() -> workerLoop(workerIndex));
         }
-        LOGGER.info("Started {} appointment schedule queue worker(s)", workerCount);
+        LOGGER.info("Started {} appointment schedule queue worker(s) on {} threads, batch size {}",
+                workerCount, virtualThreads ? "virtual" : "platform", batchSize);
     }
 
     private void workerLoop(int workerIndex) {
         while (!Thread.currentThread().isInterrupted()) {
+            List<AppointmentApplicationService.ScheduleCommand> batch;
             try {
-                AppointmentApplicationService.ScheduleCommand command = queue.take();
-                try {
-                    appointmentApplicationService.schedule(command);
-                } catch (Exception ex) {
-                    LOGGER.warn("Worker {} failed to process schedule command {}", workerIndex, command, ex);
-                }
+                batch = admissionController.takeBatch(batchSize, batchLingerNanos);
             } catch (InterruptedException ie) {
                 Thread.currentThread().interrupt();
+                break;
+            }
+            if (!batch.isEmpty()) {
+                dispatchBatch(workerIndex, batch);
             }
         }
         LOGGER.info("Appointment schedule worker {} stopped", workerIndex);
     }
 
+    private void dispatchBatch(int workerIndex, List<AppointmentApplicationService.ScheduleCommand> batch) {
+        try {
+            databaseConcurrencyLimiter.acquire(DatabaseWorkload.OLTP);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Worker {} interrupted; dropping {} schedule command(s)", workerIndex, batch.size());
+            admissionController.complete(batch, 0L, true);
+            return;
+        }
+        if (batchExecutor == null) {
+            try {
+                processBatch(workerIndex, batch);
+            } finally {
+                databaseConcurrencyLimiter.release(DatabaseWorkload.OLTP);
+            }
+            return;
+        }
+        try {
+            batchExecutor.execute(() -> {
+                try {
+                    processBatch(workerIndex, batch);
+                } finally {
+                    databaseConcurrencyLimiter.release(DatabaseWorkload.OLTP);
+                }
+            });
+        } catch (RuntimeException e) {
+            databaseConcurrencyLimiter.release(DatabaseWorkload.OLTP);
+            admissionController.complete(batch, 0L, true);
+            LOGGER.warn("Worker {} could not hand off {} schedule command(s)", workerIndex, batch.size(), e);
+        }
+    }
+
+    private void processBatch(int workerIndex, List<AppointmentApplicationService.ScheduleCommand> batch) {
+        long startedAt = System.nanoTime();
+        boolean failed = true;
+        try {
+            appointmentApplicationService.scheduleBatch(batch);
+            batchSizeSummary.record(batch.size());
+            failed = false;
+        } catch (Exception ex) {
+            LOGGER.warn("Worker {} failed to process {} schedule command(s)", workerIndex, batch.size(), ex);
+        } finally {
+            admissionController.complete(batch, System.nanoTime() - startedAt, failed);
+        }
+    }
+
     @PreDestroy
     public void shutdown() {
         if (executorService != null) {
             executorService.shutdownNow();
         }
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+        }
     }
 }
@@ -0,0 +1,113 @@
+package dev.healthcare.analytics.platform.execution;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSourceConfiguration replaces the single Boot-managed pool with one
+ * Hikari pool per {@link DatabaseWorkload}, each sized on its own, so a burst
+ * of dashboard reads or a replay cannot take the connections that appointment
+ * writes need, and the other way round. The pools are named after their
+ * workload, which is the pool tag of their hikaricp.* metrics.
+ *
+ * OLTP and STREAM connect to spring.datasource.url; ANALYTICS connects to
+ * platform.datasource.analytics.url (a read replica, when there is one) and
+ * its connections are read-only. Timeouts and driver properties are shared
+ * by all pools.
+ */
+@Configuration
+public class DataSourceConfiguration {
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakDetectionThresholdMillis;
+    private final boolean reWriteBatchedInserts;
+
+    public DataSourceConfiguration(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${spring.datasource.hikari.connection-timeout:5000}") long connectionTimeoutMillis,
+            @Value("${spring.datasource.hikari.idle-timeout:30000}") long idleTimeoutMillis,
+            @Value("${spring.datasource.hikari.max-lifetime:1800000}") long maxLifetimeMillis,
+            @Value("${spring.datasource.hikari.leak-detection-threshold:0}") long leakDetectionThresholdMillis,
+            @Value("${spring.datasource.hikari.data-source-properties.reWriteBatchedInserts:true}") boolean reWriteBatchedInserts) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.connectionTimeoutMillis = connectionTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+        this.reWriteBatchedInserts = reWriteBatchedInserts;
+    }
+
+    @Bean
+    public HikariDataSource oltpDataSource(
+            @Value("${platform.datasource.oltp.maximum-pool-size:20}") int maximumPoolSize,
+            @Value("${platform.datasource.oltp.minimum-idle:8}") int minimumIdle) {
+        return pool(DatabaseWorkload.OLTP, url, username, password, maximumPoolSize, minimumIdle);
+    }
+
+    @Bean
+    public HikariDataSource streamDataSource(
+            @Value("${platform.datasource.stream.maximum-pool-size:16}") int maximumPoolSize,
+            @Value("${platform.datasource.stream.minimum-idle:4}") int minimumIdle) {
+        return pool(DatabaseWorkload.STREAM, url, username, password, maximumPoolSize, minimumIdle);
+    }
+
+    @Bean
+    public HikariDataSource analyticsDataSource(
+            @Value("${platform.datasource.analytics.url:${spring.datasource.url}}") String analyticsUrl,
+            @Value("${platform.datasource.analytics.username:${spring.datasource.username}}") String analyticsUsername,
+            @Value("${platform.datasource.analytics.password:${spring.datasource.password}}") String analyticsPassword,
+            @Value("${platform.datasource.analytics.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${platform.datasource.analytics.minimum-idle:2}") int minimumIdle) {
+        return pool(DatabaseWorkload.ANALYTICS, analyticsUrl, analyticsUsername, analyticsPassword,
+                maximumPoolSize, minimumIdle);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource oltpDataSource,
+                                 HikariDataSource streamDataSource,
+                                 HikariDataSource analyticsDataSource) {
+        return new WorkloadRoutingDataSource(Map.of(
+                DatabaseWorkload.OLTP, oltpDataSource,
+                DatabaseWorkload.STREAM, streamDataSource,
+                DatabaseWorkload.ANALYTICS, analyticsDataSource));
+    }
+
+    private HikariDataSource pool(DatabaseWorkload workload,
+                                  String jdbcUrl,
+                                  String user,
+                                  String secret,
+                                  int maximumPoolSize,
+                                  int minimumIdle) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(workload.name().toLowerCase());
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(secret);
+        config.setMaximumPoolSize(Math.max(1, maximumPoolSize));
+        config.setMinimumIdle(Math.min(Math.max(0, minimumIdle), Math.max(1, maximumPoolSize)));
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        config.setIdleTimeout(idleTimeoutMillis);
+        config.setMaxLifetime(maxLifetimeMillis);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMillis);
+        config.setReadOnly(workload == DatabaseWorkload.ANALYTICS);
+        config.addDataSourceProperty("reWriteBatchedInserts", reWriteBatchedInserts);
+        return new HikariDataSource(config);
+    }
+}
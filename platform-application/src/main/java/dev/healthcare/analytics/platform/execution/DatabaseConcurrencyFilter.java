@@ -0,0 +1,104 @@
+package dev.healthcare.analytics.platform.execution;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * DatabaseConcurrencyFilter classifies every /api request by
+ * {@link DatabaseWorkload} and holds a {@link DatabaseConcurrencyLimiter}
+ * permit of that workload while it is handled. Reads under /api/analytics/
+ * run as ANALYTICS, on the analytics pool; everything else is OLTP. Requests
+ * that cannot get a permit within the timeout are answered with 503 instead
+ * of waiting for a connection, with a Retry-After hint.
+ *
+ * Requests whose handlers do no JDBC take no permit. The SSE stream only
+ * registers the client, and its long-lived response must not pin one.
+ * Scheduling an appointment only enqueues the command while the schedule
+ * queue is enabled; the queue workers take OLTP permits for the writes, and
+ * admission control answers overload with its own Retry-After estimate.
+ */
+@Component
+public class DatabaseConcurrencyFilter extends OncePerRequestFilter {
+
+    private static final String ANALYTICS_PATH = "/api/analytics/";
+    private static final String SSE_STREAM_PATH = "/api/analytics/stream";
+    private static final String APPOINTMENTS_PATH = "/api/appointments";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final DatabaseConcurrencyLimiter limiter;
+    private final boolean scheduleQueueEnabled;
+
+    public DatabaseConcurrencyFilter(DatabaseConcurrencyLimiter limiter,
+                                     @Value("${platform.appointment-queue.enabled:false}") boolean scheduleQueueEnabled) {
+        this.limiter = limiter;
+        this.scheduleQueueEnabled = scheduleQueueEnabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        DatabaseWorkload workload = isRead(request) && path.startsWith(ANALYTICS_PATH)
+                ? DatabaseWorkload.ANALYTICS
+                : DatabaseWorkload.OLTP;
+        try (DatabaseWorkload.Scope ignored = workload.enter()) {
+            if (!needsPermit(request, path)) {
+                filterChain.doFilter(request, response);
+            } else {
+                doFilterWithPermit(workload, request, response, filterChain);
+            }
+        }
+    }
+
+    private void doFilterWithPermit(DatabaseWorkload workload,
+                                    HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire(workload);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Interrupted while waiting for database capacity");
+            return;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Database capacity exhausted; please retry later");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(workload);
+        }
+    }
+
+    private boolean needsPermit(HttpServletRequest request, String path) {
+        if (path.startsWith(SSE_STREAM_PATH)) {
+            return false;
+        }
+        return !(scheduleQueueEnabled && "POST".equals(request.getMethod()) && APPOINTMENTS_PATH.equals(path));
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+}
@@ -0,0 +1,103 @@
+package dev.healthcare.analytics.platform.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseConcurrencyLimiter bounds how many request handlers and queue
+ * workers may work against the database at once. Every workload with a pool
+ * of its own has its own permits, sized to that pool, so with virtual threads
+ * (where thread counts no longer limit anything) callers queue here, fairly
+ * and cheaply, instead of piling up inside the connection pool and timing
+ * out there; and analytics requests waiting for permits never hold up
+ * appointment writes. STREAM has no permits: its threads are few and fixed.
+ *
+ * A thread must not acquire a permit twice: the HTTP filter and the queue
+ * workers each take one around their whole unit of work, and the services
+ * they call never do.
+ */
+@Component
+public class DatabaseConcurrencyLimiter {
+
+    private final Map<DatabaseWorkload, WorkloadPermits> permitsByWorkload = new EnumMap<>(DatabaseWorkload.class);
+    private final long acquireTimeoutMillis;
+
+    public DatabaseConcurrencyLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${platform.execution.db-permits.oltp:${platform.datasource.oltp.maximum-pool-size:20}}") int oltpPermits,
+            @Value("${platform.execution.db-permits.analytics:${platform.datasource.analytics.maximum-pool-size:10}}") int analyticsPermits,
+            @Value("${platform.execution.db-permit-timeout-ms:5000}") long acquireTimeoutMillis) {
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        permitsByWorkload.put(DatabaseWorkload.OLTP, new WorkloadPermits(meterRegistry, DatabaseWorkload.OLTP, oltpPermits));
+        permitsByWorkload.put(DatabaseWorkload.ANALYTICS,
+                new WorkloadPermits(meterRegistry, DatabaseWorkload.ANALYTICS, analyticsPermits));
+    }
+
+    /**
+     * Waits up to the configured timeout; returns false if no permit became available.
+     */
+    public boolean tryAcquire(DatabaseWorkload workload) throws InterruptedException {
+        WorkloadPermits permits = permits(workload);
+        if (permits.semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            return true;
+        }
+        permits.timeouts.increment();
+        return false;
+    }
+
+    /**
+     * Waits as long as it takes; used by queue workers, whose waiting is the back-pressure.
+     */
+    public void acquire(DatabaseWorkload workload) throws InterruptedException {
+        permits(workload).semaphore.acquire();
+    }
+
+    public void release(DatabaseWorkload workload) {
+        permits(workload).semaphore.release();
+    }
+
+    public int permitCount(DatabaseWorkload workload) {
+        return permits(workload).permitCount;
+    }
+
+    private WorkloadPermits permits(DatabaseWorkload workload) {
+        WorkloadPermits permits = permitsByWorkload.get(workload);
+        if (permits == null) {
+            throw new IllegalArgumentException("No database permits for workload " + workload);
+        }
+        return permits;
+    }
+
+    private static final class WorkloadPermits {
+
+        private final Semaphore semaphore;
+        private final int permitCount;
+        private final Counter timeouts;
+
+        private WorkloadPermits(MeterRegistry meterRegistry, DatabaseWorkload workload, int permitCount) {
+            this.permitCount = Math.max(1, permitCount);
+            this.semaphore = new Semaphore(this.permitCount, true);
+            String tag = workload.name().toLowerCase();
+            Gauge.builder("platform.execution.db.permits.in_use", semaphore, s -> this.permitCount - s.availablePermits())
+                    .description("Database permits currently held by requests and queue workers")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            Gauge.builder("platform.execution.db.permits.waiting", semaphore, Semaphore::getQueueLength)
+                    .description("Threads waiting for a database permit")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+            this.timeouts = Counter.builder("platform.execution.db.permits.timeouts")
+                    .description("Permit requests that gave up after the acquire timeout")
+                    .tag("workload", tag)
+                    .register(meterRegistry);
+        }
+    }
+}
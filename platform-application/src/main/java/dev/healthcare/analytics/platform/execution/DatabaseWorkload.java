@@ -0,0 +1,63 @@
+package dev.healthcare.analytics.platform.execution;
+
+/**
+ * DatabaseWorkload names the connection pool a thread's database work runs
+ * on; {@link WorkloadRoutingDataSource} routes every connection request by
+ * the workload of the calling thread.
+ *
+ * OLTP is the default and covers the appointment API, the schedule queue
+ * workers and everything else nobody classified. STREAM is entered by the
+ * outbox pipeline's own threads (projection, retention, replay). ANALYTICS
+ * is entered for read-only analytics requests and may point at a replica,
+ * so it must never be used for writes.
+ *
+ * A transaction keeps the connection it started with, so entering another
+ * workload inside one has no effect until it ends.
+ */
+public enum DatabaseWorkload {
+
+    OLTP,
+    STREAM,
+    ANALYTICS;
+
+    private static final ThreadLocal<DatabaseWorkload> CURRENT = new ThreadLocal<>();
+
+    public static DatabaseWorkload current() {
+        DatabaseWorkload workload = CURRENT.get();
+        return workload != null ? workload : OLTP;
+    }
+
+    /**
+     * Makes this the calling thread's workload until the returned scope is
+     * closed, which restores the previous one.
+     */
+    public Scope enter() {
+        DatabaseWorkload previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * Wraps a task so that it runs under this workload; meant for the
+     * runnables handed to thread factories and executors.
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            try (Scope ignored = enter()) {
+                task.run();
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
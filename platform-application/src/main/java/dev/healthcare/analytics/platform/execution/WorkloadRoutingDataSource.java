@@ -0,0 +1,28 @@
+package dev.healthcare.analytics.platform.execution;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WorkloadRoutingDataSource is the application's DataSource: JPA and every
+ * JdbcTemplate use it, and it hands out connections from the pool of the
+ * calling thread's {@link DatabaseWorkload}. Routing happens per connection,
+ * so a transaction (and the JdbcTemplate calls joining it) stays on the one
+ * pool it started on.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    public WorkloadRoutingDataSource(Map<DatabaseWorkload, ? extends DataSource> pools) {
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(DatabaseWorkload.OLTP));
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return DatabaseWorkload.current();
+    }
+}
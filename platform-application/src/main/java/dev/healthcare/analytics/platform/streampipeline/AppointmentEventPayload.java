@@ -0,0 +1,148 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+
+/**
+ * AppointmentEventPayload is a reusable, mutable holder for one decoded
+ * APPOINTMENT_SCHEDULED or APPOINTMENT_COMPLETED outbox payload. All fields
+ * are primitives: ids are 0 and timestamps {@link #ABSENT} when the payload
+ * did not carry them, status and modality are {@link AppointmentFunnelCodes}.
+ *
+ * {@link OutboxPayloadDecoder} resets and refills a holder per event, so the
+ * projector keeps a small pool of them per thread instead of allocating a
+ * JSON tree and several strings and Instants for every event.
+ */
+public final class AppointmentEventPayload {
+
+    public static final long ABSENT = Long.MIN_VALUE;
+
+    static final int SCHEDULED_AT = 0;
+    static final int STARTED_AT = 1;
+    static final int COMPLETED_AT = 2;
+
+    private long eventId;
+    private boolean completedEvent;
+
+    private long appointmentId;
+    private long organizationId;
+    private long clinicId;
+    private long patientId;
+    private short status;
+    private short modality;
+
+    private final long[] epochSeconds = new long[3];
+    private final int[] nanos = new int[3];
+
+    public AppointmentEventPayload() {
+        reset();
+    }
+
+    void reset() {
+        eventId = 0L;
+        completedEvent = false;
+        appointmentId = 0L;
+        organizationId = 0L;
+        clinicId = 0L;
+        patientId = 0L;
+        status = AppointmentFunnelCodes.UNKNOWN;
+        modality = AppointmentFunnelCodes.UNKNOWN;
+        for (int slot = 0; slot < epochSeconds.length; slot++) {
+            epochSeconds[slot] = ABSENT;
+            nanos[slot] = 0;
+        }
+    }
+
+    void setEvent(long eventId, boolean completedEvent) {
+        this.eventId = eventId;
+        this.completedEvent = completedEvent;
+    }
+
+    void setAppointmentId(long appointmentId) {
+        this.appointmentId = appointmentId;
+    }
+
+    void setOrganizationId(long organizationId) {
+        this.organizationId = organizationId;
+    }
+
+    void setClinicId(long clinicId) {
+        this.clinicId = clinicId;
+    }
+
+    void setPatientId(long patientId) {
+        this.patientId = patientId;
+    }
+
+    void setStatus(short status) {
+        this.status = status;
+    }
+
+    void setModality(short modality) {
+        this.modality = modality;
+    }
+
+    void setInstant(int slot, long epochSecond, int nano) {
+        epochSeconds[slot] = epochSecond;
+        nanos[slot] = nano;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public boolean isCompletedEvent() {
+        return completedEvent;
+    }
+
+    public long getAppointmentId() {
+        return appointmentId;
+    }
+
+    public long getOrganizationId() {
+        return organizationId;
+    }
+
+    public long getClinicId() {
+        return clinicId;
+    }
+
+    public long getPatientId() {
+        return patientId;
+    }
+
+    public short getStatus() {
+        return status;
+    }
+
+    public short getModality() {
+        return modality;
+    }
+
+    public long getScheduledAtEpochSecond() {
+        return epochSeconds[SCHEDULED_AT];
+    }
+
+    public long getStartedAtEpochSecond() {
+        return epochSeconds[STARTED_AT];
+    }
+
+    public long getCompletedAtEpochSecond() {
+        return epochSeconds[COMPLETED_AT];
+    }
+
+    int getNano(int slot) {
+        return nanos[slot];
+    }
+
+    /**
+     * Whole seconds from one timestamp slot to another, rounded down like
+     * {@code Duration.between(from, to).getSeconds()}; null when either is absent.
+     */
+    Long secondsBetween(int fromSlot, int toSlot) {
+        if (epochSeconds[fromSlot] == ABSENT || epochSeconds[toSlot] == ABSENT) {
+            return null;
+        }
+        long seconds = epochSeconds[toSlot] - epochSeconds[fromSlot];
+        return nanos[toSlot] < nanos[fromSlot] ? seconds - 1 : seconds;
+    }
+}
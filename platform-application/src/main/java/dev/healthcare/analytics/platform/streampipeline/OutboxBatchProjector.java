@@ -0,0 +1,257 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpoint;
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpointRepository;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactBatchRepository;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.AppointmentFunnelRollupDelta;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.RollupGranularity;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * OutboxBatchProjector projects a whole batch of outbox events in one
+ * transaction: it decodes binary or JSON payloads into pooled holders,
+ * prefetches every touched fact with a single query, folds all events for
+ * the same appointment in memory (in outbox order), writes the results with
+ * one JDBC batch upsert, adds the resulting fact deltas to the
+ * minute/hour/day funnel rollups and saves the stream checkpoint.
+ */
+@Component
+public class OutboxBatchProjector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxBatchProjector.class);
+
+    private final AppointmentFunnelFactBatchRepository factBatchRepository;
+    private final AppointmentFunnelRollupRepository rollupRepository;
+    private final StreamCheckpointRepository checkpointRepository;
+    private final OutboxPayloadDecoder payloadDecoder;
+    private final ThreadLocal<List<AppointmentEventPayload>> payloadPool = ThreadLocal.withInitial(ArrayList::new);
+
+    public OutboxBatchProjector(AppointmentFunnelFactBatchRepository factBatchRepository,
+                                AppointmentFunnelRollupRepository rollupRepository,
+                                StreamCheckpointRepository checkpointRepository,
+                                ObjectMapper objectMapper) {
+        this.factBatchRepository = factBatchRepository;
+        this.rollupRepository = rollupRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.payloadDecoder = new OutboxPayloadDecoder(objectMapper.getFactory());
+    }
+
+    /**
+     * Projects the batch and saves the checkpoint atomically. The returned
+     * changes must only be applied to in-memory aggregates once this method
+     * has returned, i.e. after the transaction committed.
+     */
+    @Transactional
+    public List<FactChange> projectAndCheckpoint(List<AppOutboxEvent> batch, StreamCheckpoint checkpoint) {
+        List<FactChange> changes = project(batch, factBatchRepository, rollupRepository);
+        checkpointRepository.save(checkpoint);
+        return changes;
+    }
+
+    /**
+     * Projects the batch into the given fact and rollup tables without
+     * touching any checkpoint; used by a reprojection to bring its shadow
+     * tables up to date.
+     */
+    @Transactional
+    public List<FactChange> projectInto(List<AppOutboxEvent> batch,
+                                        AppointmentFunnelFactBatchRepository facts,
+                                        AppointmentFunnelRollupRepository rollups) {
+        return project(batch, facts, rollups);
+    }
+
+    private List<FactChange> project(List<AppOutboxEvent> batch,
+                                     AppointmentFunnelFactBatchRepository facts,
+                                     AppointmentFunnelRollupRepository rollups) {
+        List<AppointmentEventPayload> decoded = decode(batch);
+
+        Set<Long> appointmentIds = new LinkedHashSet<>();
+        for (AppointmentEventPayload event : decoded) {
+            appointmentIds.add(event.getAppointmentId());
+        }
+
+        Map<Long, AppointmentFunnelFact> working = new LinkedHashMap<>();
+        Map<Long, AppointmentFunnelContribution> before = new LinkedHashMap<>();
+        for (AppointmentFunnelFact existing : facts.findAllByAppointmentIds(appointmentIds)) {
+            working.put(existing.getAppointmentId(), existing);
+            before.put(existing.getAppointmentId(), AppointmentFunnelContribution.of(existing));
+        }
+
+        for (AppointmentEventPayload event : decoded) {
+            applyEvent(working.computeIfAbsent(event.getAppointmentId(), id -> new AppointmentFunnelFact()), event);
+        }
+
+        List<AppointmentFunnelFact> writable = new ArrayList<>(working.size());
+        List<FactChange> changes = new ArrayList<>(working.size());
+        for (AppointmentFunnelFact fact : working.values()) {
+            if (!isWritable(fact)) {
+                LOGGER.warn("Skipping incomplete appointment funnel fact appointmentId={} (no scheduling event seen)",
+                        fact.getAppointmentId());
+                continue;
+            }
+            writable.add(fact);
+            changes.add(new FactChange(before.get(fact.getAppointmentId()), AppointmentFunnelContribution.of(fact)));
+        }
+
+        facts.upsertAll(writable);
+        rollups.applyDeltas(rollupDeltas(changes));
+        return changes;
+    }
+
+    static Collection<AppointmentFunnelRollupDelta> rollupDeltas(List<FactChange> changes) {
+        Map<RollupKey, AppointmentFunnelRollupDelta> deltas = new HashMap<>();
+        for (FactChange change : changes) {
+            addToRollups(deltas, change.before(), -1);
+            addToRollups(deltas, change.after(), 1);
+        }
+        deltas.values().removeIf(AppointmentFunnelRollupDelta::isZero);
+        return deltas.values();
+    }
+
+    private static void addToRollups(Map<RollupKey, AppointmentFunnelRollupDelta> deltas,
+                              AppointmentFunnelContribution contribution,
+                              int sign) {
+        if (contribution == null || contribution.scheduledAt() == null) {
+            return;
+        }
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Instant bucketStart = granularity.bucketStart(contribution.scheduledAt());
+            RollupKey key = new RollupKey(granularity, contribution.organizationId(), contribution.clinicId(), bucketStart);
+            deltas.computeIfAbsent(key, k -> new AppointmentFunnelRollupDelta(
+                    granularity, contribution.organizationId(), contribution.clinicId(), bucketStart))
+                    .add(contribution, sign);
+        }
+    }
+
+    /**
+     * Decodes the appointment events of a batch into this thread's pooled
+     * payload holders; the returned list is only valid until the next batch.
+     */
+    private List<AppointmentEventPayload> decode(List<AppOutboxEvent> batch) {
+        List<AppointmentEventPayload> pool = payloadPool.get();
+        int decoded = 0;
+        for (AppOutboxEvent event : batch) {
+            String eventType = event.getEventType();
+            boolean completed = "APPOINTMENT_COMPLETED".equals(eventType);
+            if (!completed && !"APPOINTMENT_SCHEDULED".equals(eventType)) {
+                continue;
+            }
+            if (decoded == pool.size()) {
+                pool.add(new AppointmentEventPayload());
+            }
+            AppointmentEventPayload payload = pool.get(decoded);
+            try {
+                if (event.getEventPayloadBinary() != null) {
+                    payloadDecoder.decode(event.getEventPayloadBinary(), payload);
+                } else {
+                    payloadDecoder.decode(event.getEventPayload(), payload);
+                }
+            } catch (Exception e) {
+                LOGGER.warn("Failed to project outbox event id={} type={}", event.getId(), eventType, e);
+                continue;
+            }
+            if (payload.getAppointmentId() == 0L) {
+                LOGGER.warn("Skipping outbox event id={} type={} without appointmentId", event.getId(), eventType);
+                continue;
+            }
+            payload.setEvent(event.getId(), completed);
+            decoded++;
+        }
+        return pool.subList(0, decoded);
+    }
+
+    /**
+     * Folds one decoded event into the fact; an event that cannot be applied
+     * is logged and leaves the fact as it was.
+     */
+    static void applyEvent(AppointmentFunnelFact fact, AppointmentEventPayload event) {
+        try {
+            if (event.isCompletedEvent()) {
+                applyAppointmentCompleted(fact, event);
+            } else {
+                applyAppointmentScheduled(fact, event);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to project outbox event id={} completed={}", event.getEventId(), event.isCompletedEvent(), e);
+        }
+    }
+
+    private static void applyAppointmentScheduled(AppointmentFunnelFact fact, AppointmentEventPayload payload) {
+        // Validate before mutating so an incomplete payload leaves the fact untouched.
+        long organizationId = required(payload.getOrganizationId(), "organizationId");
+        long clinicId = required(payload.getClinicId(), "clinicId");
+        long patientId = required(payload.getPatientId(), "patientId");
+        long scheduledAt = payload.getScheduledAtEpochSecond();
+
+        fact.setAppointmentId(payload.getAppointmentId());
+        fact.setOrganizationId(organizationId);
+        fact.setClinicId(clinicId);
+        fact.setPatientId(patientId);
+        fact.setModality(payload.getModality());
+        fact.setScheduledAtEpochSecond(scheduledAt != AppointmentEventPayload.ABSENT ? scheduledAt : 0L);
+        fact.setStatus(payload.getStatus());
+    }
+
+    private static void applyAppointmentCompleted(AppointmentFunnelFact fact, AppointmentEventPayload payload) {
+        long scheduledAt = payload.getScheduledAtEpochSecond();
+        long startedAt = payload.getStartedAtEpochSecond();
+        long completedAt = payload.getCompletedAtEpochSecond();
+
+        fact.setAppointmentId(payload.getAppointmentId());
+        if (fact.getScheduledAtEpochSecond() == 0L && scheduledAt != AppointmentEventPayload.ABSENT) {
+            fact.setScheduledAtEpochSecond(scheduledAt);
+        }
+        fact.setStartedAtEpochSecond(startedAt != AppointmentEventPayload.ABSENT ? startedAt : null);
+        fact.setCompletedAtEpochSecond(completedAt != AppointmentEventPayload.ABSENT ? completedAt : null);
+        fact.setStatus(payload.getStatus());
+
+        Long scheduledToStart = payload.secondsBetween(AppointmentEventPayload.SCHEDULED_AT, AppointmentEventPayload.STARTED_AT);
+        if (scheduledToStart != null) {
+            fact.setScheduledToStartSeconds(scheduledToStart);
+        }
+        Long startToComplete = payload.secondsBetween(AppointmentEventPayload.STARTED_AT, AppointmentEventPayload.COMPLETED_AT);
+        if (startToComplete != null) {
+            fact.setStartToCompleteSeconds(startToComplete);
+        }
+    }
+
+    static boolean isWritable(AppointmentFunnelFact fact) {
+        return fact.getOrganizationId() != 0
+                && fact.getClinicId() != 0
+                && fact.getPatientId() != 0
+                && fact.getScheduledAtEpochSecond() != 0
+                && fact.getStatus() != AppointmentFunnelCodes.UNKNOWN;
+    }
+
+    private static long required(long id, String field) {
+        if (id == 0L) {
+            throw new IllegalArgumentException("Missing " + field);
+        }
+        return id;
+    }
+
+    private record RollupKey(RollupGranularity granularity, String organizationId, String clinicId, Instant bucketStart) {
+    }
+
+    public record FactChange(AppointmentFunnelContribution before, AppointmentFunnelContribution after) {
+    }
+}
@@ -1,37 +1,69 @@
 package dev.healthcare.analytics.platform.streampipeline;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpoint;
 import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpointRepository;
-import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
-import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactRepository;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelChangedEvent;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelTenant;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.AppointmentFunnelHotWindowStore;
 import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
 import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEventRepository;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * OutboxEventStreamProcessor is the core Kappa stream processor.
  * It reads new events from the transactional app.outbox_event stream
  * and projects them into analytics.fact tables and aggregates.
+ *
+ * The outbox is split into hash partitions of aggregate_id. Each partition is
+ * consumed by its own worker thread with its own checkpoint row, so events of
+ * one appointment stay ordered while partitions are projected in parallel.
+ * Ids skipped below a partition's high-water mark are kept as pending gaps on
+ * its checkpoint and re-checked for gap-timeout-seconds, so rows from slower
+ * concurrent transactions are still projected once they commit.
+ * Workers are woken immediately by {@link #wakeUp()} when new outbox rows are
+ * committed and otherwise fall back to polling every outbox-poll-interval-ms.
+ * When platform.stream-pipeline.source is logical-replication the workers stay
+ * idle and batches arrive through {@link #projectBatch} instead.
  */
 @Component
+// Rollups must be backfilled from existing facts before the first batch is projected.
+@DependsOn("appointmentFunnelRollupMaintenance")
 public class OutboxEventStreamProcessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OutboxEventStreamProcessor.class);
@@ -40,138 +72,355 @@ public class OutboxEventStreamProcessor {
 
     private final AppOutboxEventRepository outboxEventRepository;
     private final StreamCheckpointRepository checkpointRepository;
-    private final AppointmentFunnelFactRepository appointmentFunnelFactRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxBatchProjector batchProjector;
+    private final AppointmentFunnelAggregateStore aggregateStore;
+    private final AppointmentFunnelHotWindowStore hotWindowStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate snapshotReads;
 
     private final Counter eventsProcessedCounter;
+    private final Counter gapsRecoveredCounter;
+    private final Counter gapsExpiredCounter;
+    private final Timer commitToProjectionTimer;
     private final AtomicLong outboxLagSeconds = new AtomicLong(0L);
 
     private final int outboxBatchSize;
+    private final long outboxPollIntervalMillis;
+    private final int partitionCount;
+    private final String source;
+
+    private final long gapTimeoutSeconds;
+    private final int maxTrackedGaps;
+
+    // Batches project under the read lock; a reprojection swap takes the write lock.
+    private final ReadWriteLock projectionLock = new ReentrantReadWriteLock();
+
+    private final Semaphore[] partitionWakeups;
+    private final AtomicLongArray partitionPendingGaps;
+
+    private long initialCheckpointId;
+    private ExecutorService executorService;
 
     public OutboxEventStreamProcessor(AppOutboxEventRepository outboxEventRepository,
                                       StreamCheckpointRepository checkpointRepository,
-                                      AppointmentFunnelFactRepository appointmentFunnelFactRepository,
-                                      ObjectMapper objectMapper,
+                                      OutboxBatchProjector batchProjector,
+                                      AppointmentFunnelAggregateStore aggregateStore,
+                                      AppointmentFunnelHotWindowStore hotWindowStore,
+                                      ApplicationEventPublisher eventPublisher,
+                                      PlatformTransactionManager transactionManager,
                                       MeterRegistry meterRegistry,
-                                      @Value("${platform.stream-pipeline.outbox-batch-size:500}") int outboxBatchSize) {
+                                      @Value("${platform.stream-pipeline.outbox-batch-size:500}") int outboxBatchSize,
+                                      @Value("${platform.stream-pipeline.outbox-poll-interval-ms:1000}") long outboxPollIntervalMillis,
+                                      @Value("${platform.stream-pipeline.partition-count:1}") int partitionCount,
+                                      @Value("${platform.stream-pipeline.source:polling}") String source,
+                                      @Value("${platform.stream-pipeline.gap-timeout-seconds:60}") long gapTimeoutSeconds,
+                                      @Value("${platform.stream-pipeline.max-tracked-gaps:10000}") int maxTrackedGaps) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("platform.stream-pipeline.partition-count must be at least 1");
+        }
         this.outboxEventRepository = outboxEventRepository;
         this.checkpointRepository = checkpointRepository;
-        this.appointmentFunnelFactRepository = appointmentFunnelFactRepository;
-        this.objectMapper = objectMapper;
+        this.batchProjector = batchProjector;
+        this.aggregateStore = aggregateStore;
+        this.hotWindowStore = hotWindowStore;
+        this.eventPublisher = eventPublisher;
+        this.snapshotReads = new TransactionTemplate(transactionManager);
+        this.snapshotReads.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotReads.setReadOnly(true);
         this.outboxBatchSize = outboxBatchSize;
+        this.outboxPollIntervalMillis = outboxPollIntervalMillis;
+        this.partitionCount = partitionCount;
+        this.source = source;
+        this.gapTimeoutSeconds = gapTimeoutSeconds;
+        this.maxTrackedGaps = maxTrackedGaps;
+        this.partitionPendingGaps = new AtomicLongArray(partitionCount);
+        this.partitionWakeups = new Semaphore[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitionWakeups[i] = new Semaphore(0);
+        }
 
         this.eventsProcessedCounter = meterRegistry.counter("platform.outbox.events.processed");
+        this.gapsRecoveredCounter = meterRegistry.counter("platform.outbox.gaps.recovered");
+        this.gapsExpiredCounter = meterRegistry.counter("platform.outbox.gaps.expired");
+        Gauge.builder("platform.outbox.gaps.pending", partitionPendingGaps, OutboxEventStreamProcessor::sum)
+                .description("Outbox ids below the checkpoint that are still awaited from in-flight transactions")
+                .register(meterRegistry);
         Gauge.builder("platform.outbox.lag.seconds", outboxLagSeconds, AtomicLong::get)
                 .description("Approximate lag between latest outbox event time and now")
                 .register(meterRegistry);
+        this.commitToProjectionTimer = Timer.builder("platform.outbox.commit_to_projection.latency")
+                .description("Time from outbox event creation to its projection being committed to analytics")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    @Scheduled(fixedDelayString = "${platform.stream-pipeline.outbox-poll-interval-ms:1000}")
-    public void pollAndProjectOutboxEvents() {
-        StreamCheckpoint checkpoint = checkpointRepository.findById(STREAM_NAME)
-                .orElseGet(() -> new StreamCheckpoint(STREAM_NAME, 0L));
+    @PostConstruct
+    public void start() {
+        // A partition without its own checkpoint yet (first start, or a changed partition
+        // count) resumes from the slowest existing checkpoint; re-projection is idempotent.
+        this.initialCheckpointId = checkpointRepository.findByStreamNameStartingWith(STREAM_NAME).stream()
+                .mapToLong(StreamCheckpoint::getLastProcessedEventId)
+                .min()
+                .orElse(0L);
 
-        long lastProcessedId = checkpoint.getLastProcessedEventId();
-        Pageable pageRequest = PageRequest.of(0, outboxBatchSize, Sort.by("id").ascending());
-        List<AppOutboxEvent> batch = outboxEventRepository.findByIdGreaterThanOrderByIdAsc(lastProcessedId, pageRequest);
-        if (batch.isEmpty()) {
+        if (!"polling".equals(source)) {
+            LOGGER.info("Outbox source is '{}'; polling partition consumers will not start", source);
             return;
         }
 
-        long highestSeenId = lastProcessedId;
-        Instant maxEventTime = null;
-        for (AppOutboxEvent event : batch) {
-            highestSeenId = Math.max(highestSeenId, event.getId());
-            projectOutboxEvent(event);
-            eventsProcessedCounter.increment();
-            if (event.getEventTime() != null && (maxEventTime == null || event.getEventTime().isAfter(maxEventTime))) {
-                maxEventTime = event.getEventTime();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(partitionCount,
+                runnable -> new Thread(DatabaseWorkload.STREAM.wrap(runnable), "outbox-partition-" + threadIndex.getAndIncrement()));
+        for (int i = 0; i < partitionCount; i++) {
+            final int partitionIndex = i;
+            executorService.submit(() -> partitionLoop(partitionIndex));
+        }
+        LOGGER.info("Started {} outbox partition consumer(s) from checkpoint {}", partitionCount, initialCheckpointId);
+    }
+
+    private void partitionLoop(int partitionIndex) {
+        while (!Thread.currentThread().isInterrupted()) {
+            int projected = 0;
+            try {
+                projected = pollAndProjectPartition(partitionIndex);
+            } catch (Exception ex) {
+                LOGGER.warn("Outbox partition {} failed to project batch; retrying after poll interval", partitionIndex, ex);
+            }
+
+            // A full batch means the partition is behind: keep draining without waiting.
+            if (projected >= outboxBatchSize) {
+                continue;
+            }
+            try {
+                Semaphore wakeup = partitionWakeups[partitionIndex];
+                wakeup.tryAcquire(outboxPollIntervalMillis, TimeUnit.MILLISECONDS);
+                wakeup.drainPermits();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
             }
         }
+        LOGGER.info("Outbox partition consumer {} stopped", partitionIndex);
+    }
 
-        if (maxEventTime != null) {
-            long lag = ChronoUnit.SECONDS.between(maxEventTime, Instant.now());
-            outboxLagSeconds.set(Math.max(lag, 0L));
+    /**
+     * Wakes every partition worker that is waiting for its next poll.
+     */
+    public void wakeUp() {
+        for (Semaphore wakeup : partitionWakeups) {
+            if (wakeup.availablePermits() == 0) {
+                wakeup.release();
+            }
+        }
+    }
+
+    int pollAndProjectPartition(int partitionIndex) {
+        String streamName = checkpointName(partitionIndex);
+        StreamCheckpoint checkpoint = checkpointRepository.findById(streamName)
+                .orElseGet(() -> new StreamCheckpoint(streamName, initialCheckpointId));
+
+        long lastProcessedId = checkpoint.getLastProcessedEventId();
+        OutboxSequenceGaps gaps = OutboxSequenceGaps.parse(checkpoint.getPendingGaps());
+        long trackedGapsBefore = gaps.size();
+        long nowEpochSecond = Instant.now().getEpochSecond();
+
+        List<AppOutboxEvent> recovered = recheckGaps(gaps, partitionIndex, nowEpochSecond);
+
+        // The batch and the ids missing below its highest id are read from one snapshot: a row
+        // committed between two autocommit reads would be neither in the batch nor reported missing,
+        // and the checkpoint would move past it.
+        List<AppOutboxEvent> batch = snapshotReads.execute(
+                status -> readBatchAndTrackGaps(gaps, lastProcessedId, partitionIndex, nowEpochSecond));
+        long highestSeenId = highestId(batch, lastProcessedId);
+        partitionPendingGaps.set(partitionIndex, gaps.size());
+
+        if (batch.isEmpty() && recovered.isEmpty() && gaps.size() == trackedGapsBefore) {
+            return 0;
         }
 
+        List<AppOutboxEvent> combined = new ArrayList<>(recovered.size() + batch.size());
+        combined.addAll(recovered);
+        combined.addAll(batch);
+        combined.sort(Comparator.comparing(AppOutboxEvent::getId));
+
         checkpoint.setLastProcessedEventId(highestSeenId);
-        checkpointRepository.save(checkpoint);
-        LOGGER.debug("Projected {} outbox events into analytics (checkpoint={})", batch.size(), highestSeenId);
+        checkpoint.setPendingGaps(gaps.format());
+        projectBatch(combined, checkpoint);
+
+        LOGGER.debug("Projected {} outbox events of partition {} into analytics (checkpoint={}, recovered={}, pendingGaps={})",
+                combined.size(), partitionIndex, highestSeenId, recovered.size(), gaps.size());
+        return batch.size();
     }
 
-    private void projectOutboxEvent(AppOutboxEvent event) {
-        try {
-            JsonNode root = objectMapper.readTree(event.getEventPayload());
-            String eventType = event.getEventType();
+    private List<AppOutboxEvent> readBatchAndTrackGaps(OutboxSequenceGaps gaps, long lastProcessedId,
+                                                       int partitionIndex, long nowEpochSecond) {
+        List<AppOutboxEvent> batch = outboxEventRepository.findPartitionBatchAfter(
+                lastProcessedId, partitionIndex, partitionCount, outboxBatchSize);
+        long highestSeenId = highestId(batch, lastProcessedId);
 
-            if ("APPOINTMENT_SCHEDULED".equals(eventType)) {
-                applyAppointmentScheduled(root);
-            } else if ("APPOINTMENT_COMPLETED".equals(eventType)) {
-                applyAppointmentCompleted(root);
-            }
-        } catch (Exception e) {
-            LOGGER.warn("Failed to project outbox event id={} type={}", event.getId(), event.getEventType(), e);
+        // Ids skipped between the old and new high-water mark are in-flight (or rolled back)
+        // transactions. A fresh consumer has nothing below its mark worth tracking.
+        if (highestSeenId > lastProcessedId + 1 && lastProcessedId > 0) {
+            trackNewGaps(gaps, lastProcessedId + 1, highestSeenId - 1, partitionIndex, nowEpochSecond);
+        }
+        return batch;
+    }
+
+    private static long highestId(List<AppOutboxEvent> batch, long lastProcessedId) {
+        long highestSeenId = lastProcessedId;
+        for (AppOutboxEvent event : batch) {
+            highestSeenId = Math.max(highestSeenId, event.getId());
         }
+        return highestSeenId;
     }
 
-    private void applyAppointmentScheduled(JsonNode root) {
-        String appointmentId = asString(root, "appointmentId");
-        String organizationId = asString(root, "organizationId");
-        String clinicId = asString(root, "clinicId");
-        String patientId = asString(root, "patientId");
-        String modality = asString(root, "modality");
-        Instant scheduledAt = asInstant(root, "scheduledAt");
-        String status = asString(root, "status");
+    private List<AppOutboxEvent> recheckGaps(OutboxSequenceGaps gaps, int partitionIndex, long nowEpochSecond) {
+        long expired = gaps.expireFirstSeenBefore(nowEpochSecond - gapTimeoutSeconds);
+        if (expired > 0) {
+            gapsExpiredCounter.increment(expired);
+            LOGGER.info("Outbox partition {} gave up on {} sequence gap(s) after {}s; treating them as rolled back",
+                    partitionIndex, expired, gapTimeoutSeconds);
+        }
+        if (gaps.isEmpty()) {
+            return List.of();
+        }
 
-        AppointmentFunnelFact fact = appointmentFunnelFactRepository.findById(appointmentId)
-                .orElseGet(AppointmentFunnelFact::new);
+        List<Long> visibleIds = outboxEventRepository.findExistingIdsInRanges(gaps.rangeStarts(), gaps.rangeEnds());
+        if (visibleIds.isEmpty()) {
+            return List.of();
+        }
+        // Every visible id is resolved; only those hashed to this partition are ours to project.
+        gaps.remove(visibleIds);
+        List<AppOutboxEvent> recovered = outboxEventRepository.findPartitionEventsByIdIn(
+                visibleIds, partitionIndex, partitionCount);
+        gapsRecoveredCounter.increment(recovered.size());
+        return recovered;
+    }
 
-        fact.setAppointmentId(appointmentId);
-        fact.setOrganizationId(organizationId);
-        fact.setClinicId(clinicId);
-        fact.setPatientId(patientId);
-        fact.setModality(modality);
-        fact.setScheduledAt(scheduledAt);
-        fact.setStatus(status);
+    private void trackNewGaps(OutboxSequenceGaps gaps, long fromId, long toId, int partitionIndex, long nowEpochSecond) {
+        int capacity = (int) Math.max(0L, maxTrackedGaps - gaps.size());
+        List<Long> missing = outboxEventRepository.findMissingIdsBetween(fromId, toId, capacity + 1);
+        if (missing.size() > capacity) {
+            LOGGER.warn("Outbox partition {} is tracking {} gaps (limit {}); ids missing in [{}, {}] beyond the limit are treated as rolled back",
+                    partitionIndex, gaps.size(), maxTrackedGaps, fromId, toId);
+            missing = missing.subList(0, capacity);
+        }
+        gaps.addMissing(missing, nowEpochSecond);
+    }
 
-        appointmentFunnelFactRepository.save(fact);
+    /**
+     * Projects a batch read by any outbox source and commits it together with the
+     * given checkpoint, then applies the committed fact changes to the in-memory
+     * aggregates, announces the changed tenants and records stream metrics.
+     */
+    public void projectBatch(List<AppOutboxEvent> batch, StreamCheckpoint checkpoint) {
+        projectionLock.readLock().lock();
+        try {
+            projectAndPublish(batch, checkpoint);
+        } finally {
+            projectionLock.readLock().unlock();
+        }
     }
 
-    private void applyAppointmentCompleted(JsonNode root) {
-        String appointmentId = asString(root, "appointmentId");
-        Instant scheduledAt = asInstant(root, "scheduledAt");
-        Instant startedAt = asInstant(root, "startedAt");
-        Instant completedAt = asInstant(root, "completedAt");
-        String status = asString(root, "status");
+    private void projectAndPublish(List<AppOutboxEvent> batch, StreamCheckpoint checkpoint) {
+        Instant maxEventTime = null;
+        for (AppOutboxEvent event : batch) {
+            if (event.getEventTime() != null && (maxEventTime == null || event.getEventTime().isAfter(maxEventTime))) {
+                maxEventTime = event.getEventTime();
+            }
+        }
+
+        // Fact upserts and the checkpoint commit together; aggregates and the hot window follow only after the commit.
+        List<OutboxBatchProjector.FactChange> changes = batchProjector.projectAndCheckpoint(batch, checkpoint);
+        Set<AppointmentFunnelTenant> changedTenants = new HashSet<>();
+        for (OutboxBatchProjector.FactChange change : changes) {
+            aggregateStore.replace(change.before(), change.after());
+            hotWindowStore.replace(change.before(), change.after());
+            addTenant(changedTenants, change.before());
+            addTenant(changedTenants, change.after());
+        }
+        if (!changedTenants.isEmpty()) {
+            eventPublisher.publishEvent(new AppointmentFunnelChangedEvent(Set.copyOf(changedTenants)));
+        }
+        eventsProcessedCounter.increment(batch.size());
+
+        Instant projectedAt = Instant.now();
+        for (AppOutboxEvent event : batch) {
+            if (event.getCreatedAt() != null) {
+                commitToProjectionTimer.record(Duration.between(event.getCreatedAt(), projectedAt));
+            }
+        }
+
+        if (maxEventTime != null) {
+            long lag = ChronoUnit.SECONDS.between(maxEventTime, projectedAt);
+            outboxLagSeconds.set(Math.max(lag, 0L));
+        }
+    }
 
-        AppointmentFunnelFact fact = appointmentFunnelFactRepository.findById(appointmentId)
-                .orElseGet(AppointmentFunnelFact::new);
+    private static void addTenant(Set<AppointmentFunnelTenant> tenants, AppointmentFunnelContribution contribution) {
+        if (contribution != null) {
+            tenants.add(new AppointmentFunnelTenant(contribution.organizationId(), contribution.clinicId()));
+            tenants.add(new AppointmentFunnelTenant(contribution.organizationId(), AppointmentFunnelAggregateStore.ALL_CLINICS));
+        }
+    }
 
-        fact.setAppointmentId(appointmentId);
-        if (fact.getScheduledAt() == null) {
-            fact.setScheduledAt(scheduledAt);
+    /**
+     * Runs the action once every batch in flight has been projected, holding
+     * back further batches of all sources until it returns. Used to swap in
+     * a reprojected fact table.
+     */
+    <T> T whileProjectionPaused(Callable<T> action) throws Exception {
+        projectionLock.writeLock().lock();
+        try {
+            return action.call();
+        } finally {
+            projectionLock.writeLock().unlock();
         }
-        fact.setStartedAt(startedAt);
-        fact.setCompletedAt(completedAt);
-        fact.setStatus(status);
+    }
 
-        if (scheduledAt != null && startedAt != null) {
-            fact.setScheduledToStartSeconds(Duration.between(scheduledAt, startedAt).getSeconds());
+    /**
+     * Polls every partition until it is drained. Used by the logical replication
+     * source to catch up on rows committed before its slot existed.
+     */
+    public void drainPolledPartitions() {
+        for (int i = 0; i < partitionCount; i++) {
+            while (pollAndProjectPartition(i) >= outboxBatchSize) {
+                // keep draining this partition
+            }
         }
-        if (startedAt != null && completedAt != null) {
-            fact.setStartToCompleteSeconds(Duration.between(startedAt, completedAt).getSeconds());
+    }
+
+    private static double sum(AtomicLongArray values) {
+        long total = 0;
+        for (int i = 0; i < values.length(); i++) {
+            total += values.get(i);
         }
+        return total;
+    }
 
-        appointmentFunnelFactRepository.save(fact);
+    /**
+     * Checkpoint rows of the configured partition count; rows left behind by
+     * an earlier partition count are no longer advanced and are not included.
+     */
+    List<String> checkpointNames() {
+        List<String> names = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            names.add(checkpointName(i));
+        }
+        return names;
     }
 
-    private String asString(JsonNode root, String field) {
-        JsonNode node = root.get(field);
-        return node != null && !node.isNull() ? node.asText() : null;
+    private String checkpointName(int partitionIndex) {
+        // A single partition keeps the original checkpoint row so existing deployments resume in place.
+        if (partitionCount == 1) {
+            return STREAM_NAME;
+        }
+        return STREAM_NAME + ".p" + partitionIndex + "of" + partitionCount;
     }
 
-    private Instant asInstant(JsonNode root, String field) {
-        String value = asString(root, field);
-        return value != null ? Instant.parse(value) : null;
+    @PreDestroy
+    public void shutdown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
     }
 }
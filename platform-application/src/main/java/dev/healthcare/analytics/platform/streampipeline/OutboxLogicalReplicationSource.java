@@ -0,0 +1,326 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpoint;
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpointRepository;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * OutboxLogicalReplicationSource is an alternative to polling: it streams
+ * app.outbox_event inserts from a pgoutput logical replication slot in commit
+ * order, so a transaction that took a lower id but committed later can never
+ * be skipped, and the primary sees no polling queries.
+ *
+ * Events are projected per whole committed transaction. The commit end LSN of
+ * the last projected transaction is stored as the stream checkpoint's
+ * confirmed LSN inside the projection transaction and only then acknowledged
+ * to the slot; transactions at or below the stored LSN are dropped on
+ * redelivery, which keeps the projection exactly-once across restarts.
+ *
+ * Requires wal_level=logical (see docker-compose.yml).
+ */
+@Component
+@ConditionalOnProperty(prefix = "platform.stream-pipeline", name = "source", havingValue = "logical-replication")
+public class OutboxLogicalReplicationSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxLogicalReplicationSource.class);
+
+    static final String STREAM_NAME = "outbox_wal_to_appointment_funnel";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000L;
+    private static final long IDLE_WAIT_MILLIS = 10L;
+
+    private final OutboxEventStreamProcessor streamProcessor;
+    private final StreamCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final String slotName;
+    private final String publicationName;
+    private final int batchSize;
+
+    private volatile Connection replicationConnection;
+    private Thread replicationThread;
+
+    public OutboxLogicalReplicationSource(OutboxEventStreamProcessor streamProcessor,
+                                          StreamCheckpointRepository checkpointRepository,
+                                          JdbcTemplate jdbcTemplate,
+                                          @Value("${spring.datasource.url}") String jdbcUrl,
+                                          @Value("${spring.datasource.username}") String username,
+                                          @Value("${spring.datasource.password}") String password,
+                                          @Value("${platform.stream-pipeline.logical-replication.slot-name:outbox_event_slot}") String slotName,
+                                          @Value("${platform.stream-pipeline.logical-replication.publication-name:outbox_event_publication}") String publicationName,
+                                          @Value("${platform.stream-pipeline.outbox-batch-size:500}") int batchSize) {
+        if (!IDENTIFIER.matcher(slotName).matches() || !IDENTIFIER.matcher(publicationName).matches()) {
+            throw new IllegalArgumentException("Replication slot and publication names must be lower-case SQL identifiers");
+        }
+        this.streamProcessor = streamProcessor;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.slotName = slotName;
+        this.publicationName = publicationName;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        replicationThread = new Thread(DatabaseWorkload.STREAM.wrap(this::replicationLoop), "outbox-logical-replication");
+        replicationThread.setDaemon(true);
+        replicationThread.start();
+    }
+
+    private void replicationLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (ensurePublicationAndSlot()) {
+                    // Rows committed before the slot existed are not in its stream; pick them
+                    // up once through the polling checkpoints. Overlap with the slot is harmless.
+                    streamProcessor.drainPolledPartitions();
+                }
+                streamCommittedTransactions();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (Exception ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                LOGGER.warn("Outbox logical replication stream failed; reconnecting in {} ms", RECONNECT_BACKOFF_MILLIS, ex);
+                closeQuietly();
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        closeQuietly();
+        LOGGER.info("Outbox logical replication source stopped");
+    }
+
+    private boolean ensurePublicationAndSlot() {
+        Integer publications = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_publication WHERE pubname = ?", Integer.class, publicationName);
+        if (publications == null || publications == 0) {
+            // The outbox is range-partitioned; publish inserts under the parent's name.
+            jdbcTemplate.execute("CREATE PUBLICATION " + publicationName
+                    + " FOR TABLE app.outbox_event WITH (publish_via_partition_root = true)");
+            LOGGER.info("Created publication {} for app.outbox_event", publicationName);
+        } else {
+            publishPartitionedOutbox();
+        }
+
+        Integer slots = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_replication_slots WHERE slot_name = ?", Integer.class, slotName);
+        if (slots != null && slots > 0) {
+            return false;
+        }
+        jdbcTemplate.queryForObject("SELECT slot_name FROM pg_create_logical_replication_slot(?, 'pgoutput')",
+                String.class, slotName);
+        LOGGER.info("Created logical replication slot {}", slotName);
+        return true;
+    }
+
+    /**
+     * A publication created before the outbox was partitioned still points at
+     * the table that became its legacy partition; repoint it at the parent.
+     */
+    private void publishPartitionedOutbox() {
+        Boolean current = jdbcTemplate.queryForObject("""
+                SELECT p.pubviaroot AND EXISTS (
+                    SELECT 1 FROM pg_publication_rel r
+                    WHERE r.prpubid = p.oid AND r.prrelid = 'app.outbox_event'::regclass)
+                FROM pg_publication p WHERE p.pubname = ?
+                """, Boolean.class, publicationName);
+        if (Boolean.TRUE.equals(current)) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER PUBLICATION " + publicationName + " SET TABLE app.outbox_event");
+        jdbcTemplate.execute("ALTER PUBLICATION " + publicationName + " SET (publish_via_partition_root = true)");
+        LOGGER.info("Repointed publication {} at the partitioned app.outbox_event", publicationName);
+    }
+
+    private void streamCommittedTransactions() throws SQLException, InterruptedException {
+        StreamCheckpoint checkpoint = checkpointRepository.findById(STREAM_NAME)
+                .orElseGet(() -> new StreamCheckpoint(STREAM_NAME, 0L));
+
+        replicationConnection = openReplicationConnection();
+        PGReplicationStream stream = replicationConnection.unwrap(PGConnection.class)
+                .getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(slotName)
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", publicationName)
+                .withStatusInterval(10, TimeUnit.SECONDS)
+                .start();
+        LOGGER.info("Streaming outbox inserts from slot {} (checkpoint LSN {})",
+                slotName, LogSequenceNumber.valueOf(checkpoint.getConfirmedLsn()).asString());
+
+        PgOutputMessageDecoder decoder = new PgOutputMessageDecoder();
+        List<AppOutboxEvent> transactionEvents = new ArrayList<>();
+        List<AppOutboxEvent> pending = new ArrayList<>();
+        long lastCommitEndLsn = checkpoint.getConfirmedLsn();
+
+        while (!Thread.currentThread().isInterrupted()) {
+            ByteBuffer message = stream.readPending();
+            if (message == null) {
+                if (!pending.isEmpty()) {
+                    flush(stream, pending, checkpoint, lastCommitEndLsn);
+                }
+                TimeUnit.MILLISECONDS.sleep(IDLE_WAIT_MILLIS);
+                continue;
+            }
+
+            PgOutputMessageDecoder.Message decoded = decoder.decode(message);
+            if (decoded instanceof PgOutputMessageDecoder.Begin) {
+                transactionEvents.clear();
+            } else if (decoded instanceof PgOutputMessageDecoder.Insert insert && isOutboxTable(insert.relation())) {
+                transactionEvents.add(toOutboxEvent(insert.values()));
+            } else if (decoded instanceof PgOutputMessageDecoder.Commit commit) {
+                if (commit.endLsn() <= checkpoint.getConfirmedLsn()) {
+                    // Redelivered transaction that is already part of the committed projection.
+                    transactionEvents.clear();
+                    continue;
+                }
+                lastCommitEndLsn = commit.endLsn();
+                pending.addAll(transactionEvents);
+                transactionEvents.clear();
+
+                if (pending.isEmpty()) {
+                    acknowledge(stream, lastCommitEndLsn);
+                } else if (pending.size() >= batchSize) {
+                    flush(stream, pending, checkpoint, lastCommitEndLsn);
+                }
+            }
+        }
+    }
+
+    private void flush(PGReplicationStream stream,
+                       List<AppOutboxEvent> pending,
+                       StreamCheckpoint checkpoint,
+                       long commitEndLsn) {
+        checkpoint.setConfirmedLsn(commitEndLsn);
+        streamProcessor.projectBatch(List.copyOf(pending), checkpoint);
+        acknowledge(stream, commitEndLsn);
+        LOGGER.debug("Projected {} outbox events from WAL (checkpoint LSN {})",
+                pending.size(), LogSequenceNumber.valueOf(commitEndLsn).asString());
+        pending.clear();
+    }
+
+    private void acknowledge(PGReplicationStream stream, long lsn) {
+        LogSequenceNumber acknowledged = LogSequenceNumber.valueOf(lsn);
+        stream.setAppliedLSN(acknowledged);
+        stream.setFlushedLSN(acknowledged);
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties properties = new Properties();
+        PGProperty.USER.set(properties, username);
+        PGProperty.PASSWORD.set(properties, password);
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(properties, "10");
+        PGProperty.REPLICATION.set(properties, "database");
+        PGProperty.PREFER_QUERY_MODE.set(properties, "simple");
+        return DriverManager.getConnection(jdbcUrl, properties);
+    }
+
+    private boolean isOutboxTable(PgOutputMessageDecoder.Relation relation) {
+        return "app".equals(relation.namespace()) && "outbox_event".equals(relation.name());
+    }
+
+    private AppOutboxEvent toOutboxEvent(Map<String, String> values) {
+        AppOutboxEvent event = new AppOutboxEvent();
+        event.setId(Long.parseLong(values.get("id")));
+        event.setAggregateType(values.get("aggregate_type"));
+        event.setAggregateId(values.get("aggregate_id"));
+        event.setEventType(values.get("event_type"));
+        event.setEventPayload(values.get("event_payload"));
+        event.setEventPayloadBinary(parseBytea(values.get("event_payload_bin")));
+        event.setEventTime(parseTimestamp(values.get("event_time")));
+        event.setCreatedAt(parseTimestamp(values.get("created_at")));
+        event.setProcessedAt(parseTimestamp(values.get("processed_at")));
+        return event;
+    }
+
+    static byte[] parseBytea(String value) {
+        if (value == null) {
+            return null;
+        }
+        // pgoutput renders bytea in the hex text format, e.g. "\x0100...".
+        if (!value.startsWith("\\x")) {
+            throw new IllegalArgumentException("Unexpected bytea text format");
+        }
+        return HexFormat.of().parseHex(value, 2, value.length());
+    }
+
+    static Instant parseTimestamp(String value) {
+        if (value == null) {
+            return null;
+        }
+        // pgoutput renders timestamps in text form, e.g. "2024-05-01 10:15:30.123456+00".
+        String iso = value.replace(' ', 'T');
+        if (iso.matches(".*[+-]\\d{2}$")) {
+            iso = iso + ":00";
+        }
+        try {
+            return OffsetDateTime.parse(iso).toInstant();
+        } catch (DateTimeParseException e) {
+            // timestamp without time zone columns are written in UTC by the application.
+            return LocalDateTime.parse(iso).toInstant(ZoneOffset.UTC);
+        }
+    }
+
+    private void closeQuietly() {
+        Connection current = replicationConnection;
+        replicationConnection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+                // Connection is being discarded anyway.
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (replicationThread != null) {
+            replicationThread.interrupt();
+        }
+        closeQuietly();
+    }
+}
@@ -0,0 +1,119 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxEventPublisher;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * OutboxNotificationListener holds a dedicated PostgreSQL connection that
+ * LISTENs on the outbox channel and wakes the stream processor as soon as new
+ * outbox rows are committed. Fixed-interval polling remains as the fallback
+ * whenever the connection is down or a notification is missed.
+ *
+ * The connection is opened outside the Hikari pool on purpose: it is held for
+ * the lifetime of the application and would otherwise count as a leaked
+ * pooled connection.
+ */
+@Component
+@ConditionalOnExpression("${platform.stream-pipeline.notify.enabled:true} and '${platform.stream-pipeline.source:polling}' == 'polling'")
+public class OutboxNotificationListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxNotificationListener.class);
+
+    private static final int NOTIFICATION_WAIT_MILLIS = 5000;
+    private static final long RECONNECT_BACKOFF_MILLIS = 5000L;
+
+    private final OutboxEventStreamProcessor streamProcessor;
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+
+    private volatile Connection connection;
+    private Thread listenerThread;
+
+    public OutboxNotificationListener(OutboxEventStreamProcessor streamProcessor,
+                                      @Value("${spring.datasource.url}") String jdbcUrl,
+                                      @Value("${spring.datasource.username}") String username,
+                                      @Value("${spring.datasource.password}") String password) {
+        this.streamProcessor = streamProcessor;
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerThread = new Thread(this::listenLoop, "outbox-notify-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    private void listenLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                connection = DriverManager.getConnection(jdbcUrl, username, password);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + OutboxEventPublisher.NOTIFY_CHANNEL);
+                }
+                LOGGER.info("Listening for outbox notifications on channel {}", OutboxEventPublisher.NOTIFY_CHANNEL);
+
+                // Catch up on anything committed while we were not listening.
+                streamProcessor.wakeUp();
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (!Thread.currentThread().isInterrupted()) {
+                    PGNotification[] notifications = pgConnection.getNotifications(NOTIFICATION_WAIT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        streamProcessor.wakeUp();
+                    }
+                }
+            } catch (SQLException ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                LOGGER.warn("Outbox notification listener lost its connection; falling back to polling and reconnecting in {} ms",
+                        RECONNECT_BACKOFF_MILLIS, ex);
+                closeQuietly();
+                try {
+                    Thread.sleep(RECONNECT_BACKOFF_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        closeQuietly();
+        LOGGER.info("Outbox notification listener stopped");
+    }
+
+    private void closeQuietly() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+                // Connection is being discarded anyway.
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        closeQuietly();
+    }
+}
@@ -0,0 +1,303 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.appschema.outbox.AppointmentPayloadLayout;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.time.Instant;
+
+/**
+ * OutboxPayloadDecoder maps the known appointment event payloads straight
+ * from Jackson's streaming parser into an {@link AppointmentEventPayload},
+ * without building a JsonNode tree. Field names come back canonicalized from
+ * the parser, ids are read as longs, and status, modality and ISO-8601 UTC
+ * timestamps are decoded from the parser's character buffer, so a typical
+ * event allocates nothing beyond the parser itself.
+ *
+ * Timestamps in any other ISO-8601 form (an offset instead of Z, for example)
+ * fall back to {@link Instant#parse}. Unknown fields are skipped. Rows written
+ * by the binary codec are read straight from the {@link AppointmentPayloadLayout}
+ * bytes instead. Thread-safe.
+ */
+public final class OutboxPayloadDecoder {
+
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final JsonFactory jsonFactory;
+
+    public OutboxPayloadDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Resets target and fills it from the payload. Throws IOException for
+     * malformed JSON and IllegalArgumentException for malformed values.
+     */
+    public void decode(String json, AppointmentEventPayload target) throws IOException {
+        target.reset();
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Outbox payload is not a JSON object");
+            }
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "appointmentId" -> target.setAppointmentId(readId(parser, value));
+                    case "organizationId" -> target.setOrganizationId(readId(parser, value));
+                    case "clinicId" -> target.setClinicId(readId(parser, value));
+                    case "patientId" -> target.setPatientId(readId(parser, value));
+                    case "status" -> target.setStatus(readStatus(parser, value));
+                    case "modality" -> target.setModality(readModality(parser, value));
+                    case "scheduledAt" -> readInstant(parser, value, target, AppointmentEventPayload.SCHEDULED_AT);
+                    case "startedAt" -> readInstant(parser, value, target, AppointmentEventPayload.STARTED_AT);
+                    case "completedAt" -> readInstant(parser, value, target, AppointmentEventPayload.COMPLETED_AT);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Resets target and fills it from a binary payload. Throws
+     * IllegalArgumentException for an unknown schema version or a truncated payload.
+     */
+    public void decode(byte[] binary, AppointmentEventPayload target) {
+        target.reset();
+        if (binary.length < AppointmentPayloadLayout.SCHEDULED_EVENT_LENGTH) {
+            throw new IllegalArgumentException("Binary outbox payload too short: " + binary.length + " bytes");
+        }
+        byte version = binary[AppointmentPayloadLayout.VERSION_OFFSET];
+        if (version != AppointmentPayloadLayout.SCHEMA_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary outbox payload schema version " + version);
+        }
+        int flags = binary[AppointmentPayloadLayout.FLAGS_OFFSET];
+        if ((flags & (AppointmentPayloadLayout.FLAG_STARTED_AT | AppointmentPayloadLayout.FLAG_COMPLETED_AT)) != 0
+                && binary.length < AppointmentPayloadLayout.COMPLETED_EVENT_LENGTH) {
+            throw new IllegalArgumentException("Binary outbox payload too short: " + binary.length + " bytes");
+        }
+        target.setStatus(switch (binary[AppointmentPayloadLayout.STATUS_OFFSET]) {
+            case AppointmentPayloadLayout.STATUS_SCHEDULED -> AppointmentFunnelCodes.STATUS_SCHEDULED;
+            case AppointmentPayloadLayout.STATUS_COMPLETED -> AppointmentFunnelCodes.STATUS_COMPLETED;
+            case AppointmentPayloadLayout.STATUS_CANCELLED -> AppointmentFunnelCodes.STATUS_CANCELLED;
+            default -> AppointmentFunnelCodes.UNKNOWN;
+        });
+        target.setModality(switch (binary[AppointmentPayloadLayout.MODALITY_OFFSET]) {
+            case AppointmentPayloadLayout.MODALITY_VIRTUAL -> AppointmentFunnelCodes.MODALITY_VIRTUAL;
+            case AppointmentPayloadLayout.MODALITY_IN_PERSON -> AppointmentFunnelCodes.MODALITY_IN_PERSON;
+            default -> AppointmentFunnelCodes.UNKNOWN;
+        });
+        target.setAppointmentId((long) LONG.get(binary, AppointmentPayloadLayout.APPOINTMENT_ID_OFFSET));
+        target.setOrganizationId((long) LONG.get(binary, AppointmentPayloadLayout.ORGANIZATION_ID_OFFSET));
+        target.setClinicId((long) LONG.get(binary, AppointmentPayloadLayout.CLINIC_ID_OFFSET));
+        target.setPatientId((long) LONG.get(binary, AppointmentPayloadLayout.PATIENT_ID_OFFSET));
+        readInstant(binary, flags, AppointmentPayloadLayout.FLAG_SCHEDULED_AT,
+                AppointmentPayloadLayout.SCHEDULED_AT_OFFSET, target, AppointmentEventPayload.SCHEDULED_AT);
+        readInstant(binary, flags, AppointmentPayloadLayout.FLAG_STARTED_AT,
+                AppointmentPayloadLayout.STARTED_AT_OFFSET, target, AppointmentEventPayload.STARTED_AT);
+        readInstant(binary, flags, AppointmentPayloadLayout.FLAG_COMPLETED_AT,
+                AppointmentPayloadLayout.COMPLETED_AT_OFFSET, target, AppointmentEventPayload.COMPLETED_AT);
+    }
+
+    private static void readInstant(byte[] binary, int flags, int flag, int offset,
+                                    AppointmentEventPayload target, int slot) {
+        if ((flags & flag) != 0) {
+            target.setInstant(slot, (long) LONG.get(binary, offset), (int) INT.get(binary, offset + 8));
+        }
+    }
+
+    private static long readId(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            return parseLong(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+        if (value == JsonToken.VALUE_NULL) {
+            return 0L;
+        }
+        throw new IllegalArgumentException("Expected a numeric id but found " + value);
+    }
+
+    private static long parseLong(char[] chars, int offset, int length) {
+        if (length == 0 || length > 18) {
+            // Empty or possibly overflowing: let the JDK produce the error or the value.
+            return Long.parseLong(new String(chars, offset, length));
+        }
+        long result = 0L;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IllegalArgumentException("Invalid numeric id '" + new String(chars, offset, length) + "'");
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static short readStatus(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            return AppointmentFunnelCodes.UNKNOWN;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (matches(chars, offset, length, "SCHEDULED", false)) {
+            return AppointmentFunnelCodes.STATUS_SCHEDULED;
+        }
+        if (matches(chars, offset, length, "COMPLETED", false)) {
+            return AppointmentFunnelCodes.STATUS_COMPLETED;
+        }
+        if (matches(chars, offset, length, "CANCELLED", false)) {
+            return AppointmentFunnelCodes.STATUS_CANCELLED;
+        }
+        return AppointmentFunnelCodes.UNKNOWN;
+    }
+
+    private static short readModality(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            return AppointmentFunnelCodes.UNKNOWN;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        // Same case-insensitive match as AppointmentFunnelCodes.modalityCode.
+        if (matches(chars, offset, length, "VIRTUAL", true)) {
+            return AppointmentFunnelCodes.MODALITY_VIRTUAL;
+        }
+        if (matches(chars, offset, length, "IN_PERSON", true)) {
+            return AppointmentFunnelCodes.MODALITY_IN_PERSON;
+        }
+        return AppointmentFunnelCodes.UNKNOWN;
+    }
+
+    private static boolean matches(char[] chars, int offset, int length, String expected, boolean ignoreCase) {
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char actual = chars[offset + i];
+            if (ignoreCase) {
+                actual = Character.toUpperCase(actual);
+            }
+            if (actual != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void readInstant(JsonParser parser, JsonToken value, AppointmentEventPayload target, int slot)
+            throws IOException {
+        switch (value) {
+            case VALUE_NULL -> {
+                // Left absent.
+            }
+            case VALUE_STRING -> {
+                char[] chars = parser.getTextCharacters();
+                int offset = parser.getTextOffset();
+                int length = parser.getTextLength();
+                if (!parseUtcIsoInstant(chars, offset, length, target, slot)) {
+                    Instant instant = Instant.parse(new String(chars, offset, length));
+                    target.setInstant(slot, instant.getEpochSecond(), instant.getNano());
+                }
+            }
+            // Jackson writes Instants as decimal epoch seconds when dates are written as timestamps.
+            case VALUE_NUMBER_INT -> target.setInstant(slot, parser.getLongValue(), 0);
+            case VALUE_NUMBER_FLOAT -> {
+                BigDecimal seconds = parser.getDecimalValue();
+                long whole = seconds.setScale(0, RoundingMode.FLOOR).longValueExact();
+                int nano = seconds.subtract(BigDecimal.valueOf(whole)).movePointRight(9).intValue();
+                target.setInstant(slot, whole, nano);
+            }
+            default -> throw new IllegalArgumentException("Expected a timestamp but found " + value);
+        }
+    }
+
+    /**
+     * Parses {@code yyyy-MM-ddTHH:mm:ss[.fraction]Z}, the form Instant.toString
+     * and Jackson produce, without allocating. Returns false for anything else.
+     */
+    static boolean parseUtcIsoInstant(char[] c, int offset, int length, AppointmentEventPayload target, int slot) {
+        if (length < 20 || length > 30 || c[offset + length - 1] != 'Z'
+                || c[offset + 4] != '-' || c[offset + 7] != '-' || c[offset + 10] != 'T'
+                || c[offset + 13] != ':' || c[offset + 16] != ':') {
+            return false;
+        }
+        int year = digits(c, offset, 4);
+        int month = digits(c, offset + 5, 2);
+        int day = digits(c, offset + 8, 2);
+        int hour = digits(c, offset + 11, 2);
+        int minute = digits(c, offset + 14, 2);
+        int second = digits(c, offset + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return false;
+        }
+
+        int nano = 0;
+        int fractionLength = length - 21;
+        if (fractionLength > 0) {
+            if (c[offset + 19] != '.' || fractionLength > 9) {
+                return false;
+            }
+            int fraction = digits(c, offset + 20, fractionLength);
+            if (fraction < 0) {
+                return false;
+            }
+            nano = fraction;
+            for (int i = fractionLength; i < 9; i++) {
+                nano *= 10;
+            }
+        } else if (length != 20) {
+            return false;
+        }
+
+        if (day > lengthOfMonth(year, month)) {
+            return false;
+        }
+        target.setInstant(slot, epochDay(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second, nano);
+        return true;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(char[] c, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            int digit = c[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's days_from_civil).
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+}
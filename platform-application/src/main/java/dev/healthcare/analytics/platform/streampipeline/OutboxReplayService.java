@@ -0,0 +1,632 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelChangedEvent;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelTenant;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.AppointmentFunnelHotWindowStore;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactBatchRepository;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactCopyWriter;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.AppointmentFunnelRollupMaintenance;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEventRepository;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxReplayStaging;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OutboxReplayService rebuilds the appointment funnel facts and rollups from
+ * the whole outbox history, for when projection logic changed, without
+ * stopping live projection.
+ *
+ * A run projects into shadow copies of the fact and rollup tables:
+ * <ol>
+ *   <li>Archived segments are optionally staged back into Postgres
+ *       ({@link OutboxReplayStaging}).</li>
+ *   <li>Bulk phase: a coordinator exports a REPEATABLE READ snapshot, and
+ *       parallelism workers each import it and stream one aggregate_id hash
+ *       slice of the outbox (and staging table) through a server-side cursor
+ *       in appointment order. Each worker folds the events of one appointment
+ *       at a time and writes finished facts with COPY into the index-less
+ *       shadow fact table.</li>
+ *   <li>The live tables' indexes and primary keys are recreated on the shadow
+ *       tables, and the shadow rollups and sketches are built from the shadow
+ *       facts in one set-based pass.</li>
+ *   <li>Catch-up passes re-project, through the batch projector, every event
+ *       committed since the previous pass: ids above its high-water mark, plus
+ *       ids created within gap-timeout-seconds of it, which covers
+ *       transactions still in flight when it was taken. Re-applying an event
+ *       is idempotent, as on the live path.</li>
+ *   <li>Once a pass has little left to do, live projection is paused, a final
+ *       pass runs, and the shadow tables and their indexes are renamed over
+ *       the live ones in one transaction under lock-timeout-ms (retried a few
+ *       times). The in-memory aggregates and hot window are rebuilt from the
+ *       new tables before projection resumes; its checkpoints are untouched,
+ *       so it continues on the new tables where it left off.</li>
+ * </ol>
+ * The replaced tables are dropped afterwards unless drop-retired is off. A
+ * failed run drops its shadow tables and leaves the live ones as they were.
+ * Only one run is active at a time.
+ *
+ * A run is refused when its input no longer holds the whole history: when
+ * the retention janitor retired events without archiving them, or retired
+ * archived ones and includeArchive is not set. The swapped-in tables would
+ * otherwise lose every fact those events built.
+ */
+@Component
+public class OutboxReplayService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxReplayService.class);
+
+    static final String FACT_TABLE = "appointment_funnel_fact_v2";
+    static final String ROLLUP_TABLE = "appointment_funnel_rollup";
+
+    private static final String SCHEMA = "analytics.";
+    private static final int SWAP_ATTEMPTS = 3;
+    private static final long SWAP_RETRY_DELAY_MILLIS = 500L;
+    private static final String SHADOW_SUFFIX = "_shadow";
+    private static final String RETIRED_SUFFIX = "_retired";
+
+    private static final String SLICE_SQL = """
+            SELECT id, event_type, event_payload::text, event_payload_bin
+            FROM (
+                SELECT id, aggregate_id, event_type, event_payload, event_payload_bin FROM app.outbox_event
+                %s
+            ) e
+            WHERE e.event_type IN ('APPOINTMENT_SCHEDULED', 'APPOINTMENT_COMPLETED')
+              AND e.id <= ?
+              AND (hashtext(e.aggregate_id) & 2147483647) %% ? = ?
+            ORDER BY e.aggregate_id, e.id
+            """;
+
+    private static final String STAGED_EVENTS_SQL = """
+                UNION ALL
+                SELECT id, aggregate_id, event_type, event_payload, event_payload_bin FROM %s
+            """.formatted(OutboxReplayStaging.STAGING_TABLE);
+
+    // Recreates the live table's indexes on the shadow table under <name>_shadow; pg_catalog as
+    // search_path makes pg_get_indexdef qualify every name.
+    private static final String COPY_INDEXES_SQL = """
+            DO $$
+            DECLARE
+                idx record;
+            BEGIN
+                PERFORM set_config('search_path', 'pg_catalog', true);
+                FOR idx IN
+                    SELECT c.relname, i.indisprimary, pg_get_indexdef(i.indexrelid) AS definition
+                    FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                    WHERE i.indrelid = '{live}'::regclass
+                LOOP
+                    EXECUTE replace(
+                        replace(idx.definition, 'INDEX ' || quote_ident(idx.relname) || ' ON ',
+                                'INDEX ' || quote_ident(idx.relname || '_shadow') || ' ON '),
+                        ' ON {live} ', ' ON {shadow} ');
+                    IF idx.indisprimary THEN
+                        EXECUTE format('ALTER TABLE {shadow} ADD CONSTRAINT %I PRIMARY KEY USING INDEX %I',
+                                       idx.relname || '_shadow', idx.relname || '_shadow');
+                    END IF;
+                END LOOP;
+            END$$
+            """;
+
+    // Renaming an index also renames the primary key constraint it backs.
+    private static final String SWAP_TABLE_SQL = """
+                FOR idx IN SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                           WHERE i.indrelid = '{live}'::regclass LOOP
+                    EXECUTE format('ALTER INDEX analytics.%I RENAME TO %I', idx.relname, idx.relname || '_retired');
+                END LOOP;
+                FOR idx IN SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                           WHERE i.indrelid = '{shadow}'::regclass LOOP
+                    EXECUTE format('ALTER INDEX analytics.%I RENAME TO %I',
+                                   idx.relname, left(idx.relname, length(idx.relname) - length('_shadow')));
+                END LOOP;
+                ALTER TABLE {live} RENAME TO {name}_retired;
+                ALTER TABLE {shadow} RENAME TO {name};
+            """;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final OutboxReplayStaging staging;
+    private final AppOutboxEventRepository outboxEventRepository;
+    private final OutboxBatchProjector batchProjector;
+    private final OutboxEventStreamProcessor streamProcessor;
+    private final OutboxRetentionJanitor retentionJanitor;
+    private final AppointmentFunnelFactBatchRepository shadowFacts;
+    private final AppointmentFunnelRollupRepository shadowRollups;
+    private final AppointmentFunnelRollupMaintenance rollupMaintenance;
+    private final AppointmentFunnelAggregateStore aggregateStore;
+    private final AppointmentFunnelHotWindowStore hotWindowStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int parallelism;
+    private final int fetchSize;
+    private final int catchUpBatchSize;
+    private final long finalPassThreshold;
+    private final int maxCatchUpPasses;
+    private final long lockTimeoutMillis;
+    private final boolean dropRetired;
+    private final Duration gapTimeout;
+
+    private final Counter eventsReplayedCounter;
+    private final Counter factsWrittenCounter;
+    private final Timer replayTimer;
+
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(DatabaseWorkload.STREAM.wrap(runnable), "outbox-replay"));
+
+    private volatile ReplayStatus status = ReplayStatus.idle();
+    private final AtomicLong eventsReplayed = new AtomicLong();
+    private final AtomicLong factsWritten = new AtomicLong();
+
+    public OutboxReplayService(DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               OutboxReplayStaging staging,
+                               AppOutboxEventRepository outboxEventRepository,
+                               OutboxBatchProjector batchProjector,
+                               OutboxEventStreamProcessor streamProcessor,
+                               OutboxRetentionJanitor retentionJanitor,
+                               AppointmentFunnelFactBatchRepository factBatchRepository,
+                               AppointmentFunnelRollupRepository rollupRepository,
+                               AppointmentFunnelRollupMaintenance rollupMaintenance,
+                               AppointmentFunnelAggregateStore aggregateStore,
+                               AppointmentFunnelHotWindowStore hotWindowStore,
+                               ApplicationEventPublisher eventPublisher,
+                               MeterRegistry meterRegistry,
+                               @Value("${platform.replay.parallelism:4}") int parallelism,
+                               @Value("${platform.replay.fetch-size:10000}") int fetchSize,
+                               @Value("${platform.replay.catch-up-batch-size:5000}") int catchUpBatchSize,
+                               @Value("${platform.replay.final-pass-threshold:5000}") long finalPassThreshold,
+                               @Value("${platform.replay.max-catch-up-passes:10}") int maxCatchUpPasses,
+                               @Value("${platform.replay.lock-timeout-ms:5000}") long lockTimeoutMillis,
+                               @Value("${platform.replay.drop-retired:true}") boolean dropRetired,
+                               @Value("${platform.stream-pipeline.gap-timeout-seconds:60}") long gapTimeoutSeconds) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("platform.replay.parallelism must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.staging = staging;
+        this.outboxEventRepository = outboxEventRepository;
+        this.batchProjector = batchProjector;
+        this.streamProcessor = streamProcessor;
+        this.retentionJanitor = retentionJanitor;
+        this.shadowFacts = factBatchRepository.withTable(shadow(FACT_TABLE));
+        this.shadowRollups = rollupRepository.withTables(shadow(ROLLUP_TABLE), shadow(FACT_TABLE));
+        this.rollupMaintenance = rollupMaintenance;
+        this.aggregateStore = aggregateStore;
+        this.hotWindowStore = hotWindowStore;
+        this.eventPublisher = eventPublisher;
+        this.parallelism = parallelism;
+        this.fetchSize = fetchSize;
+        this.catchUpBatchSize = catchUpBatchSize;
+        this.finalPassThreshold = finalPassThreshold;
+        this.maxCatchUpPasses = Math.max(1, maxCatchUpPasses);
+        this.lockTimeoutMillis = lockTimeoutMillis;
+        this.dropRetired = dropRetired;
+        this.gapTimeout = Duration.ofSeconds(gapTimeoutSeconds);
+
+        this.eventsReplayedCounter = meterRegistry.counter("platform.replay.events.replayed");
+        this.factsWrittenCounter = meterRegistry.counter("platform.replay.facts.written");
+        this.replayTimer = Timer.builder("platform.replay.duration")
+                .description("Time from the start of a reprojection to its swap")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a reprojection in the background unless one is already running
+     * or its input would miss part of the history; returns the current
+     * status, or a refused one that is not kept.
+     */
+    public synchronized ReplayStatus start(boolean includeArchive) {
+        if (status.running()) {
+            return status;
+        }
+        String incomplete = incompleteHistory(includeArchive);
+        if (incomplete != null) {
+            LOGGER.warn("Refusing reprojection: {}", incomplete);
+            return ReplayStatus.refused(includeArchive, incomplete);
+        }
+        eventsReplayed.set(0L);
+        factsWritten.set(0L);
+        status = ReplayStatus.started(Instant.now(), includeArchive);
+        runner.submit(() -> run(includeArchive));
+        return status;
+    }
+
+    public ReplayStatus status() {
+        return status.withProgress(eventsReplayed.get(), factsWritten.get());
+    }
+
+    private String incompleteHistory(boolean includeArchive) {
+        OutboxRetentionJanitor.RetiredHistory retired = retentionJanitor.retiredHistory();
+        if (retired.highestUnarchivedId() > 0) {
+            return "outbox events up to id " + retired.highestUnarchivedId()
+                    + " were retired without an archive copy, so a replay would drop their facts";
+        }
+        if (retired.highestRetiredId() > 0 && !includeArchive) {
+            return "outbox events up to id " + retired.highestRetiredId()
+                    + " are only in the archive; replay with includeArchive=true";
+        }
+        return null;
+    }
+
+    private void run(boolean includeArchive) {
+        long startNanos = System.nanoTime();
+        try {
+            dropTables(shadow(FACT_TABLE), shadow(ROLLUP_TABLE), retired(FACT_TABLE), retired(ROLLUP_TABLE));
+            if (includeArchive) {
+                phase("staging archived segments");
+                staging.loadArchivedSegments();
+            }
+            jdbcTemplate.execute("CREATE TABLE " + shadow(FACT_TABLE) + " (LIKE " + live(FACT_TABLE) + " INCLUDING DEFAULTS)");
+            jdbcTemplate.execute("CREATE TABLE " + shadow(ROLLUP_TABLE) + " (LIKE " + live(ROLLUP_TABLE) + " INCLUDING DEFAULTS)");
+
+            phase("bulk projection");
+            Watermark mark = bulkProject(includeArchive);
+
+            phase("indexing");
+            copyIndexes(FACT_TABLE);
+            jdbcTemplate.execute("ANALYZE " + shadow(FACT_TABLE));
+            shadowRollups.backfillFromFacts(rollupMaintenance.minuteBucketsFrom());
+            copyIndexes(ROLLUP_TABLE);
+            rollupMaintenance.backfillSketches(shadowRollups);
+            jdbcTemplate.execute("ANALYZE " + shadow(ROLLUP_TABLE));
+
+            for (int pass = 1; pass <= maxCatchUpPasses; pass++) {
+                phase("catch-up pass " + pass);
+                Watermark next = watermark();
+                long caughtUp = catchUp(mark, next);
+                mark = next;
+                if (caughtUp <= finalPassThreshold) {
+                    break;
+                }
+            }
+
+            phase("swap");
+            Watermark lastMark = mark;
+            streamProcessor.whileProjectionPaused(() -> {
+                catchUp(lastMark, watermark());
+                swap();
+                Set<AppointmentFunnelTenant> tenants = new HashSet<>(aggregateStore.tenants());
+                aggregateStore.rebuildFromFacts();
+                hotWindowStore.reloadFromFacts();
+                tenants.addAll(aggregateStore.tenants());
+                eventPublisher.publishEvent(new AppointmentFunnelChangedEvent(Set.copyOf(tenants)));
+                return null;
+            });
+            replayTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+            if (dropRetired) {
+                dropTables(retired(FACT_TABLE), retired(ROLLUP_TABLE));
+            }
+            status = status.finished(Instant.now(), null);
+            LOGGER.info("Reprojection swapped in {} fact(s) from {} replayed event(s) in {}s",
+                    factsWritten.get(), eventsReplayed.get(), TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+        } catch (Exception ex) {
+            LOGGER.error("Reprojection failed; live analytics tables are unchanged", ex);
+            status = status.finished(Instant.now(), ex.getMessage() != null ? ex.getMessage() : ex.toString());
+            try {
+                dropTables(shadow(FACT_TABLE), shadow(ROLLUP_TABLE));
+            } catch (Exception cleanup) {
+                LOGGER.warn("Failed to drop reprojection shadow tables", cleanup);
+            }
+        } finally {
+            if (includeArchive) {
+                try {
+                    staging.drop();
+                } catch (Exception cleanup) {
+                    LOGGER.warn("Failed to drop the replay staging table", cleanup);
+                }
+            }
+        }
+    }
+
+    /**
+     * Projects everything visible in one exported snapshot into the shadow
+     * fact table and returns that snapshot's high-water mark.
+     */
+    private Watermark bulkProject(boolean includeArchive) throws Exception {
+        try (Connection coordinator = dataSource.getConnection()) {
+            coordinator.setAutoCommit(false);
+            coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            String snapshotId;
+            Watermark mark;
+            try (Statement statement = coordinator.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                         "SELECT pg_export_snapshot(), coalesce(max(id), 0), now() FROM app.outbox_event")) {
+                rs.next();
+                snapshotId = rs.getString(1);
+                mark = new Watermark(rs.getLong(2), rs.getObject(3, OffsetDateTime.class).toInstant());
+            }
+
+            // The snapshot stays importable while the coordinator transaction is open.
+            String sliceSql = SLICE_SQL.formatted(includeArchive ? STAGED_EVENTS_SQL : "");
+            AtomicInteger threadIndex = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                    runnable -> new Thread(DatabaseWorkload.STREAM.wrap(runnable), "outbox-replay-worker-" + threadIndex.getAndIncrement()));
+            try {
+                List<Future<?>> slices = new ArrayList<>(parallelism);
+                for (int i = 0; i < parallelism; i++) {
+                    int slice = i;
+                    slices.add(workers.submit(() -> {
+                        projectSlice(sliceSql, snapshotId, mark.highId(), slice);
+                        return null;
+                    }));
+                }
+                for (Future<?> slice : slices) {
+                    slice.get();
+                }
+            } finally {
+                workers.shutdownNow();
+            }
+            coordinator.commit();
+            LOGGER.info("Bulk-projected {} fact(s) from {} event(s) up to outbox id {}",
+                    factsWritten.get(), eventsReplayed.get(), mark.highId());
+            return mark;
+        }
+    }
+
+    private void projectSlice(String sliceSql, String snapshotId, long highId, int slice) throws Exception {
+        OutboxPayloadDecoder decoder = new OutboxPayloadDecoder(objectMapper.getFactory());
+        AppointmentEventPayload payload = new AppointmentEventPayload();
+        try (Connection reader = dataSource.getConnection();
+             Connection writer = dataSource.getConnection();
+             AppointmentFunnelFactCopyWriter copyWriter = new AppointmentFunnelFactCopyWriter(writer, shadow(FACT_TABLE))) {
+            reader.setAutoCommit(false);
+            reader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement statement = reader.createStatement()) {
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId.replace("'", "''") + "'");
+            }
+            long events = 0;
+            try (PreparedStatement query = reader.prepareStatement(sliceSql)) {
+                // With autocommit off the driver streams through a cursor, fetch-size rows at a time.
+                query.setFetchSize(fetchSize);
+                query.setLong(1, highId);
+                query.setInt(2, parallelism);
+                query.setInt(3, slice);
+                try (ResultSet rs = query.executeQuery()) {
+                    AppointmentFunnelFact fact = null;
+                    long previousId = Long.MIN_VALUE;
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        if (id == previousId) {
+                            // Staged archive rows can still be present in a detached-only partition.
+                            continue;
+                        }
+                        previousId = id;
+                        if (!decode(decoder, rs, id, payload)) {
+                            continue;
+                        }
+                        if (fact == null || fact.getAppointmentId() != payload.getAppointmentId()) {
+                            writeIfComplete(copyWriter, fact);
+                            fact = new AppointmentFunnelFact();
+                            fact.setAppointmentId(payload.getAppointmentId());
+                        }
+                        OutboxBatchProjector.applyEvent(fact, payload);
+                        if (++events % fetchSize == 0) {
+                            eventsReplayed.addAndGet(fetchSize);
+                        }
+                    }
+                    writeIfComplete(copyWriter, fact);
+                }
+            }
+            reader.commit();
+            eventsReplayed.addAndGet(events % fetchSize);
+            eventsReplayedCounter.increment(events);
+        }
+    }
+
+    private static boolean decode(OutboxPayloadDecoder decoder, ResultSet rs, long id, AppointmentEventPayload payload)
+            throws SQLException {
+        String eventType = rs.getString(2);
+        try {
+            byte[] binary = rs.getBytes(4);
+            if (binary != null) {
+                decoder.decode(binary, payload);
+            } else {
+                decoder.decode(rs.getString(3), payload);
+            }
+        } catch (Exception e) {
+            LOGGER.warn("Failed to replay outbox event id={} type={}", id, eventType, e);
+            return false;
+        }
+        if (payload.getAppointmentId() == 0L) {
+            LOGGER.warn("Skipping outbox event id={} type={} without appointmentId", id, eventType);
+            return false;
+        }
+        payload.setEvent(id, "APPOINTMENT_COMPLETED".equals(eventType));
+        return true;
+    }
+
+    private void writeIfComplete(AppointmentFunnelFactCopyWriter copyWriter, AppointmentFunnelFact fact) throws Exception {
+        if (fact == null || !OutboxBatchProjector.isWritable(fact)) {
+            return;
+        }
+        copyWriter.write(fact);
+        factsWritten.incrementAndGet();
+        factsWrittenCounter.increment();
+    }
+
+    /**
+     * Re-projects into the shadow tables every event from the previous mark's
+     * catch-up start up to the new mark's high id; returns the events read.
+     */
+    private long catchUp(Watermark previous, Watermark next) {
+        long fromId = previous.highId() + 1;
+        Long createdSince = outboxEventRepository.findMinIdCreatedSince(previous.takenAt().minus(gapTimeout));
+        if (createdSince != null) {
+            fromId = Math.min(fromId, createdSince);
+        }
+        long read = 0;
+        while (fromId <= next.highId()) {
+            List<AppOutboxEvent> batch = outboxEventRepository.findBatchBetween(fromId, next.highId(), catchUpBatchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<OutboxBatchProjector.FactChange> changes = batchProjector.projectInto(batch, shadowFacts, shadowRollups);
+            for (OutboxBatchProjector.FactChange change : changes) {
+                if (change.before() == null) {
+                    factsWritten.incrementAndGet();
+                    factsWrittenCounter.increment();
+                }
+            }
+            read += batch.size();
+            fromId = batch.get(batch.size() - 1).getId() + 1;
+        }
+        eventsReplayed.addAndGet(read);
+        eventsReplayedCounter.increment(read);
+        LOGGER.info("Reprojection caught up {} event(s) up to outbox id {}", read, next.highId());
+        return read;
+    }
+
+    private Watermark watermark() {
+        return jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0), now() FROM app.outbox_event",
+                (rs, rowNum) -> new Watermark(rs.getLong(1), rs.getObject(2, OffsetDateTime.class).toInstant()));
+    }
+
+    private void copyIndexes(String table) {
+        jdbcTemplate.execute(COPY_INDEXES_SQL.replace("{live}", live(table)).replace("{shadow}", shadow(table)));
+    }
+
+    private void swap() throws InterruptedException {
+        StringBuilder sql = new StringBuilder("""
+                DO $$
+                DECLARE
+                    idx record;
+                BEGIN
+                """);
+        sql.append("    PERFORM set_config('lock_timeout', '").append(lockTimeoutMillis).append("', true);\n");
+        sql.append("    LOCK TABLE ").append(live(FACT_TABLE)).append(", ").append(live(ROLLUP_TABLE))
+                .append(" IN ACCESS EXCLUSIVE MODE;\n");
+        for (String table : List.of(FACT_TABLE, ROLLUP_TABLE)) {
+            sql.append(SWAP_TABLE_SQL
+                    .replace("{live}", live(table))
+                    .replace("{shadow}", shadow(table))
+                    .replace("{name}", table));
+        }
+        sql.append("END$$");
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.execute(sql.toString());
+                break;
+            } catch (RuntimeException ex) {
+                // Usually the lock_timeout behind a long dashboard query; the shadow tables are kept for a retry.
+                if (attempt >= SWAP_ATTEMPTS) {
+                    throw ex;
+                }
+                LOGGER.warn("Reprojection swap attempt {} failed; retrying", attempt, ex);
+                Thread.sleep(SWAP_RETRY_DELAY_MILLIS);
+            }
+        }
+        LOGGER.info("Swapped reprojected {} and {} in", live(FACT_TABLE), live(ROLLUP_TABLE));
+    }
+
+    private void dropTables(String... tables) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + String.join(", ", tables));
+    }
+
+    private void phase(String phase) {
+        status = status.inPhase(phase);
+        LOGGER.info("Reprojection: {}", phase);
+    }
+
+    private static String live(String table) {
+        return SCHEMA + table;
+    }
+
+    private static String shadow(String table) {
+        return SCHEMA + table + SHADOW_SUFFIX;
+    }
+
+    private static String retired(String table) {
+        return SCHEMA + table + RETIRED_SUFFIX;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Highest outbox id visible at a point in time, and when that was.
+     */
+    private record Watermark(long highId, Instant takenAt) {
+    }
+
+    public record ReplayStatus(String state,
+                               String phase,
+                               boolean includeArchive,
+                               Instant startedAt,
+                               Instant finishedAt,
+                               long eventsReplayed,
+                               long factsWritten,
+                               String error) {
+
+        static ReplayStatus idle() {
+            return new ReplayStatus("IDLE", null, false, null, null, 0L, 0L, null);
+        }
+
+        static ReplayStatus started(Instant startedAt, boolean includeArchive) {
+            return new ReplayStatus("RUNNING", "starting", includeArchive, startedAt, null, 0L, 0L, null);
+        }
+
+        static ReplayStatus refused(boolean includeArchive, String reason) {
+            return new ReplayStatus("REFUSED", null, includeArchive, null, null, 0L, 0L, reason);
+        }
+
+        public boolean running() {
+            return "RUNNING".equals(state);
+        }
+
+        public boolean refused() {
+            return "REFUSED".equals(state);
+        }
+
+        ReplayStatus inPhase(String newPhase) {
+            return new ReplayStatus(state, newPhase, includeArchive, startedAt, finishedAt, eventsReplayed, factsWritten, error);
+        }
+
+        ReplayStatus finished(Instant at, String failure) {
+            return new ReplayStatus(failure == null ? "SUCCEEDED" : "FAILED", phase, includeArchive, startedAt, at,
+                    eventsReplayed, factsWritten, failure);
+        }
+
+        ReplayStatus withProgress(long events, long facts) {
+            return new ReplayStatus(state, phase, includeArchive, startedAt, finishedAt, events, facts, error);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpoint;
+import dev.healthcare.analytics.platform.analyticsschema.StreamCheckpointRepository;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxPartitions;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxRetentionMark;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxRetentionMarkRepository;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxSegmentArchive;
+import dev.healthcare.analytics.platform.execution.DatabaseWorkload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * OutboxRetentionJanitor keeps app.outbox_event bounded: it creates the
+ * upcoming created_at partitions and retires the oldest ones once every
+ * consumer is past them, so polls, indexes and vacuum only ever see the
+ * retained window.
+ *
+ * A partition is retired when its range ended more than retain-hours (and at
+ * least the gap timeout) ago and none of its rows can still be needed:
+ * with polling, its highest id must be below every active partition
+ * checkpoint and below their lowest pending gap; with logical replication,
+ * the slot checkpoint must have passed a WAL position sampled after the
+ * range ended plus the gap timeout. Checkpoint rows left by an earlier
+ * partition count are ignored. Retired partitions are dropped, or only
+ * detached when mode is detach; with archive enabled they are exported to a
+ * segment file first. The highest retired id, and the highest one retired
+ * without an archive copy, are kept as {@link OutboxRetentionMark}s so a
+ * replay can tell whether its input still covers the whole history.
+ */
+@Component
+public class OutboxRetentionJanitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxRetentionJanitor.class);
+
+    static final String RETIRED_MARK = "retired";
+    static final String UNARCHIVED_MARK = "retired_unarchived";
+
+    private final OutboxPartitions outboxPartitions;
+    private final OutboxSegmentArchive segmentArchive;
+    private final StreamCheckpointRepository checkpointRepository;
+    private final OutboxRetentionMarkRepository retentionMarkRepository;
+    private final OutboxEventStreamProcessor streamProcessor;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final boolean dropRetired;
+    private final boolean logicalReplication;
+    private final Duration minimumAge;
+    private final Duration gapTimeout;
+    private final Counter retiredCounter;
+    private final Counter archivedEventsCounter;
+
+    // WAL positions sampled on earlier runs, oldest first (logical replication only).
+    private final ArrayDeque<WalSample> walSamples = new ArrayDeque<>();
+
+    public OutboxRetentionJanitor(OutboxPartitions outboxPartitions,
+                                  OutboxSegmentArchive segmentArchive,
+                                  StreamCheckpointRepository checkpointRepository,
+                                  OutboxRetentionMarkRepository retentionMarkRepository,
+                                  OutboxEventStreamProcessor streamProcessor,
+                                  JdbcTemplate jdbcTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${platform.outbox.retention.enabled:true}") boolean enabled,
+                                  @Value("${platform.outbox.retention.mode:drop}") String mode,
+                                  @Value("${platform.outbox.retention.retain-hours:48}") long retainHours,
+                                  @Value("${platform.stream-pipeline.source:polling}") String source,
+                                  @Value("${platform.stream-pipeline.gap-timeout-seconds:60}") long gapTimeoutSeconds) {
+        if (!"drop".equals(mode) && !"detach".equals(mode)) {
+            throw new IllegalArgumentException("platform.outbox.retention.mode must be drop or detach");
+        }
+        this.outboxPartitions = outboxPartitions;
+        this.segmentArchive = segmentArchive;
+        this.checkpointRepository = checkpointRepository;
+        this.retentionMarkRepository = retentionMarkRepository;
+        this.streamProcessor = streamProcessor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.dropRetired = "drop".equals(mode);
+        this.logicalReplication = "logical-replication".equals(source);
+        this.gapTimeout = Duration.ofSeconds(gapTimeoutSeconds);
+        Duration retain = Duration.ofHours(retainHours);
+        this.minimumAge = retain.compareTo(gapTimeout) >= 0 ? retain : gapTimeout;
+        this.retiredCounter = Counter.builder("platform.outbox.retention.partitions_retired")
+                .description("Outbox partitions detached or dropped by the retention janitor")
+                .tag("mode", mode)
+                .register(meterRegistry);
+        this.archivedEventsCounter = Counter.builder("platform.outbox.retention.events_archived")
+                .description("Outbox events exported to segment files before their partition was retired")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${platform.outbox.retention.janitor-interval-ms:300000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try (DatabaseWorkload.Scope ignored = DatabaseWorkload.STREAM.enter()) {
+            outboxPartitions.ensurePartitionsAhead();
+            retirePartitionsBehindConsumers();
+        } catch (Exception ex) {
+            // Typically a lock_timeout against a busy outbox; the next run retries.
+            LOGGER.warn("Outbox retention run failed; retrying on the next run", ex);
+        }
+    }
+
+    private void retirePartitionsBehindConsumers() throws Exception {
+        Instant now = Instant.now();
+        if (logicalReplication) {
+            sampleWalPosition(now);
+        }
+        Instant cutoff = now.minus(minimumAge);
+        long pollingWatermark = logicalReplication ? 0L : pollingWatermark();
+
+        List<OutboxPartitions.OutboxPartition> partitions = outboxPartitions.listRangePartitions();
+        for (OutboxPartitions.OutboxPartition partition : partitions) {
+            if (partition.upperBound().isAfter(cutoff)) {
+                break;
+            }
+            Long maxId = outboxPartitions.maxId(partition);
+            boolean behind = maxId == null
+                    || (logicalReplication ? walCheckpointPassed(partition) : maxId < pollingWatermark);
+            if (!behind) {
+                // Partitions are visited oldest first; later ones cannot be further behind.
+                break;
+            }
+            boolean archived = false;
+            if (maxId != null && segmentArchive.isEnabled()) {
+                long exported = segmentArchive.export(partition);
+                archivedEventsCounter.increment(exported);
+                archived = true;
+                LOGGER.info("Archived {} outbox event(s) of partition {}", exported, partition.name());
+            }
+            if (maxId != null) {
+                // Recorded before the rows are gone; a replay refuses to run without them.
+                raiseMark(RETIRED_MARK, maxId);
+                if (!archived) {
+                    raiseMark(UNARCHIVED_MARK, maxId);
+                }
+            }
+            outboxPartitions.retire(partition, dropRetired);
+            retiredCounter.increment();
+            LOGGER.info("{} outbox partition {} (events before {})",
+                    dropRetired ? "Dropped" : "Detached", partition.name(), partition.upperBound());
+        }
+        if (logicalReplication) {
+            trimWalSamples(outboxPartitions.listRangePartitions());
+        }
+    }
+
+    /**
+     * Lowest outbox id any active polling checkpoint may still project: its
+     * lowest pending gap, or the id after its high-water mark. Zero while a
+     * partition has no checkpoint yet, which retires nothing.
+     */
+    private long pollingWatermark() {
+        long watermark = Long.MAX_VALUE;
+        for (String name : streamProcessor.checkpointNames()) {
+            Optional<StreamCheckpoint> checkpoint = checkpointRepository.findById(name);
+            if (checkpoint.isEmpty()) {
+                return 0L;
+            }
+            long next = checkpoint.get().getLastProcessedEventId() + 1;
+            long lowestGap = OutboxSequenceGaps.parse(checkpoint.get().getPendingGaps()).lowest();
+            watermark = Math.min(watermark, Math.min(next, lowestGap));
+        }
+        return watermark;
+    }
+
+    private void sampleWalPosition(Instant now) {
+        Long lsn = jdbcTemplate.queryForObject(
+                "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint", Long.class);
+        if (lsn != null) {
+            walSamples.addLast(new WalSample(now, lsn));
+        }
+    }
+
+    /**
+     * Highest outbox ids retired so far, overall and without an archive copy;
+     * 0 when none were.
+     */
+    public RetiredHistory retiredHistory() {
+        return new RetiredHistory(mark(RETIRED_MARK), mark(UNARCHIVED_MARK));
+    }
+
+    private long mark(String name) {
+        return retentionMarkRepository.findById(name)
+                .map(OutboxRetentionMark::getHighestOutboxId)
+                .orElse(0L);
+    }
+
+    private void raiseMark(String name, long id) {
+        OutboxRetentionMark mark = retentionMarkRepository.findById(name)
+                .orElseGet(() -> new OutboxRetentionMark(name, 0L));
+        if (id > mark.getHighestOutboxId()) {
+            mark.setHighestOutboxId(id);
+            retentionMarkRepository.save(mark);
+        }
+    }
+
+    /**
+     * Rows of the partition commit before its range end plus the gap timeout
+     * (later ones are given up by the polling path as well), so a WAL
+     * position sampled after that covers all of them.
+     */
+    private boolean walCheckpointPassed(OutboxPartitions.OutboxPartition partition) {
+        Instant sealedAt = partition.upperBound().plus(gapTimeout);
+        WalSample sample = null;
+        for (WalSample candidate : walSamples) {
+            if (!candidate.sampledAt().isBefore(sealedAt)) {
+                sample = candidate;
+                break;
+            }
+        }
+        if (sample == null) {
+            return false;
+        }
+        long confirmedLsn = checkpointRepository.findById(OutboxLogicalReplicationSource.STREAM_NAME)
+                .map(StreamCheckpoint::getConfirmedLsn)
+                .orElse(0L);
+        return confirmedLsn >= sample.lsn();
+    }
+
+    private void trimWalSamples(List<OutboxPartitions.OutboxPartition> remaining) {
+        // Samples taken before the oldest remaining partition was sealed cannot cover any partition.
+        Instant oldestSeal = remaining.isEmpty() ? Instant.now() : remaining.get(0).upperBound().plus(gapTimeout);
+        while (!walSamples.isEmpty() && walSamples.peekFirst().sampledAt().isBefore(oldestSeal)) {
+            walSamples.pollFirst();
+        }
+    }
+
+    private record WalSample(Instant sampledAt, long lsn) {
+    }
+
+    public record RetiredHistory(long highestRetiredId, long highestUnarchivedId) {
+    }
+}
@@ -0,0 +1,167 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * OutboxSequenceGaps is the compact set of outbox ids below a consumer's
+ * high-water mark that were not visible when the consumer moved past them.
+ * Such ids belong to transactions that were still in flight (or rolled back),
+ * so they are re-checked until they appear or their window expires.
+ *
+ * Consecutive ids are kept as ranges together with the epoch second they were
+ * first seen missing, and stored next to the checkpoint as text such as
+ * {@code "105-107@1714557330,230@1714557331"}.
+ */
+final class OutboxSequenceGaps {
+
+    private final List<GapRange> ranges = new ArrayList<>();
+
+    static OutboxSequenceGaps parse(String encoded) {
+        OutboxSequenceGaps gaps = new OutboxSequenceGaps();
+        if (encoded == null || encoded.isBlank()) {
+            return gaps;
+        }
+        for (String token : encoded.split(",")) {
+            int at = token.indexOf('@');
+            String idPart = token.substring(0, at);
+            long firstSeenEpochSecond = Long.parseLong(token.substring(at + 1));
+            int dash = idPart.indexOf('-');
+            long start = Long.parseLong(dash < 0 ? idPart : idPart.substring(0, dash));
+            long end = dash < 0 ? start : Long.parseLong(idPart.substring(dash + 1));
+            gaps.ranges.add(new GapRange(start, end, firstSeenEpochSecond));
+        }
+        return gaps;
+    }
+
+    String format() {
+        if (ranges.isEmpty()) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (GapRange range : ranges) {
+            if (!encoded.isEmpty()) {
+                encoded.append(',');
+            }
+            encoded.append(range.start());
+            if (range.end() != range.start()) {
+                encoded.append('-').append(range.end());
+            }
+            encoded.append('@').append(range.firstSeenEpochSecond());
+        }
+        return encoded.toString();
+    }
+
+    boolean isEmpty() {
+        return ranges.isEmpty();
+    }
+
+    long size() {
+        long size = 0;
+        for (GapRange range : ranges) {
+            size += range.end() - range.start() + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Lowest awaited id, or Long.MAX_VALUE when there are no gaps.
+     */
+    long lowest() {
+        long lowest = Long.MAX_VALUE;
+        for (GapRange range : ranges) {
+            lowest = Math.min(lowest, range.start());
+        }
+        return lowest;
+    }
+
+    /**
+     * First ids of the tracked ranges as a PostgreSQL bigint[] literal such as
+     * {@code "{105,230}"}; pairs with {@link #rangeEnds()}.
+     */
+    String rangeStarts() {
+        StringBuilder literal = new StringBuilder("{");
+        for (GapRange range : ranges) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append(range.start());
+        }
+        return literal.append('}').toString();
+    }
+
+    /**
+     * Last ids of the tracked ranges, in the order of {@link #rangeStarts()}.
+     */
+    String rangeEnds() {
+        StringBuilder literal = new StringBuilder("{");
+        for (GapRange range : ranges) {
+            if (literal.length() > 1) {
+                literal.append(',');
+            }
+            literal.append(range.end());
+        }
+        return literal.append('}').toString();
+    }
+
+    /**
+     * Records newly missing ids, which must be sorted and above every tracked gap.
+     */
+    void addMissing(List<Long> sortedIds, long firstSeenEpochSecond) {
+        for (long id : sortedIds) {
+            GapRange last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last.end() + 1 == id && last.firstSeenEpochSecond() == firstSeenEpochSecond) {
+                ranges.set(ranges.size() - 1, new GapRange(last.start(), id, firstSeenEpochSecond));
+            } else {
+                ranges.add(new GapRange(id, id, firstSeenEpochSecond));
+            }
+        }
+    }
+
+    /**
+     * Removes ids that have become visible, splitting ranges where needed.
+     */
+    void remove(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        TreeSet<Long> resolved = new TreeSet<>(ids);
+        List<GapRange> remaining = new ArrayList<>(ranges.size());
+        for (GapRange range : ranges) {
+            long start = range.start();
+            for (Long id : resolved.subSet(range.start(), true, range.end(), true)) {
+                if (id > start) {
+                    remaining.add(new GapRange(start, id - 1, range.firstSeenEpochSecond()));
+                }
+                start = id + 1;
+            }
+            if (start <= range.end()) {
+                remaining.add(new GapRange(start, range.end(), range.firstSeenEpochSecond()));
+            }
+        }
+        ranges.clear();
+        ranges.addAll(remaining);
+    }
+
+    /**
+     * Drops gaps first seen before the cutoff and returns how many ids were given up on.
+     */
+    long expireFirstSeenBefore(long cutoffEpochSecond) {
+        long expired = 0;
+        Iterator<GapRange> iterator = ranges.iterator();
+        while (iterator.hasNext()) {
+            GapRange range = iterator.next();
+            if (range.firstSeenEpochSecond() < cutoffEpochSecond) {
+                expired += range.end() - range.start() + 1;
+                iterator.remove();
+            }
+        }
+        return expired;
+    }
+
+    private record GapRange(long start, long end, long firstSeenEpochSecond) {
+    }
+}
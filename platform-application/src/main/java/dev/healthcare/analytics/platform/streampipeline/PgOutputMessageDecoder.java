@@ -0,0 +1,116 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PgOutputMessageDecoder decodes the subset of the pgoutput logical replication
+ * protocol (version 1) that the outbox stream needs: Begin, Commit, Relation
+ * and Insert. Every other message type is skipped.
+ *
+ * Relation messages are cached by OID because Insert messages only reference
+ * the relation and carry column values positionally.
+ */
+final class PgOutputMessageDecoder {
+
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    /**
+     * Decodes one message, returning null for message types that are not relevant.
+     */
+    Message decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        switch (type) {
+            case 'B' -> {
+                long finalLsn = buffer.getLong();
+                buffer.getLong(); // commit timestamp
+                buffer.getInt(); // xid
+                return new Begin(finalLsn);
+            }
+            case 'C' -> {
+                buffer.get(); // flags
+                long commitLsn = buffer.getLong();
+                long endLsn = buffer.getLong();
+                buffer.getLong(); // commit timestamp
+                return new Commit(commitLsn, endLsn);
+            }
+            case 'R' -> {
+                int relationId = buffer.getInt();
+                String namespace = readString(buffer);
+                String name = readString(buffer);
+                buffer.get(); // replica identity setting
+                int columnCount = buffer.getShort();
+                List<String> columns = new ArrayList<>(columnCount);
+                for (int i = 0; i < columnCount; i++) {
+                    buffer.get(); // column flags
+                    columns.add(readString(buffer));
+                    buffer.getInt(); // type OID
+                    buffer.getInt(); // type modifier
+                }
+                Relation relation = new Relation(namespace, name, columns);
+                relations.put(relationId, relation);
+                return relation;
+            }
+            case 'I' -> {
+                int relationId = buffer.getInt();
+                buffer.get(); // 'N' marker for the new tuple
+                Relation relation = relations.get(relationId);
+                if (relation == null) {
+                    throw new IllegalStateException("Insert for unknown relation OID " + relationId);
+                }
+                return new Insert(relation, readTuple(buffer, relation));
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    private Map<String, String> readTuple(ByteBuffer buffer, Relation relation) {
+        int columnCount = buffer.getShort();
+        Map<String, String> values = new HashMap<>(columnCount * 2);
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            String column = relation.columns().get(i);
+            if (kind == 't') {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                values.put(column, new String(bytes, StandardCharsets.UTF_8));
+            } else {
+                // 'n' (null) or 'u' (unchanged TOAST, never sent for inserts)
+                values.put(column, null);
+            }
+        }
+        return values;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // advance to the terminating NUL byte
+        }
+        int length = buffer.position() - start - 1;
+        byte[] bytes = new byte[length];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    sealed interface Message permits Begin, Commit, Relation, Insert {
+    }
+
+    record Begin(long finalLsn) implements Message {
+    }
+
+    record Commit(long commitLsn, long endLsn) implements Message {
+    }
+
+    record Relation(String namespace, String name, List<String> columns) implements Message {
+    }
+
+    record Insert(Relation relation, Map<String, String> values) implements Message {
+    }
+}
@@ -0,0 +1,105 @@
+package dev.healthcare.analytics.platform.analyticsschema.rollup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RollupBucketRangeTest {
+
+    // Minute buckets are kept for every window below that does not pass an explicit cutoff.
+    private static final Instant ALL_MINUTES = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant MINUTES_PURGED = Instant.parse("2026-10-18T00:00:00Z");
+
+    @Test
+    void coversRecentWindowWithDaysHoursAndMinutes() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-15T10:17:30Z"), at("2026-10-17T14:42:10Z"), ALL_MINUTES);
+
+        assertEquals(List.of(
+                minutes("2026-10-15T10:17:00Z", "2026-10-15T11:00:00Z"),
+                hours("2026-10-15T11:00:00Z", "2026-10-16T00:00:00Z"),
+                days("2026-10-16T00:00:00Z", "2026-10-17T00:00:00Z"),
+                hours("2026-10-17T00:00:00Z", "2026-10-17T14:00:00Z"),
+                minutes("2026-10-17T14:00:00Z", "2026-10-17T14:42:10Z")), ranges);
+    }
+
+    @Test
+    void coversRecentWindowWithinOneHourWithMinutes() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T10:42:00Z"), ALL_MINUTES);
+
+        assertEquals(List.of(minutes("2026-10-17T10:17:00Z", "2026-10-17T10:42:00Z")), ranges);
+    }
+
+    @Test
+    void widensBothEdgesOfHistoricalWindowToWholeHours() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-15T10:17:00Z"), at("2026-10-17T14:42:00Z"), MINUTES_PURGED);
+
+        assertEquals(List.of(
+                hours("2026-10-15T10:00:00Z", "2026-10-16T00:00:00Z"),
+                days("2026-10-16T00:00:00Z", "2026-10-17T00:00:00Z"),
+                hours("2026-10-17T00:00:00Z", "2026-10-17T15:00:00Z")), ranges);
+    }
+
+    @Test
+    void widensHistoricalWindowWithoutFullDayToWholeHours() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T13:42:00Z"), MINUTES_PURGED);
+
+        assertEquals(List.of(hours("2026-10-17T10:00:00Z", "2026-10-17T14:00:00Z")), ranges);
+    }
+
+    @Test
+    void widensHistoricalWindowWithinOneHourToThatHour() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T10:42:00Z"), MINUTES_PURGED);
+
+        assertEquals(List.of(hours("2026-10-17T10:00:00Z", "2026-10-17T11:00:00Z")), ranges);
+    }
+
+    @Test
+    void keepsHourAlignedEndOfHistoricalWindow() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T12:00:00Z"), MINUTES_PURGED);
+
+        assertEquals(List.of(hours("2026-10-17T10:00:00Z", "2026-10-17T12:00:00Z")), ranges);
+    }
+
+    @Test
+    void widensOnlyTheStartWhenMinutesRemainForTheEnd() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T12:42:00Z"), at("2026-10-17T11:30:00Z"));
+
+        assertEquals(List.of(
+                hours("2026-10-17T10:00:00Z", "2026-10-17T12:00:00Z"),
+                minutes("2026-10-17T12:00:00Z", "2026-10-17T12:42:00Z")), ranges);
+    }
+
+    @Test
+    void widensTheEndWhenMinutesOfItsHourArePartlyPurged() {
+        List<RollupBucketRange> ranges = RollupBucketRange.cover(
+                at("2026-10-17T10:17:00Z"), at("2026-10-17T12:42:00Z"), at("2026-10-17T12:30:00Z"));
+
+        assertEquals(List.of(hours("2026-10-17T10:00:00Z", "2026-10-17T13:00:00Z")), ranges);
+    }
+
+    private static Instant at(String instant) {
+        return Instant.parse(instant);
+    }
+
+    private static RollupBucketRange minutes(String from, String to) {
+        return new RollupBucketRange(RollupGranularity.MINUTE, at(from), at(to));
+    }
+
+    private static RollupBucketRange hours(String from, String to) {
+        return new RollupBucketRange(RollupGranularity.HOUR, at(from), at(to));
+    }
+
+    private static RollupBucketRange days(String from, String to) {
+        return new RollupBucketRange(RollupGranularity.DAY, at(from), at(to));
+    }
+}
@@ -0,0 +1,88 @@
+package dev.healthcare.analytics.platform.analyticsschema.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencySketchTest {
+
+    @Test
+    void roundTripsThroughBytesIncludingZeroBin() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.add(0, 3);
+        sketch.add(-45, 1);
+        sketch.add(1, 2);
+        sketch.add(90, 5);
+        sketch.add(86_400, 1);
+
+        LatencySketch decoded = LatencySketch.fromBytes(sketch.toBytes());
+
+        assertArrayEquals(sketch.toBytes(), decoded.toBytes());
+        assertEquals(12L, decoded.count());
+        assertEquals(0.0, decoded.quantile(0.0));
+        assertEquals(0.0, decoded.quantile(0.3));
+        assertEquals(sketch.quantile(0.5), decoded.quantile(0.5));
+        assertEquals(sketch.quantile(1.0), decoded.quantile(1.0));
+    }
+
+    @Test
+    void decodesMissingBytesAsEmpty() {
+        assertTrue(LatencySketch.fromBytes(null).isEmpty());
+        assertTrue(LatencySketch.fromBytes(new byte[0]).isEmpty());
+    }
+
+    @Test
+    void retractingAddedValuesLeavesSketchEmpty() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.add(0, 2);
+        sketch.add(120, 1);
+        sketch.add(3_600, 4);
+
+        sketch.add(3_600, -4);
+        sketch.add(120, -1);
+        sketch.add(0, -2);
+
+        assertTrue(sketch.isEmpty());
+        assertEquals(0L, sketch.count());
+        assertNull(sketch.quantile(0.5));
+        assertArrayEquals(new LatencySketch().toBytes(), sketch.toBytes());
+    }
+
+    @Test
+    void quantilesStayWithinRelativeAccuracy() {
+        // Waits of 1..10000 seconds, each seen once, so the exact quantile is the rank plus one.
+        int n = 10_000;
+        LatencySketch sketch = new LatencySketch();
+        for (long value = 1; value <= n; value++) {
+            sketch.add(value, 1);
+        }
+
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            double exact = Math.floor(q * (n - 1)) + 1;
+            double estimate = sketch.quantile(q);
+            assertTrue(Math.abs(estimate - exact) <= LatencySketch.RELATIVE_ACCURACY * exact,
+                    "p" + Math.round(q * 100) + " estimate " + estimate + " vs exact " + exact);
+        }
+    }
+
+    @Test
+    void mergeMatchesSketchBuiltFromAllValues() {
+        LatencySketch left = new LatencySketch();
+        LatencySketch right = new LatencySketch();
+        LatencySketch all = new LatencySketch();
+        for (long value = 0; value <= 5_000; value += 7) {
+            LatencySketch half = value % 2 == 0 ? left : right;
+            half.add(value, 1);
+            all.add(value, 1);
+        }
+
+        left.merge(right);
+
+        assertArrayEquals(all.toBytes(), left.toBytes());
+        assertEquals(all.count(), left.count());
+        assertEquals(all.quantile(0.9), left.quantile(0.9));
+    }
+}
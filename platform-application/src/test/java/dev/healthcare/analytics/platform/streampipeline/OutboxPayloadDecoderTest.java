@@ -0,0 +1,115 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxPayloadDecoderTest {
+
+    @Test
+    void parsesEveryDayLikeInstantParse() {
+        LocalDate end = LocalDate.of(2101, 1, 1);
+        int i = 0;
+        for (LocalDate date = LocalDate.of(1899, 1, 1); date.isBefore(end); date = date.plusDays(1), i++) {
+            // Vary the time of day so hours, minutes and seconds are all exercised.
+            String text = String.format("%sT%02d:%02d:%02dZ", date, i % 24, i % 60, (i * 7) % 60);
+            assertParsedLikeInstantParse(text);
+        }
+    }
+
+    @Test
+    void parsesLeapDaysAndMonthEnds() {
+        for (String text : List.of(
+                "0000-02-29T00:00:00Z",
+                "0400-02-29T12:00:00Z",
+                "1600-02-29T23:59:59Z",
+                "1970-01-01T00:00:00Z",
+                "1969-12-31T23:59:59Z",
+                "2000-02-29T10:15:30Z",
+                "2024-02-29T23:59:59Z",
+                "2023-02-28T23:59:59Z",
+                "2100-02-28T00:00:00Z",
+                "2024-04-30T00:00:00Z",
+                "2024-06-30T00:00:00Z",
+                "2024-09-30T00:00:00Z",
+                "2024-11-30T00:00:00Z",
+                "2024-12-31T23:59:59Z",
+                "9999-12-31T23:59:59Z")) {
+            assertParsedLikeInstantParse(text);
+        }
+    }
+
+    @Test
+    void parsesEveryFractionPrecision() {
+        String digits = "123456789";
+        for (int precision = 1; precision <= 9; precision++) {
+            assertParsedLikeInstantParse("2024-02-29T23:59:59." + digits.substring(0, precision) + "Z");
+            assertParsedLikeInstantParse("2026-10-18T08:30:00." + "0".repeat(precision - 1) + "7Z");
+        }
+        assertParsedLikeInstantParse("2026-10-18T08:30:00.000000000Z");
+        assertParsedLikeInstantParse("2026-10-18T08:30:00.999999999Z");
+    }
+
+    @Test
+    void parsesInstantToString() {
+        Instant instant = Instant.parse("2026-10-18T08:30:00Z");
+        for (long nanos = 0; nanos < 1_000_000_000L; nanos += 1_234_567L) {
+            assertParsedLikeInstantParse(instant.plusNanos(nanos).toString());
+        }
+    }
+
+    @Test
+    void rejectsOtherForms() {
+        for (String text : List.of(
+                "",
+                "2024-02-29",
+                "2024-02-29T10:15Z",
+                "2024-02-29T10:15:30",
+                "2024-02-29T10:15:30+01:00",
+                "2024-02-29T10:15:30.Z",
+                "2024-02-29T10:15:30.1234567890Z",
+                "2024-02-29T10:15:30,5Z",
+                "2024-02-29 10:15:30Z",
+                "2024/02/29T10:15:30Z",
+                "+2024-02-29T10:15:30Z",
+                "20240-02-29T10:15:30Z",
+                "2024-2-29T10:15:30Z",
+                "2023-02-29T10:15:30Z",
+                "1900-02-29T10:15:30Z",
+                "2024-04-31T10:15:30Z",
+                "2024-00-10T10:15:30Z",
+                "2024-13-10T10:15:30Z",
+                "2024-01-00T10:15:30Z",
+                "2024-01-32T10:15:30Z",
+                "2024-01-10T24:00:00Z",
+                "2024-01-10T10:60:00Z",
+                "2024-01-10T23:59:60Z",
+                "2024-01-10T1a:15:30Z",
+                "2024-01-10T10:15:30.12a4Z")) {
+            AppointmentEventPayload payload = new AppointmentEventPayload();
+            assertFalse(parse(text, payload), text);
+            assertEquals(AppointmentEventPayload.ABSENT, payload.getScheduledAtEpochSecond(), text);
+        }
+    }
+
+    private static void assertParsedLikeInstantParse(String text) {
+        Instant expected = Instant.parse(text);
+        AppointmentEventPayload payload = new AppointmentEventPayload();
+        assertTrue(parse(text, payload), text);
+        assertEquals(expected.getEpochSecond(), payload.getScheduledAtEpochSecond(), text);
+        assertEquals(expected.getNano(), payload.getNano(AppointmentEventPayload.SCHEDULED_AT), text);
+    }
+
+    private static boolean parse(String text, AppointmentEventPayload payload) {
+        // Surround the text like a parser buffer would, so the offset is exercised.
+        char[] chars = ("\"" + text + "\",").toCharArray();
+        return OutboxPayloadDecoder.parseUtcIsoInstant(chars, 1, text.length(), payload,
+                AppointmentEventPayload.SCHEDULED_AT);
+    }
+}
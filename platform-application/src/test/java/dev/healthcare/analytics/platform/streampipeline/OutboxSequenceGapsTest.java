@@ -0,0 +1,66 @@
+package dev.healthcare.analytics.platform.streampipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxSequenceGapsTest {
+
+    @Test
+    void formatAndParseRoundTrip() {
+        OutboxSequenceGaps gaps = OutboxSequenceGaps.parse("105-107@1714557330,230@1714557331");
+
+        assertEquals(4L, gaps.size());
+        assertEquals(105L, gaps.lowest());
+        assertEquals("105-107@1714557330,230@1714557331", gaps.format());
+        assertEquals("{105,230}", gaps.rangeStarts());
+        assertEquals("{107,230}", gaps.rangeEnds());
+    }
+
+    @Test
+    void parsesMissingTextAsEmptyAndFormatsEmptyAsNull() {
+        assertTrue(OutboxSequenceGaps.parse(null).isEmpty());
+        assertTrue(OutboxSequenceGaps.parse(" ").isEmpty());
+
+        OutboxSequenceGaps empty = OutboxSequenceGaps.parse("");
+        assertEquals(null, empty.format());
+        assertEquals(Long.MAX_VALUE, empty.lowest());
+    }
+
+    @Test
+    void addMissingMergesConsecutiveIdsFirstSeenTogether() {
+        OutboxSequenceGaps gaps = OutboxSequenceGaps.parse(null);
+
+        gaps.addMissing(List.of(105L, 106L, 107L, 110L), 100L);
+        gaps.addMissing(List.of(111L, 112L), 101L);
+        gaps.addMissing(List.of(113L), 101L);
+
+        assertEquals("105-107@100,110@100,111-113@101", gaps.format());
+        assertEquals(7L, gaps.size());
+    }
+
+    @Test
+    void removeSplitsRanges() {
+        OutboxSequenceGaps gaps = OutboxSequenceGaps.parse("105-110@100,230@101");
+
+        gaps.remove(List.of(105L, 107L, 108L, 230L, 999L));
+
+        assertEquals("106@100,109-110@100", gaps.format());
+        assertEquals(106L, gaps.lowest());
+
+        gaps.remove(List.of(106L, 109L, 110L));
+        assertTrue(gaps.isEmpty());
+    }
+
+    @Test
+    void expireFirstSeenBeforeDropsOnlyOlderRanges() {
+        OutboxSequenceGaps gaps = OutboxSequenceGaps.parse("105-107@100,200@150,230-231@160");
+
+        assertEquals(4L, gaps.expireFirstSeenBefore(160L));
+        assertEquals("230-231@160", gaps.format());
+        assertEquals(0L, gaps.expireFirstSeenBefore(160L));
+    }
+}
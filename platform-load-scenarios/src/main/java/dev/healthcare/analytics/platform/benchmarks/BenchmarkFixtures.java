@@ -0,0 +1,112 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * BenchmarkFixtures builds the inputs shared by the benchmarks: an
+ * ObjectMapper configured like the application's, appointment event payloads
+ * shaped like AppointmentCommandService publishes them, and seeded synthetic
+ * fact contributions, so every run sees the same data.
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Facts are scheduled in the days before this instant; breakdown windows end here.
+     */
+    public static final Instant NOW = Instant.parse("2026-10-18T00:00:00Z");
+
+    public static final int WINDOW_DAYS = 3;
+    public static final long ORGANIZATION_ID = 12L;
+    public static final int CLINIC_COUNT = 50;
+
+    private static final long SEED = 20261018L;
+    private static final long FIRST_CLINIC_ID = 300L;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Same serialization settings as Spring Boot's auto-configured mapper:
+     * java.time values are written as ISO-8601 strings.
+     */
+    public static ObjectMapper objectMapper() {
+        return JsonMapper.builder()
+                .addModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+    }
+
+    public static Map<String, Object> scheduledPayload(long appointmentId, long clinicId, long patientId,
+                                                       String modality, Instant scheduledAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("appointmentId", appointmentId);
+        payload.put("organizationId", ORGANIZATION_ID);
+        payload.put("clinicId", clinicId);
+        payload.put("patientId", patientId);
+        payload.put("modality", modality);
+        payload.put("scheduledAt", scheduledAt);
+        payload.put("status", "SCHEDULED");
+        return payload;
+    }
+
+    public static Map<String, Object> completedPayload(long appointmentId, long clinicId, long patientId,
+                                                       String modality, Instant scheduledAt,
+                                                       Instant startedAt, Instant completedAt) {
+        Map<String, Object> payload = scheduledPayload(appointmentId, clinicId, patientId, modality, scheduledAt);
+        payload.put("startedAt", startedAt);
+        payload.put("completedAt", completedAt);
+        payload.put("status", "COMPLETED");
+        return payload;
+    }
+
+    public static long clinicId(int clinicIndex) {
+        return FIRST_CLINIC_ID + clinicIndex;
+    }
+
+    /**
+     * Generates count contributions of one organization, spread over
+     * {@link #CLINIC_COUNT} clinics and the {@link #WINDOW_DAYS} days before
+     * {@link #NOW}; about two thirds are completed.
+     */
+    public static void forEachContribution(int count, Consumer<AppointmentFunnelContribution> consumer) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String organizationId = Long.toString(ORGANIZATION_ID);
+        String[] clinicIds = new String[CLINIC_COUNT];
+        for (int i = 0; i < CLINIC_COUNT; i++) {
+            clinicIds[i] = Long.toString(clinicId(i));
+        }
+        long windowSeconds = WINDOW_DAYS * 86_400L;
+        for (int i = 0; i < count; i++) {
+            Instant scheduledAt = NOW.minusSeconds(1 + random.nextLong(windowSeconds));
+            boolean completed = random.nextInt(3) != 0;
+            short modality = random.nextBoolean()
+                    ? AppointmentFunnelCodes.MODALITY_VIRTUAL
+                    : AppointmentFunnelCodes.MODALITY_IN_PERSON;
+            Long scheduledToStart = completed ? random.nextLong(3_600L) : null;
+            Long startToComplete = completed ? 300L + random.nextLong(3_300L) : null;
+            consumer.accept(new AppointmentFunnelContribution(
+                    organizationId,
+                    clinicIds[random.nextInt(CLINIC_COUNT)],
+                    1L + random.nextLong(Math.max(1, count / 3)),
+                    completed ? AppointmentFunnelCodes.STATUS_COMPLETED : AppointmentFunnelCodes.STATUS_SCHEDULED,
+                    modality,
+                    scheduledAt,
+                    scheduledToStart,
+                    startToComplete,
+                    completed ? scheduledAt.plusSeconds(scheduledToStart + startToComplete) : null));
+        }
+    }
+}
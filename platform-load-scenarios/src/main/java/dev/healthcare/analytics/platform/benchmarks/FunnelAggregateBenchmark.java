@@ -0,0 +1,77 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelReadService;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FunnelAggregateBenchmark measures the running funnel aggregates behind
+ * {@link AppointmentFunnelReadService#loadSnapshot}: folding factCount facts
+ * into a fresh aggregate store (what the stream processor does fact by fact)
+ * and reading the organization snapshot from a store that holds them.
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar FunnelAggregate -prof gc
+ * </pre>
+ *
+ * foldFacts reports one operation per complete fold, so divide by factCount
+ * for the cost per fact.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FunnelAggregateBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int factCount;
+
+    private List<AppointmentFunnelContribution> contributions;
+    private AppointmentFunnelReadService readService;
+    private String organizationId;
+
+    @Setup
+    public void setUp() {
+        contributions = new ArrayList<>(factCount);
+        BenchmarkFixtures.forEachContribution(factCount, contributions::add);
+        organizationId = Long.toString(BenchmarkFixtures.ORGANIZATION_ID);
+        readService = readServiceOver(contributions);
+    }
+
+    @Benchmark
+    public AppointmentFunnelSnapshot foldFacts() {
+        return readServiceOver(contributions).loadSnapshot(organizationId, AppointmentFunnelAggregateStore.ALL_CLINICS);
+    }
+
+    @Benchmark
+    public AppointmentFunnelSnapshot loadSnapshot() {
+        return readService.loadSnapshot(organizationId, AppointmentFunnelAggregateStore.ALL_CLINICS);
+    }
+
+    private static AppointmentFunnelReadService readServiceOver(List<AppointmentFunnelContribution> contributions) {
+        // The repositories are only used when rebuilding from the database.
+        AppointmentFunnelAggregateStore aggregateStore = new AppointmentFunnelAggregateStore(null, null);
+        for (AppointmentFunnelContribution contribution : contributions) {
+            aggregateStore.replace(null, contribution);
+        }
+        return new AppointmentFunnelReadService(aggregateStore, null, null, null);
+    }
+}
@@ -0,0 +1,82 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.AppointmentFunnelHotWindowStore;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.FunnelBreakdownDimension;
+import dev.healthcare.analytics.platform.analyticsschema.hotwindow.FunnelBreakdownQuery;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelReadService;
+import dev.healthcare.analytics.platform.analyticsschema.view.AppointmentFunnelBreakdown;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FunnelBreakdownBenchmark measures
+ * {@link AppointmentFunnelReadService#loadBreakdown} over a hot window holding
+ * factCount facts of one organization, for the whole organization and for
+ * one of its clinics, grouped by each dimension. The hot window is filled
+ * directly instead of being warmed from the fact table.
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar FunnelBreakdown -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FunnelBreakdownBenchmark {
+
+    // Large enough that a million facts never reach the eviction threshold.
+    private static final long HOT_WINDOW_BYTES = 1L << 30;
+
+    @Param({"10000", "100000", "1000000"})
+    public int factCount;
+
+    @Param({"NONE", "CLINIC", "STATUS", "HOUR_OF_DAY"})
+    public FunnelBreakdownDimension groupBy;
+
+    private AppointmentFunnelReadService readService;
+    private FunnelBreakdownQuery organizationQuery;
+    private FunnelBreakdownQuery clinicQuery;
+
+    @Setup
+    public void setUp() {
+        AppointmentFunnelHotWindowStore hotWindowStore = new AppointmentFunnelHotWindowStore(
+                null, new SimpleMeterRegistry(), true, BenchmarkFixtures.WINDOW_DAYS, HOT_WINDOW_BYTES);
+        BenchmarkFixtures.forEachContribution(factCount, contribution -> hotWindowStore.replace(null, contribution));
+        // Breakdowns only read the hot window.
+        readService = new AppointmentFunnelReadService(null, null, null, hotWindowStore);
+
+        Instant from = BenchmarkFixtures.NOW.minus(Duration.ofDays(BenchmarkFixtures.WINDOW_DAYS));
+        String organizationId = Long.toString(BenchmarkFixtures.ORGANIZATION_ID);
+        organizationQuery = new FunnelBreakdownQuery(organizationId, null, from, BenchmarkFixtures.NOW,
+                groupBy, null, null, null);
+        clinicQuery = new FunnelBreakdownQuery(organizationId, Long.toString(BenchmarkFixtures.clinicId(0)),
+                from, BenchmarkFixtures.NOW, groupBy, null, null, null);
+    }
+
+    @Benchmark
+    public AppointmentFunnelBreakdown organization() {
+        return readService.loadBreakdown(organizationQuery);
+    }
+
+    @Benchmark
+    public AppointmentFunnelBreakdown clinic() {
+        return readService.loadBreakdown(clinicQuery);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEventBatchRepository;
+import dev.healthcare.analytics.platform.appschema.outbox.BinaryOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.appschema.outbox.JsonOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboxEventPublisherBenchmark measures
+ * {@link OutboxEventPublisher#publishEvents} for a group of
+ * {@value #BATCH_SIZE} scheduling events, the path the schedule queue workers
+ * take: building the outbox rows and encoding their payloads with the
+ * configured codec. The batched insert is stubbed out (ids are assigned as
+ * the sequence would) and NOTIFY is disabled, so results are per event:
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar OutboxEventPublisher -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxEventPublisherBenchmark {
+
+    // platform.appointment-queue.batch-size
+    static final int BATCH_SIZE = 100;
+
+    @Param({"json", "binary"})
+    public String payloadCodec;
+
+    private OutboxEventPublisher publisher;
+    private List<OutboxEventPublisher.PendingEvent> pendingEvents;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        JsonOutboxPayloadCodec jsonCodec = new JsonOutboxPayloadCodec(objectMapper);
+        // The JPA repository and JdbcTemplate are only used by publishEvent and NOTIFY.
+        publisher = new OutboxEventPublisher(null, new SequenceOnlyBatchRepository(),
+                List.of(jsonCodec, new BinaryOutboxPayloadCodec(jsonCodec)), null, new SimpleMeterRegistry(),
+                payloadCodec, false);
+
+        pendingEvents = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long appointmentId = 1_000_000L + i;
+            Instant scheduledAt = BenchmarkFixtures.NOW.plusSeconds(3_600L + 900L * i);
+            pendingEvents.add(new OutboxEventPublisher.PendingEvent("APPOINTMENT", Long.toString(appointmentId),
+                    "APPOINTMENT_SCHEDULED",
+                    BenchmarkFixtures.scheduledPayload(appointmentId,
+                            BenchmarkFixtures.clinicId(i % BenchmarkFixtures.CLINIC_COUNT), 5_000_000L + i,
+                            i % 3 == 0 ? "IN_PERSON" : "VIRTUAL", scheduledAt),
+                    scheduledAt));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void publishEvents() {
+        publisher.publishEvents(pendingEvents);
+    }
+
+    private static final class SequenceOnlyBatchRepository extends AppOutboxEventBatchRepository {
+
+        private long nextId = 1;
+
+        private SequenceOnlyBatchRepository() {
+            super(null);
+        }
+
+        @Override
+        public void insertAll(List<AppOutboxEvent> events) {
+            for (AppOutboxEvent event : events) {
+                event.setId(nextId++);
+            }
+        }
+    }
+}
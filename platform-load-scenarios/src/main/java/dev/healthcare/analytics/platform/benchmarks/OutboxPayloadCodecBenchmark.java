@@ -0,0 +1,134 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import dev.healthcare.analytics.platform.appschema.outbox.BinaryOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.appschema.outbox.JsonOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.streampipeline.AppointmentEventPayload;
+import dev.healthcare.analytics.platform.streampipeline.OutboxPayloadDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboxPayloadCodecBenchmark compares the JSON and binary outbox payload
+ * codecs: encoding an event as the publisher does, and decoding the stored
+ * payload as the projector does. Run with {@code -prof gc} for bytes/op;
+ * the encoded payload sizes are logged once per trial.
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar OutboxPayloadCodec -prof gc
+ * </pre>
+ *
+ * Insert throughput and table size depend on Postgres and are compared by
+ * running the simulation with {@code platform.outbox.payload-codec} set to
+ * json and to binary, watching {@code platform.outbox.payload.bytes} and
+ * {@code pg_total_relation_size('app.outbox_event')}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxPayloadCodecBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxPayloadCodecBenchmark.class);
+
+    @Param({"APPOINTMENT_SCHEDULED", "APPOINTMENT_COMPLETED"})
+    public String eventType;
+
+    private JsonOutboxPayloadCodec jsonCodec;
+    private BinaryOutboxPayloadCodec binaryCodec;
+    private OutboxPayloadDecoder decoder;
+    private AppointmentEventPayload holder;
+    private Map<String, Object> jsonPayload;
+    private Map<String, Object> binaryPayload;
+    private String encodedJson;
+    private byte[] encodedBinary;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        jsonCodec = new JsonOutboxPayloadCodec(objectMapper);
+        binaryCodec = new BinaryOutboxPayloadCodec(jsonCodec);
+        decoder = new OutboxPayloadDecoder(objectMapper.getFactory());
+        holder = new AppointmentEventPayload();
+
+        Instant scheduledAt = Instant.parse("2026-10-18T09:30:00Z");
+        binaryPayload = new HashMap<>();
+        binaryPayload.put("appointmentId", 1_234_567L);
+        binaryPayload.put("organizationId", 12L);
+        binaryPayload.put("clinicId", 345L);
+        binaryPayload.put("patientId", 6_789_012L);
+        binaryPayload.put("modality", "VIRTUAL");
+        binaryPayload.put("scheduledAt", scheduledAt);
+        if ("APPOINTMENT_COMPLETED".equals(eventType)) {
+            binaryPayload.put("startedAt", scheduledAt.plusSeconds(347).plusNanos(123_456_000L));
+            binaryPayload.put("completedAt", scheduledAt.plusSeconds(1_912).plusNanos(987_654_000L));
+            binaryPayload.put("status", "COMPLETED");
+        } else {
+            binaryPayload.put("status", "SCHEDULED");
+        }
+        // The application's ObjectMapper writes Instants as ISO-8601 strings; a plain one needs them pre-rendered.
+        jsonPayload = new HashMap<>();
+        binaryPayload.forEach((field, value) -> jsonPayload.put(field, value instanceof Instant ? value.toString() : value));
+
+        AppOutboxEvent row = new AppOutboxEvent();
+        int jsonBytes = jsonCodec.encode(eventType, jsonPayload, row);
+        encodedJson = row.getEventPayload();
+        int binaryBytes = binaryCodec.encode(eventType, binaryPayload, row);
+        encodedBinary = row.getEventPayloadBinary();
+        LOGGER.info("{} payload: json {} bytes, binary {} bytes", eventType, jsonBytes, binaryBytes);
+    }
+
+    @Benchmark
+    public AppOutboxEvent encodeJson() {
+        AppOutboxEvent row = new AppOutboxEvent();
+        jsonCodec.encode(eventType, jsonPayload, row);
+        return row;
+    }
+
+    @Benchmark
+    public AppOutboxEvent encodeBinary() {
+        AppOutboxEvent row = new AppOutboxEvent();
+        binaryCodec.encode(eventType, binaryPayload, row);
+        return row;
+    }
+
+    @Benchmark
+    public void decodeJson(Blackhole blackhole) throws IOException {
+        decoder.decode(encodedJson, holder);
+        consume(blackhole);
+    }
+
+    @Benchmark
+    public void decodeBinary(Blackhole blackhole) {
+        decoder.decode(encodedBinary, holder);
+        consume(blackhole);
+    }
+
+    private void consume(Blackhole blackhole) {
+        blackhole.consume(holder.getAppointmentId());
+        blackhole.consume(holder.getStatus());
+        blackhole.consume(holder.getScheduledAtEpochSecond());
+        blackhole.consume(holder.getCompletedAtEpochSecond());
+    }
+}
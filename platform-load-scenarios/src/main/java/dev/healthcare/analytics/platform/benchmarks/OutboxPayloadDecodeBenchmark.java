@@ -0,0 +1,129 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.streampipeline.AppointmentEventPayload;
+import dev.healthcare.analytics.platform.streampipeline.OutboxPayloadDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboxPayloadDecodeBenchmark compares decoding appointment outbox payloads
+ * with a full JsonNode tree plus Instant.parse (the previous projector path)
+ * against the streaming {@link OutboxPayloadDecoder}.
+ *
+ * Throughput is reported in events per second; run with the GC profiler to
+ * get the allocation rate and bytes allocated per event (gc.alloc.rate.norm):
+ *
+ * <pre>
+ * mvn -pl platform-load-scenarios -am -DskipTests package
+ * java -jar platform-load-scenarios/target/benchmarks.jar OutboxPayloadDecode -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxPayloadDecodeBenchmark {
+
+    @Param({"APPOINTMENT_SCHEDULED", "APPOINTMENT_COMPLETED"})
+    public String eventType;
+
+    private ObjectMapper objectMapper;
+    private OutboxPayloadDecoder decoder;
+    private AppointmentEventPayload holder;
+    private String payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        decoder = new OutboxPayloadDecoder(objectMapper.getFactory());
+        holder = new AppointmentEventPayload();
+
+        // Same shape as AppointmentCommandService publishes; Instants are written as ISO-8601 strings.
+        Instant scheduledAt = Instant.parse("2026-10-18T09:30:00Z");
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("appointmentId", 1_234_567L);
+        fields.put("organizationId", 12L);
+        fields.put("clinicId", 345L);
+        fields.put("patientId", 6_789_012L);
+        fields.put("modality", "VIRTUAL");
+        fields.put("scheduledAt", scheduledAt.toString());
+        if ("APPOINTMENT_COMPLETED".equals(eventType)) {
+            fields.put("startedAt", scheduledAt.plusSeconds(347).plusNanos(123_456_000L).toString());
+            fields.put("completedAt", scheduledAt.plusSeconds(1_912).plusNanos(987_654_000L).toString());
+            fields.put("status", "COMPLETED");
+        } else {
+            fields.put("status", "SCHEDULED");
+        }
+        payload = objectMapper.writeValueAsString(fields);
+    }
+
+    @Benchmark
+    public void streamingDecoder(Blackhole blackhole) throws IOException {
+        decoder.decode(payload, holder);
+        blackhole.consume(holder.getOrganizationId());
+        blackhole.consume(holder.getStatus());
+        blackhole.consume(holder.getModality());
+        blackhole.consume(holder.getScheduledAtEpochSecond());
+        blackhole.consume(holder.getCompletedAtEpochSecond());
+    }
+
+    @Benchmark
+    public void jsonTree(Blackhole blackhole) throws IOException {
+        JsonNode root = objectMapper.readTree(payload);
+        blackhole.consume(asLong(root, "appointmentId"));
+        blackhole.consume(asLong(root, "organizationId"));
+        blackhole.consume(asLong(root, "clinicId"));
+        blackhole.consume(asLong(root, "patientId"));
+        blackhole.consume(AppointmentFunnelCodes.statusCode(asString(root, "status")));
+        blackhole.consume(AppointmentFunnelCodes.modalityCode(asString(root, "modality")));
+        Instant scheduledAt = asInstant(root, "scheduledAt");
+        Instant startedAt = asInstant(root, "startedAt");
+        Instant completedAt = asInstant(root, "completedAt");
+        if (scheduledAt != null && startedAt != null) {
+            blackhole.consume(Duration.between(scheduledAt, startedAt).getSeconds());
+        }
+        if (startedAt != null && completedAt != null) {
+            blackhole.consume(Duration.between(startedAt, completedAt).getSeconds());
+        }
+    }
+
+    private static String asString(JsonNode root, String field) {
+        JsonNode node = root.get(field);
+        return node != null && !node.isNull() ? node.asText() : null;
+    }
+
+    private static Long asLong(JsonNode root, String field) {
+        JsonNode node = root.get(field);
+        if (node == null || node.isNull()) {
+            return null;
+        }
+        return node.isIntegralNumber() ? node.longValue() : Long.parseLong(node.asText());
+    }
+
+    private static Instant asInstant(JsonNode root, String field) {
+        String value = asString(root, field);
+        return value != null ? Instant.parse(value) : null;
+    }
+}
@@ -0,0 +1,193 @@
+package dev.healthcare.analytics.platform.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelFact;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelFactBatchRepository;
+import dev.healthcare.analytics.platform.analyticsschema.repository.AppointmentFunnelRollupRepository;
+import dev.healthcare.analytics.platform.analyticsschema.rollup.AppointmentFunnelRollupDelta;
+import dev.healthcare.analytics.platform.appschema.outbox.AppOutboxEvent;
+import dev.healthcare.analytics.platform.appschema.outbox.BinaryOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.appschema.outbox.JsonOutboxPayloadCodec;
+import dev.healthcare.analytics.platform.appschema.outbox.OutboxPayloadCodec;
+import dev.healthcare.analytics.platform.streampipeline.OutboxBatchProjector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboxProjectionBenchmark measures what a partition worker of
+ * OutboxEventStreamProcessor does with one polled batch: decode the payloads,
+ * fold them into funnel facts, derive the rollup deltas and apply the fact
+ * changes to the running aggregates.
+ *
+ * The database is stubbed out: the fact lookup returns freshly built facts
+ * (as the row mapper would) for the appointments that already exist, and
+ * the fact upsert, rollup upsert and checkpoint are not executed. Each batch
+ * holds {@value #BATCH_SIZE} events, half of them schedulings of new
+ * appointments and half completions of existing ones, so results are per
+ * event:
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar OutboxProjection -prof gc
+ * </pre>
+ *
+ * The hot window is left out: it only appends, so its cost would depend on
+ * how long the benchmark ran.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboxProjectionBenchmark {
+
+    // platform.stream-pipeline.outbox-batch-size
+    static final int BATCH_SIZE = 500;
+
+    private static final long FIRST_APPOINTMENT_ID = 1_000_000L;
+
+    @Param({"json", "binary"})
+    public String payloadCodec;
+
+    private OutboxBatchProjector projector;
+    private ExistingFactRepository factRepository;
+    private DiscardingRollupRepository rollupRepository;
+    private AppointmentFunnelAggregateStore aggregateStore;
+    private List<AppOutboxEvent> batch;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        JsonOutboxPayloadCodec jsonCodec = new JsonOutboxPayloadCodec(objectMapper);
+        OutboxPayloadCodec codec = JsonOutboxPayloadCodec.NAME.equals(payloadCodec)
+                ? jsonCodec
+                : new BinaryOutboxPayloadCodec(jsonCodec);
+
+        factRepository = new ExistingFactRepository();
+        rollupRepository = new DiscardingRollupRepository();
+        projector = new OutboxBatchProjector(factRepository, rollupRepository, null, objectMapper);
+        // Both repositories are only used when rebuilding from the database.
+        aggregateStore = new AppointmentFunnelAggregateStore(null, null);
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long appointmentId = FIRST_APPOINTMENT_ID + i;
+            long clinicId = BenchmarkFixtures.clinicId(i % BenchmarkFixtures.CLINIC_COUNT);
+            long patientId = 5_000_000L + i;
+            String modality = i % 3 == 0 ? "IN_PERSON" : "VIRTUAL";
+            Instant scheduledAt = BenchmarkFixtures.NOW.minusSeconds(7_200L + 37L * i);
+            boolean completed = i % 2 == 1;
+            Map<String, Object> payload;
+            if (completed) {
+                Instant startedAt = scheduledAt.plusSeconds(120 + i);
+                payload = BenchmarkFixtures.completedPayload(appointmentId, clinicId, patientId, modality,
+                        scheduledAt, startedAt, startedAt.plusSeconds(900 + i));
+                factRepository.existing.add(scheduledFact(appointmentId, clinicId, patientId, modality, scheduledAt));
+            } else {
+                payload = BenchmarkFixtures.scheduledPayload(appointmentId, clinicId, patientId, modality, scheduledAt);
+            }
+            String eventType = completed ? "APPOINTMENT_COMPLETED" : "APPOINTMENT_SCHEDULED";
+            AppOutboxEvent event = new AppOutboxEvent();
+            event.setId((long) i + 1);
+            event.setAggregateType("APPOINTMENT");
+            event.setAggregateId(Long.toString(appointmentId));
+            event.setEventType(eventType);
+            codec.encode(eventType, payload, event);
+            event.setEventTime(completed ? (Instant) payload.get("completedAt") : scheduledAt);
+            event.setCreatedAt(BenchmarkFixtures.NOW);
+            batch.add(event);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<OutboxBatchProjector.FactChange> projectBatch() {
+        List<OutboxBatchProjector.FactChange> changes = projector.projectInto(batch, factRepository, rollupRepository);
+        for (OutboxBatchProjector.FactChange change : changes) {
+            aggregateStore.replace(change.before(), change.after());
+        }
+        return changes;
+    }
+
+    private static AppointmentFunnelFact scheduledFact(long appointmentId, long clinicId, long patientId,
+                                                       String modality, Instant scheduledAt) {
+        AppointmentFunnelFact fact = new AppointmentFunnelFact();
+        fact.setAppointmentId(appointmentId);
+        fact.setOrganizationId(BenchmarkFixtures.ORGANIZATION_ID);
+        fact.setClinicId(clinicId);
+        fact.setPatientId(patientId);
+        fact.setModality(AppointmentFunnelCodes.modalityCode(modality));
+        fact.setStatus(AppointmentFunnelCodes.STATUS_SCHEDULED);
+        fact.setScheduledAtEpochSecond(scheduledAt.getEpochSecond());
+        return fact;
+    }
+
+    /**
+     * Finds the scheduled facts of the batch's completed appointments, each
+     * as a new copy like a query would return; writes are dropped.
+     */
+    private static final class ExistingFactRepository extends AppointmentFunnelFactBatchRepository {
+
+        private final List<AppointmentFunnelFact> existing = new ArrayList<>();
+        private long upsertedFacts;
+
+        private ExistingFactRepository() {
+            super(null);
+        }
+
+        @Override
+        public List<AppointmentFunnelFact> findAllByAppointmentIds(Collection<Long> appointmentIds) {
+            List<AppointmentFunnelFact> found = new ArrayList<>(existing.size());
+            for (AppointmentFunnelFact fact : existing) {
+                AppointmentFunnelFact copy = new AppointmentFunnelFact();
+                copy.setAppointmentId(fact.getAppointmentId());
+                copy.setOrganizationId(fact.getOrganizationId());
+                copy.setClinicId(fact.getClinicId());
+                copy.setPatientId(fact.getPatientId());
+                copy.setModality(fact.getModality());
+                copy.setStatus(fact.getStatus());
+                copy.setScheduledAtEpochSecond(fact.getScheduledAtEpochSecond());
+                found.add(copy);
+            }
+            return found;
+        }
+
+        @Override
+        public void upsertAll(Collection<AppointmentFunnelFact> facts) {
+            upsertedFacts += facts.size();
+        }
+    }
+
+    private static final class DiscardingRollupRepository extends AppointmentFunnelRollupRepository {
+
+        private long appliedDeltas;
+
+        private DiscardingRollupRepository() {
+            super(null);
+        }
+
+        @Override
+        public void applyDeltas(Collection<AppointmentFunnelRollupDelta> deltas) {
+            appliedDeltas += deltas.size();
+        }
+    }
+}
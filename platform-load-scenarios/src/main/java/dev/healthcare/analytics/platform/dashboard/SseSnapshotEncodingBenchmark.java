@@ -0,0 +1,132 @@
+package dev.healthcare.analytics.platform.dashboard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelAggregateStore;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelChangedEvent;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelContribution;
+import dev.healthcare.analytics.platform.analyticsschema.aggregate.AppointmentFunnelTenant;
+import dev.healthcare.analytics.platform.analyticsschema.fact.AppointmentFunnelCodes;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelReadService;
+import dev.healthcare.analytics.platform.analyticsschema.service.AppointmentFunnelSnapshotCache;
+import dev.healthcare.analytics.platform.benchmarks.BenchmarkFixtures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SseSnapshotEncodingBenchmark measures how DashboardSseController turns a
+ * tenant's funnel snapshot into an SSE event, up to the rendered JSON that
+ * every subscriber of the tenant shares:
+ *
+ * <ul>
+ *     <li>initialSnapshot: the full snapshot a client gets when it connects,
+ *     read through the snapshot cache (a hit) and rendered.</li>
+ *     <li>changedTenantDelta: a push after the tenant's aggregate changed:
+ *     the cache misses and reloads, and the new state is diffed against the
+ *     published one and rendered as a delta.</li>
+ * </ul>
+ *
+ * The aggregates are filled with seeded facts; writing frames to clients is
+ * not included. It lives in the controller's package to reach the diff and
+ * the outbound event it renders.
+ *
+ * <pre>
+ * java -jar platform-load-scenarios/target/benchmarks.jar SseSnapshotEncoding -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseSnapshotEncodingBenchmark {
+
+    private static final int FACT_COUNT = 10_000;
+
+    private ObjectMapper objectMapper;
+    private AppointmentFunnelAggregateStore aggregateStore;
+    private AppointmentFunnelSnapshotCache snapshotCache;
+    private DashboardSseController controller;
+
+    private String organizationId;
+    private String clinicId;
+    private AppointmentFunnelChangedEvent changedEvent;
+    private AppointmentFunnelContribution scheduled;
+    private AppointmentFunnelContribution completed;
+    private boolean completeNext = true;
+    private ObjectNode published;
+    private long eventId;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // The repositories are only used when rebuilding from the database.
+        aggregateStore = new AppointmentFunnelAggregateStore(null, null);
+        BenchmarkFixtures.forEachContribution(FACT_COUNT, contribution -> aggregateStore.replace(null, contribution));
+        AppointmentFunnelReadService readService = new AppointmentFunnelReadService(aggregateStore, null, null, null);
+        snapshotCache = new AppointmentFunnelSnapshotCache(readService, objectMapper, meterRegistry, 16L << 20);
+        controller = new DashboardSseController(snapshotCache, objectMapper, meterRegistry,
+                10, 1_000L, 10_000L, 15_000L, true, 1);
+
+        organizationId = Long.toString(BenchmarkFixtures.ORGANIZATION_ID);
+        clinicId = Long.toString(BenchmarkFixtures.clinicId(0));
+        changedEvent = new AppointmentFunnelChangedEvent(Set.of(
+                new AppointmentFunnelTenant(organizationId, clinicId),
+                new AppointmentFunnelTenant(organizationId, AppointmentFunnelAggregateStore.ALL_CLINICS)));
+
+        // One appointment of the clinic alternates between scheduled and completed, so every push has a delta.
+        Instant scheduledAt = BenchmarkFixtures.NOW.minusSeconds(5_400L);
+        scheduled = new AppointmentFunnelContribution(organizationId, clinicId, 42L,
+                AppointmentFunnelCodes.STATUS_SCHEDULED, AppointmentFunnelCodes.MODALITY_VIRTUAL,
+                scheduledAt, null, null, null);
+        completed = new AppointmentFunnelContribution(organizationId, clinicId, 42L,
+                AppointmentFunnelCodes.STATUS_COMPLETED, AppointmentFunnelCodes.MODALITY_VIRTUAL,
+                scheduledAt, 240L, 1_260L, scheduledAt.plusSeconds(1_500L));
+        aggregateStore.replace(null, scheduled);
+        published = objectMapper.valueToTree(snapshotCache.get(organizationId, clinicId).snapshot());
+    }
+
+    @TearDown
+    public void tearDown() {
+        controller.shutdown();
+    }
+
+    @Benchmark
+    public String initialSnapshot() {
+        ObjectNode state = objectMapper.valueToTree(
+                snapshotCache.get(organizationId, AppointmentFunnelAggregateStore.ALL_CLINICS).snapshot());
+        return SseClientChannel.OutboundEvent.of(DashboardSseController.SNAPSHOT_EVENT, ++eventId, state).json();
+    }
+
+    @Benchmark
+    public String changedTenantDelta() {
+        if (completeNext) {
+            aggregateStore.replace(scheduled, completed);
+        } else {
+            aggregateStore.replace(completed, scheduled);
+        }
+        completeNext = !completeNext;
+        snapshotCache.onFunnelChanged(changedEvent);
+
+        ObjectNode state = objectMapper.valueToTree(snapshotCache.get(organizationId, clinicId).snapshot());
+        ObjectNode delta = controller.diff(published, state);
+        published = state;
+        return SseClientChannel.OutboundEvent.of(DashboardSseController.DELTA_EVENT, ++eventId, delta).json();
+    }
+}